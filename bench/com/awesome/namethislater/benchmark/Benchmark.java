@@ -0,0 +1,71 @@
+package com.awesome.namethislater.benchmark;
+
+/**
+ * A single benchmark. The runner calls {@link #setup(int[])} once for each set of parameters, then calls
+ * {@link #run()} over and over while timing it.
+ */
+public abstract class Benchmark {
+
+	private final String name;
+	private final String[] paramNames;
+	private final int[][] paramSets;
+
+	/**
+	 * Create a new benchmark.
+	 *
+	 * @param name
+	 *            The name of the benchmark.
+	 * @param paramNames
+	 *            The name of each parameter.
+	 * @param paramSets
+	 *            Each set of parameter values to run the benchmark with, in the same order as the names.
+	 */
+	protected Benchmark(String name, String[] paramNames, int[][] paramSets) {
+		this.name = name;
+		this.paramNames = paramNames;
+		this.paramSets = paramSets;
+	}
+
+	/**
+	 * Set up the state for a set of parameters. This is not timed.
+	 *
+	 * @param params
+	 *            The parameter values, in the same order as the names.
+	 */
+	public abstract void setup(int[] params);
+
+	/**
+	 * Run one operation of the benchmark.
+	 *
+	 * @return A value that depends on the work done, so the JIT can not remove it.
+	 */
+	public abstract int run();
+
+	public String getName() {
+		return name;
+	}
+
+	public String[] getParamNames() {
+		return paramNames;
+	}
+
+	public int[][] getParamSets() {
+		return paramSets;
+	}
+
+	/**
+	 * Get the name of the benchmark with a set of parameter values, for example "WorldCollisions(enemies=100,map=64)".
+	 */
+	public String getLabel(int[] params) {
+		StringBuilder label = new StringBuilder(name);
+		label.append('(');
+		for (int i = 0; i < paramNames.length; i++) {
+			if (i > 0) {
+				label.append(',');
+			}
+			label.append(paramNames[i]).append('=').append(params[i]);
+		}
+		return label.append(')').toString();
+	}
+
+}
@@ -0,0 +1,220 @@
+package com.awesome.namethislater.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the benchmarks and reports the time, the bytes allocated and the garbage collections per operation. Each
+ * benchmark is warmed up first, so the JIT has compiled it before it is measured.
+ * <p>
+ * Usage: BenchmarkRunner [--quick] [--filter name] [--out results.csv] [--baseline baseline.csv]
+ * <p>
+ * The results can be saved with --out, and compared against a saved run with --baseline.
+ */
+public class BenchmarkRunner {
+
+	private static final int BATCH = 16; // The number of operations to run between reading the clock
+
+	private final long warmupNanos;
+	private final long iterationNanos;
+	private final int iterations;
+	private final com.sun.management.ThreadMXBean threads;
+
+	private int sink; // Holds the results of the benchmarks, so the JIT can not remove them
+
+	public BenchmarkRunner(boolean quick) {
+		warmupNanos = quick ? 200000000L : 1000000000L;
+		iterationNanos = quick ? 200000000L : 1000000000L;
+		iterations = quick ? 2 : 5;
+
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+			threads = (com.sun.management.ThreadMXBean) bean;
+			threads.setThreadAllocatedMemoryEnabled(true);
+		} else {
+			threads = null;
+		}
+	}
+
+	public static List<Benchmark> createBenchmarks() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		benchmarks.add(new TileCollisionBenchmark());
+		benchmarks.add(new MikeCollisionBenchmark());
+		benchmarks.add(new WorldCollisionBenchmark(false));
+		benchmarks.add(new WorldCollisionBenchmark(true));
+		benchmarks.add(new PathFinderBenchmark());
+		benchmarks.add(new SpriteSortBenchmark(false));
+		benchmarks.add(new SpriteSortBenchmark(true));
+		benchmarks.add(new BlockQueryBenchmark(true));
+		benchmarks.add(new BlockQueryBenchmark(false));
+		return benchmarks;
+	}
+
+	/**
+	 * Warm up and measure a benchmark with one set of parameters.
+	 */
+	public Result run(Benchmark benchmark, int[] params) {
+		benchmark.setup(params);
+		measure(benchmark, warmupNanos);
+
+		double bestNanos = Double.MAX_VALUE;
+		double totalNanos = 0;
+		double totalBytes = 0;
+		long totalGcs = 0;
+		for (int i = 0; i < iterations; i++) {
+			Result iteration = measure(benchmark, iterationNanos);
+			bestNanos = Math.min(bestNanos, iteration.nanosPerOp);
+			totalNanos += iteration.nanosPerOp;
+			totalBytes += iteration.bytesPerOp;
+			totalGcs += iteration.gcs;
+		}
+		return new Result(benchmark.getLabel(params), totalNanos / iterations, bestNanos, totalBytes / iterations,
+				totalGcs);
+	}
+
+	private Result measure(Benchmark benchmark, long nanos) {
+		long gcStart = gcCount();
+		long bytesStart = allocatedBytes();
+		long start = System.nanoTime();
+		long elapsed;
+		long ops = 0;
+		do {
+			for (int i = 0; i < BATCH; i++) {
+				sink += benchmark.run();
+			}
+			ops += BATCH;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < nanos);
+		long bytes = allocatedBytes() - bytesStart;
+		long gcs = gcCount() - gcStart;
+		return new Result(null, (double) elapsed / ops, (double) elapsed / ops, (double) bytes / ops, gcs);
+	}
+
+	private long allocatedBytes() {
+		if (threads == null) {
+			return 0;
+		}
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	private long gcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	public int getSink() {
+		return sink;
+	}
+
+	/**
+	 * The measurements for a benchmark with one set of parameters.
+	 */
+	public static class Result {
+		public final String label;
+		public final double nanosPerOp; // The mean time per operation
+		public final double bestNanosPerOp; // The time per operation of the fastest iteration
+		public final double bytesPerOp; // The mean bytes allocated per operation
+		public final long gcs; // The number of garbage collections while measuring
+
+		public Result(String label, double nanosPerOp, double bestNanosPerOp, double bytesPerOp, long gcs) {
+			this.label = label;
+			this.nanosPerOp = nanosPerOp;
+			this.bestNanosPerOp = bestNanosPerOp;
+			this.bytesPerOp = bytesPerOp;
+			this.gcs = gcs;
+		}
+	}
+
+	private static Map<String, Double> readBaseline(String path) throws IOException {
+		Map<String, Double> baseline = new HashMap<String, Double>();
+		BufferedReader reader = new BufferedReader(new FileReader(path));
+		try {
+			String line = reader.readLine(); // Skip the header
+			while ((line = reader.readLine()) != null) {
+				// The label has commas in it, so read the values from the end of the line
+				int end = line.indexOf("\",");
+				if (line.startsWith("\"") && end > 0) {
+					String[] values = line.substring(end + 2).split(",");
+					baseline.put(line.substring(1, end), Double.parseDouble(values[0]));
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return baseline;
+	}
+
+	public static void main(String[] args) throws IOException {
+		boolean quick = false;
+		String filter = null;
+		String out = null;
+		String baselinePath = null;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--quick")) {
+				quick = true;
+			} else if (args[i].equals("--filter") && i + 1 < args.length) {
+				filter = args[++i];
+			} else if (args[i].equals("--out") && i + 1 < args.length) {
+				out = args[++i];
+			} else if (args[i].equals("--baseline") && i + 1 < args.length) {
+				baselinePath = args[++i];
+			} else {
+				System.out.println("Usage: BenchmarkRunner [--quick] [--filter name] [--out results.csv]"
+						+ " [--baseline baseline.csv]");
+				return;
+			}
+		}
+		Map<String, Double> baseline = baselinePath != null ? readBaseline(baselinePath) : null;
+
+		BenchmarkRunner runner = new BenchmarkRunner(quick);
+		List<Result> results = new ArrayList<Result>();
+		System.out.println(String.format("%-42s %12s %12s %10s %5s %9s", "Benchmark", "ns/op", "best ns/op", "B/op",
+				"GCs", "change"));
+		for (Benchmark benchmark : createBenchmarks()) {
+			if (filter != null && !benchmark.getName().contains(filter)) {
+				continue;
+			}
+			for (int[] params : benchmark.getParamSets()) {
+				Result result = runner.run(benchmark, params);
+				results.add(result);
+
+				String change = "";
+				if (baseline != null && baseline.containsKey(result.label)) {
+					double before = baseline.get(result.label);
+					change = String.format("%+.1f%%", (result.nanosPerOp - before) / before * 100);
+				}
+				System.out.println(String.format("%-42s %12.1f %12.1f %10.1f %5d %9s", result.label,
+						result.nanosPerOp, result.bestNanosPerOp, result.bytesPerOp, result.gcs, change));
+			}
+		}
+
+		if (out != null) {
+			PrintWriter writer = new PrintWriter(new FileWriter(out));
+			try {
+				writer.println("benchmark,ns/op,best ns/op,B/op,gcs");
+				for (Result result : results) {
+					writer.println(String.format("\"%s\",%.3f,%.3f,%.3f,%d", result.label, result.nanosPerOp,
+							result.bestNanosPerOp, result.bytesPerOp, result.gcs));
+				}
+			} finally {
+				writer.close();
+			}
+		}
+		// Print the sink so the benchmark results are used
+		System.out.println("Done (" + runner.getSink() + ")");
+	}
+
+}
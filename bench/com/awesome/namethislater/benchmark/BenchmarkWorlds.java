@@ -0,0 +1,55 @@
+package com.awesome.namethislater.benchmark;
+
+import java.util.Random;
+
+import com.awesome.namethislater.model.Enemy;
+import com.awesome.namethislater.model.Level;
+import com.awesome.namethislater.model.World;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Bits;
+
+/**
+ * Builds worlds for the benchmarks without loading a map, so they can run without a GL context. The water and the
+ * enemies are placed from a fixed seed, so every run uses the same world.
+ */
+public class BenchmarkWorlds {
+
+	private static final long SEED = 1;
+	private static final float WATER_CHANCE = 0.1f; // The chance that a tile is water
+
+	/**
+	 * Create a square world with water around the edges and scattered through the level.
+	 *
+	 * @param size
+	 *            The width and height of the level, in tiles.
+	 * @param enemies
+	 *            The number of extra enemies to place on dry tiles.
+	 */
+	public static World create(int size, int enemies) {
+		Random random = new Random(SEED);
+		Bits water = new Bits(size * size);
+		for (int y = 0; y < size; y++) {
+			for (int x = 0; x < size; x++) {
+				boolean edge = x == 0 || y == 0 || x == size - 1 || y == size - 1;
+				if (edge || random.nextFloat() < WATER_CHANCE) {
+					water.set(y * size + x);
+				}
+			}
+		}
+		// Keep the starting position dry
+		water.clear(2 * size + 2);
+
+		Level level = new Level(size, size, water);
+		int added = 0;
+		while (added < enemies) {
+			int x = random.nextInt(size);
+			int y = random.nextInt(size);
+			if (!level.isWater(x, y)) {
+				level.getEnemies().add(new Enemy(new Vector2(x, y), random.nextLong()));
+				added++;
+			}
+		}
+		return new World(level);
+	}
+
+}
@@ -0,0 +1,35 @@
+package com.awesome.namethislater.benchmark;
+
+import com.awesome.namethislater.model.World;
+
+/**
+ * Measures {@link World#getWaterBlocks(int, int)} and {@link World#getGrassBlocks(int, int)} for different distances
+ * around Mike.
+ */
+public class BlockQueryBenchmark extends Benchmark {
+
+	private final boolean water;
+	private World world;
+	private int radius;
+
+	public BlockQueryBenchmark(boolean water) {
+		// The room is 10x7, so the distance is kept small enough to stay inside it
+		super(water ? "WaterBlocks" : "GrassBlocks", new String[] { "radius" }, new int[][] { { 1 }, { 2 }, { 4 } });
+		this.water = water;
+	}
+
+	@Override
+	public void setup(int[] params) {
+		world = BenchmarkWorlds.create(64, 0);
+		radius = params[0];
+	}
+
+	@Override
+	public int run() {
+		if (water) {
+			return world.getWaterBlocks(radius, radius).size();
+		}
+		return world.getGrassBlocks(radius, radius).size();
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.awesome.namethislater.benchmark;
+
+import com.awesome.namethislater.controller.MikeController;
+import com.awesome.namethislater.controller.Simulation;
+import com.awesome.namethislater.model.Mike;
+import com.awesome.namethislater.model.World;
+
+/**
+ * Measures {@link MikeController#checkCollisions(float)}, which checks Mike against the enemies and the water tiles.
+ */
+public class MikeCollisionBenchmark extends Benchmark {
+
+	private static final int MAP_SIZE = 256;
+
+	private MikeController controller;
+	private Mike mike;
+	private float startX, startY;
+
+	public MikeCollisionBenchmark() {
+		super("MikeCollisions", new String[] { "enemies" }, new int[][] { { 10 }, { 100 }, { 1000 }, { 10000 } });
+	}
+
+	@Override
+	public void setup(int[] params) {
+		World world = BenchmarkWorlds.create(MAP_SIZE, params[0]);
+		// Build the controllers the same way the game does, so the enemy spatial hash is filled in
+		controller = new Simulation(world).getMikeController();
+		mike = world.getMike();
+		startX = mike.getPosition().x;
+		startY = mike.getPosition().y;
+	}
+
+	@Override
+	public int run() {
+		// Keep Mike in the same place, so every operation does the same work
+		mike.getPosition().set(startX, startY);
+		mike.getVelocity().set(1, 1);
+		controller.checkCollisions(1 / Simulation.DEFAULT_TICK_RATE);
+		return (int) mike.getHealth();
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.awesome.namethislater.benchmark;
+
+import java.util.Random;
+
+import com.awesome.namethislater.model.Level;
+import com.awesome.namethislater.model.PathFinder;
+
+/**
+ * Measures {@link PathFinder#findPath(int, int, int, int)} between random dry tiles of a level. With a cache the same
+ * few trips are asked for again and again, as when several enemies walk to the same goal; without one every trip is
+ * searched.
+ */
+public class PathFinderBenchmark extends Benchmark {
+
+	private static final long SEED = 2;
+	private static final int TRIPS = 16; // The number of start and goal pairs asked for in each run
+
+	private PathFinder pathFinder;
+	private final int[] trips = new int[TRIPS * 4]; // Start x and y, then goal x and y
+
+	public PathFinderBenchmark() {
+		super("PathFinder", new String[] { "map", "distance", "cache" }, new int[][] { { 64, 16, 0 },
+				{ 64, 16, 64 }, { 256, 64, 0 }, { 256, 64, 64 }, { 256, 200, 0 } });
+	}
+
+	@Override
+	public void setup(int[] params) {
+		Level level = BenchmarkWorlds.create(params[0], 0).getLevel();
+		pathFinder = new PathFinder(level, PathFinder.DEFAULT_NODE_BUDGET, params[2]);
+
+		// Pick trips of about the same distance between dry tiles
+		Random random = new Random(SEED);
+		int size = params[0];
+		int distance = params[1];
+		int added = 0;
+		while (added < TRIPS) {
+			int x = 1 + random.nextInt(size - 2);
+			int y = 1 + random.nextInt(size - 2);
+			int goalX = x + (random.nextBoolean() ? distance : -distance);
+			int goalY = y + random.nextInt(distance + 1) - distance / 2;
+			if (goalX < 0 || goalY < 0 || goalX >= size || goalY >= size || level.isWater(x, y)
+					|| level.isWater(goalX, goalY)) {
+				continue;
+			}
+			trips[added * 4] = x;
+			trips[added * 4 + 1] = y;
+			trips[added * 4 + 2] = goalX;
+			trips[added * 4 + 3] = goalY;
+			added++;
+		}
+	}
+
+	@Override
+	public int run() {
+		int steps = 0;
+		for (int i = 0; i < trips.length; i += 4) {
+			steps += pathFinder.findPath(trips[i], trips[i + 1], trips[i + 2], trips[i + 3]).getLength();
+		}
+		return steps;
+	}
+
+}
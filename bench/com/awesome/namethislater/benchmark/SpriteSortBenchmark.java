@@ -0,0 +1,66 @@
+package com.awesome.namethislater.benchmark;
+
+import java.util.Random;
+
+import com.awesome.namethislater.model.Drawable;
+import com.awesome.namethislater.model.Enemy;
+import com.awesome.namethislater.view.RenderQueue;
+import com.awesome.namethislater.view.Renderer.DrawableComparator;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Measures sorting the drawables by base y, as the renderer does every frame. Between operations every drawable moves a
+ * little, like it would between frames. The comparator sort is the full sort the renderer used before the render queue.
+ */
+public class SpriteSortBenchmark extends Benchmark {
+
+	private static final float MOVE = 0.05f; // The most a drawable moves between frames
+
+	private final boolean useQueue;
+	private final Random random = new Random(1);
+	private Drawable[] drawables;
+	private final Array<Drawable> sorted = new Array<Drawable>();
+	private final DrawableComparator comparator = new DrawableComparator();
+	private RenderQueue queue;
+
+	public SpriteSortBenchmark(boolean useQueue) {
+		super(useQueue ? "RenderQueueSort" : "ComparatorSort", new String[] { "drawables" }, new int[][] { { 10 },
+				{ 100 }, { 1000 } });
+		this.useQueue = useQueue;
+	}
+
+	@Override
+	public void setup(int[] params) {
+		int count = params[0];
+		drawables = new Drawable[count];
+		for (int i = 0; i < count; i++) {
+			drawables[i] = new Enemy(new Vector2(random.nextFloat() * 64, random.nextFloat() * 64));
+			drawables[i].setBaseY(drawables[i].getPosition().y);
+		}
+		queue = new RenderQueue();
+	}
+
+	@Override
+	public int run() {
+		for (int i = 0; i < drawables.length; i++) {
+			Drawable drawable = drawables[i];
+			drawable.setBaseY(drawable.getBaseY() + (random.nextFloat() * 2 - 1) * MOVE);
+		}
+		if (useQueue) {
+			queue.begin();
+			for (int i = 0; i < drawables.length; i++) {
+				queue.add(drawables[i]);
+			}
+			queue.sort();
+			return queue.getMoved();
+		}
+		sorted.clear();
+		for (int i = 0; i < drawables.length; i++) {
+			sorted.add(drawables[i]);
+		}
+		sorted.sort(comparator);
+		return sorted.size;
+	}
+
+}
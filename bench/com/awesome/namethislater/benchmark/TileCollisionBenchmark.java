@@ -0,0 +1,77 @@
+package com.awesome.namethislater.benchmark;
+
+import java.util.Random;
+
+import com.awesome.namethislater.controller.Controller;
+import com.awesome.namethislater.model.Drawable;
+import com.awesome.namethislater.model.Enemy;
+import com.awesome.namethislater.model.World;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Measures {@link Controller#checkForTiles(Drawable, Rectangle)} for drawables moving in random directions around the
+ * level.
+ */
+public class TileCollisionBenchmark extends Benchmark {
+
+	private static final int PROBES = 1024; // The number of different drawables to check, in turn
+
+	private final Drawable[] drawables = new Drawable[PROBES];
+	private final Rectangle[] bounds = new Rectangle[PROBES];
+	private final float[] velocities = new float[PROBES * 2];
+	private Probe probe;
+	private int next;
+
+	public TileCollisionBenchmark() {
+		super("TileCollisions", new String[] { "map" }, new int[][] { { 64 }, { 256 }, { 1024 } });
+	}
+
+	@Override
+	public void setup(int[] params) {
+		int size = params[0];
+		probe = new Probe(BenchmarkWorlds.create(size, 0));
+		Random random = new Random(1);
+		for (int i = 0; i < PROBES; i++) {
+			float x = random.nextFloat() * size;
+			float y = random.nextFloat() * size;
+			drawables[i] = new Enemy(new Vector2(x, y));
+			bounds[i] = new Rectangle(drawables[i].getDamageBounds());
+			velocities[i * 2] = random.nextFloat() * 0.2f - 0.1f;
+			velocities[i * 2 + 1] = random.nextFloat() * 0.2f - 0.1f;
+		}
+		next = 0;
+	}
+
+	@Override
+	public int run() {
+		int i = next;
+		next = (next + 1) % PROBES;
+		// A collision stops the drawable, so set its velocity again before each check
+		drawables[i].getVelocity().set(velocities[i * 2], velocities[i * 2 + 1]);
+		return probe.check(drawables[i], bounds[i]) ? 1 : 0;
+	}
+
+	/**
+	 * A controller that only exposes the tile collision check.
+	 */
+	private static class Probe extends Controller {
+
+		public Probe(World world) {
+			super(world);
+		}
+
+		public boolean check(Drawable drawable, Rectangle bounds) {
+			return checkForTiles(drawable, bounds);
+		}
+
+		@Override
+		public void update(float delta) {
+		}
+
+		@Override
+		public void checkCollisions(float delta) {
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.awesome.namethislater.benchmark;
+
+import com.awesome.namethislater.concurrent.ParallelEnemyMover;
+import com.awesome.namethislater.controller.EnemyScheduler;
+import com.awesome.namethislater.controller.Simulation;
+import com.awesome.namethislater.controller.WorldController;
+import com.awesome.namethislater.model.World;
+
+/**
+ * Measures {@link WorldController#checkCollisions(float)}, which moves every enemy and checks it against the water tiles.
+ * With more than one thread the enemies are moved on a {@link ParallelEnemyMover}. Without level of detail every enemy
+ * is moved in every update; with it the enemies far from Mike are moved less often by an {@link EnemyScheduler}.
+ */
+public class WorldCollisionBenchmark extends Benchmark {
+
+	private final boolean lod;
+	private World world;
+	private WorldController controller;
+	private ParallelEnemyMover mover;
+
+	public WorldCollisionBenchmark(boolean lod) {
+		super(lod ? "WorldCollisionsLod" : "WorldCollisions", new String[] { "enemies", "map", "threads" },
+				new int[][] { { 10, 64, 1 }, { 100, 64, 1 }, { 1000, 64, 1 }, { 10000, 64, 1 }, { 100, 256, 1 },
+				{ 1000, 256, 1 }, { 10000, 256, 1 }, { 10000, 256, 2 }, { 10000, 256, 4 }, { 100000, 256, 1 },
+				{ 100000, 256, 4 } });
+		this.lod = lod;
+	}
+
+	@Override
+	public void setup(int[] params) {
+		world = BenchmarkWorlds.create(params[1], params[0]);
+		controller = new Simulation(world).getWorldController();
+		if (!lod) {
+			controller.setScheduler(null);
+		}
+		if (mover != null) {
+			mover.dispose();
+			mover = null;
+		}
+		if (params[2] > 1) {
+			mover = new ParallelEnemyMover(params[2]);
+			controller.setMover(mover);
+		}
+	}
+
+	@Override
+	public int run() {
+		controller.checkCollisions(1 / Simulation.DEFAULT_TICK_RATE);
+		return world.getLevel().getEnemies().size();
+	}
+
+}
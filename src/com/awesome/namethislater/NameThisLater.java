@@ -1,12 +1,47 @@
 package com.awesome.namethislater;
 
-import com.awesome.namethislater.screens.GameScreen;
+import com.awesome.namethislater.assets.LevelManifest;
+import com.awesome.namethislater.model.ChunkLoaderFactory;
+import com.awesome.namethislater.model.Level;
+import com.awesome.namethislater.profiling.FrameProfiler;
+import com.awesome.namethislater.profiling.GcCounter;
+import com.awesome.namethislater.screens.LoadingScreen;
 import com.badlogic.gdx.Game;
 
 public class NameThisLater extends Game {
 
+	private final FrameProfiler profiler = new FrameProfiler();
+	private ChunkLoaderFactory chunkLoaders; // Null to read the chunks of streamed levels on the update thread
+
+	public NameThisLater() {
+	}
+
+	/**
+	 * @param gcCounter
+	 *            Counts garbage collections for the profiler. The desktop launcher can pass a ManagementGcCounter.
+	 */
+	public NameThisLater(GcCounter gcCounter) {
+		profiler.setGcCounter(gcCounter);
+	}
+
+	/**
+	 * @param gcCounter
+	 *            Counts garbage collections for the profiler. The desktop launcher can pass a ManagementGcCounter.
+	 * @param chunkLoaders
+	 *            Makes the loaders for the chunks of streamed levels. The desktop and Android launchers can pass
+	 *            BackgroundChunkLoader.FACTORY, so the chunks are read off the update thread.
+	 */
+	public NameThisLater(GcCounter gcCounter, ChunkLoaderFactory chunkLoaders) {
+		profiler.setGcCounter(gcCounter);
+		this.chunkLoaders = chunkLoaders;
+	}
+
 	@Override
 	public void create() {
-		setScreen(new GameScreen());
+		profiler.markLaunch();
+		LoadingScreen loading = new LoadingScreen(this, LevelManifest.createAssetManager(), new LevelManifest(
+				Level.getDefaultFile()), profiler);
+		loading.setChunkLoaders(chunkLoaders);
+		setScreen(loading);
 	}
 }
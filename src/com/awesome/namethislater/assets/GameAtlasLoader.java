@@ -0,0 +1,51 @@
+package com.awesome.namethislater.assets;
+
+import com.awesome.namethislater.view.GameAtlas;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureAtlasLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Loads the game's atlas through an AssetManager. If the packed atlas has not been built, the source images from
+ * {@link GameAtlas} are loaded instead and the regions cut from them, the same as {@link GameAtlas#load()}.
+ */
+public class GameAtlasLoader extends TextureAtlasLoader {
+
+	public GameAtlasLoader(FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, TextureAtlasParameter parameter) {
+		if (file.exists()) {
+			return super.getDependencies(fileName, file, parameter);
+		}
+		Array<AssetDescriptor> dependencies = new Array<AssetDescriptor>();
+		Array<String> sources = GameAtlas.getSourceFiles();
+		for (int i = 0; i < sources.size; i++) {
+			dependencies.add(new AssetDescriptor<Texture>(sources.get(i), Texture.class));
+		}
+		return dependencies;
+	}
+
+	@Override
+	public TextureAtlas load(AssetManager manager, String fileName, FileHandle file, TextureAtlasParameter parameter) {
+		if (file.exists()) {
+			return super.load(manager, fileName, file, parameter);
+		}
+		ObjectMap<String, Texture> textures = new ObjectMap<String, Texture>();
+		Array<String> sources = GameAtlas.getSourceFiles();
+		for (int i = 0; i < sources.size; i++) {
+			textures.put(sources.get(i), manager.get(sources.get(i), Texture.class));
+		}
+		return GameAtlas.create(textures);
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.awesome.namethislater.assets;
+
+import com.awesome.namethislater.model.BinaryLevelLoader;
+import com.awesome.namethislater.model.Level;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.ImageResolver.AssetManagerImageResolver;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Loads a level through an AssetManager, from a TMX file or a level compiled by LevelCompiler. The tileset textures are
+ * loaded first as dependencies, so their images are decoded on the loading thread. The level itself is also built on
+ * the loading thread, and only handed over on the rendering thread.
+ * <p>
+ * The tileset textures belong to the asset manager, so unload the level instead of disposing its map.
+ */
+public class LevelLoader extends AsynchronousAssetLoader<Level, LevelLoader.LevelParameter> {
+
+	private final TmxMapLoader tmxLoader;
+	private Level level; // Built by loadAsync, handed over by loadSync
+
+	public LevelLoader(FileHandleResolver resolver) {
+		super(resolver);
+		tmxLoader = new TmxMapLoader(resolver);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, LevelParameter parameter) {
+		if (!isCompiled(file)) {
+			return tmxLoader.getDependencies(fileName, file, null);
+		}
+		Array<AssetDescriptor> dependencies = new Array<AssetDescriptor>();
+		for (FileHandle image : BinaryLevelLoader.getTilesetImages(file)) {
+			dependencies.add(new AssetDescriptor<Texture>(image, Texture.class));
+		}
+		return dependencies;
+	}
+
+	@Override
+	public void loadAsync(AssetManager manager, String fileName, FileHandle file, LevelParameter parameter) {
+		if (isCompiled(file)) {
+			level = new Level(file, new AssetManagerImageResolver(manager));
+		} else {
+			tmxLoader.loadAsync(manager, fileName, file, null);
+			level = new Level(tmxLoader.loadSync(manager, fileName, file, null));
+		}
+	}
+
+	@Override
+	public Level loadSync(AssetManager manager, String fileName, FileHandle file, LevelParameter parameter) {
+		Level loaded = level;
+		level = null;
+		return loaded;
+	}
+
+	private static boolean isCompiled(FileHandle file) {
+		return BinaryLevelLoader.EXTENSION.equals(file.extension());
+	}
+
+	public static class LevelParameter extends AssetLoaderParameters<Level> {
+	}
+
+}
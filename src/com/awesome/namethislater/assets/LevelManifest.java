@@ -0,0 +1,155 @@
+package com.awesome.namethislater.assets;
+
+import com.awesome.namethislater.model.Level;
+import com.awesome.namethislater.view.GameAtlas;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * The assets to load before a level can be played: the level, the game's atlas, and anything listed in the level's
+ * manifest file. The manifest sits next to the level with the same name and a .manifest extension. Each line is a type
+ * and a path, and lines starting with # are ignored:
+ *
+ * <pre>
+ * # Extra art for this level
+ * texture images/boss.png
+ * atlas images/boss.atlas
+ * font skins/title.fnt
+ * </pre>
+ *
+ * A level without a manifest only loads the level and the atlas. The tileset textures of the level are always loaded
+ * with it, so they do not need to be listed.
+ */
+public class LevelManifest {
+
+	public static final String EXTENSION = "manifest";
+
+	private final String levelPath;
+	@SuppressWarnings("rawtypes")
+	private final Array<AssetDescriptor> assets = new Array<AssetDescriptor>();
+
+	/**
+	 * Read the manifest of a level, if it has one.
+	 *
+	 * @param level
+	 *            The TMX or compiled level file.
+	 */
+	public LevelManifest(FileHandle level) {
+		levelPath = level.path();
+		assets.add(new AssetDescriptor<Level>(levelPath, Level.class));
+		assets.add(new AssetDescriptor<TextureAtlas>(GameAtlas.ATLAS_FILE, TextureAtlas.class));
+
+		FileHandle manifest = level.sibling(level.nameWithoutExtension() + "." + EXTENSION);
+		if (manifest.exists()) {
+			read(manifest);
+		}
+	}
+
+	private void read(FileHandle manifest) {
+		String[] lines = manifest.readString("UTF-8").split("\n");
+		for (int i = 0; i < lines.length; i++) {
+			String line = lines[i].trim();
+			if (line.length() == 0 || line.startsWith("#")) {
+				continue;
+			}
+			int space = line.indexOf(' ');
+			if (space < 0) {
+				throw new GdxRuntimeException(manifest.path() + " line " + (i + 1) + ": expected a type and a path");
+			}
+			String type = line.substring(0, space);
+			String path = line.substring(space + 1).trim();
+			if ("texture".equals(type)) {
+				assets.add(new AssetDescriptor<Texture>(path, Texture.class));
+			} else if ("atlas".equals(type)) {
+				assets.add(new AssetDescriptor<TextureAtlas>(path, TextureAtlas.class));
+			} else if ("font".equals(type)) {
+				assets.add(new AssetDescriptor<BitmapFont>(path, BitmapFont.class));
+			} else {
+				throw new GdxRuntimeException(manifest.path() + " line " + (i + 1) + ": unknown type " + type);
+			}
+		}
+	}
+
+	/**
+	 * Create an asset manager that can load levels, and the game's atlas even if it has not been packed.
+	 */
+	public static AssetManager createAssetManager() {
+		AssetManager manager = new AssetManager();
+		InternalFileHandleResolver resolver = new InternalFileHandleResolver();
+		manager.setLoader(Level.class, new LevelLoader(resolver));
+		manager.setLoader(TextureAtlas.class, new GameAtlasLoader(resolver));
+		return manager;
+	}
+
+	/**
+	 * Add every asset to the manager's loading queue. Assets that are already loaded are only counted again.
+	 */
+	public void queue(AssetManager manager) {
+		for (int i = 0; i < assets.size; i++) {
+			manager.load(assets.get(i));
+		}
+	}
+
+	/**
+	 * @return whether every asset has finished loading
+	 */
+	public boolean isLoaded(AssetManager manager) {
+		for (int i = 0; i < assets.size; i++) {
+			if (!manager.isLoaded(assets.get(i).fileName, assets.get(i).type)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Unload every asset. Assets shared with another queued manifest stay loaded until that one is unloaded too.
+	 * <p>
+	 * If some assets are still waiting in the manager's queue, the manager finishes loading first. The assets of a
+	 * manifest given up halfway through loading would otherwise stay loaded for good, and the asset manager of this
+	 * version of libGDX can not tell whether a file is in its queue.
+	 */
+	public void unload(AssetManager manager) {
+		if (!isLoaded(manager)) {
+			manager.finishLoading();
+		}
+		for (int i = 0; i < assets.size; i++) {
+			if (manager.isLoaded(assets.get(i).fileName)) {
+				manager.unload(assets.get(i).fileName);
+			}
+		}
+	}
+
+	/**
+	 * @return the level, once it has been loaded
+	 */
+	public Level getLevel(AssetManager manager) {
+		return manager.get(levelPath, Level.class);
+	}
+
+	/**
+	 * @return the game's atlas, once it has been loaded
+	 */
+	public TextureAtlas getAtlas(AssetManager manager) {
+		return manager.get(GameAtlas.ATLAS_FILE, TextureAtlas.class);
+	}
+
+	public String getLevelPath() {
+		return levelPath;
+	}
+
+	/**
+	 * @return the number of assets in the manifest, including the level and the atlas
+	 */
+	public int size() {
+		return assets.size;
+	}
+
+}
@@ -0,0 +1,69 @@
+package com.awesome.namethislater.concurrent;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.awesome.namethislater.model.ChunkLoader;
+import com.awesome.namethislater.model.ChunkLoaderFactory;
+import com.awesome.namethislater.model.ChunkSource;
+import com.awesome.namethislater.model.TileChunk;
+
+/**
+ * Reads chunks on a background thread, so walking through a streamed level does not stall the update thread on disk
+ * reads. The chunks are read one at a time in the order they were requested, and handed back through a queue that the
+ * chunk manager drains at the start of each update.
+ * <p>
+ * The thread is a daemon thread, but call {@link #dispose()} when the loader is no longer needed. This package is not
+ * built for the web, so the desktop and Android launchers pass {@link #FACTORY} to the game.
+ */
+public class BackgroundChunkLoader implements ChunkLoader {
+
+	/** Makes a background loader for each streamed level **/
+	public static final ChunkLoaderFactory FACTORY = new ChunkLoaderFactory() {
+		@Override
+		public ChunkLoader newLoader() {
+			return new BackgroundChunkLoader();
+		}
+	};
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(new LoaderThreadFactory());
+	private final Queue<TileChunk> loaded = new ConcurrentLinkedQueue<TileChunk>();
+
+	@Override
+	public void request(final ChunkSource source, final int chunkX, final int chunkY, final int size) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				loaded.add(source.readChunk(chunkX, chunkY, size));
+			}
+		});
+	}
+
+	@Override
+	public TileChunk poll() {
+		return loaded.poll();
+	}
+
+	/**
+	 * Stop the loader thread. Chunks that have not been read yet are dropped.
+	 */
+	@Override
+	public void dispose() {
+		executor.shutdownNow();
+		loaded.clear();
+	}
+
+	private static class LoaderThreadFactory implements ThreadFactory {
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "ChunkLoader");
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
@@ -0,0 +1,148 @@
+package com.awesome.namethislater.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.awesome.namethislater.controller.EnemyMover;
+import com.awesome.namethislater.controller.WorldController;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Moves the enemies on a fixed pool of threads. The enemies are split into one range per thread, and the update thread
+ * moves the first range itself while it waits for the others. Small groups of enemies are moved on the update thread,
+ * because handing them to the pool would cost more than it saves.
+ * <p>
+ * The pool threads are daemon threads, but call {@link #dispose()} when the mover is no longer needed.
+ */
+public class ParallelEnemyMover implements EnemyMover {
+
+	public static final int MIN_ENEMIES_PER_THREAD = 256; // Fewer enemies than this are not worth a thread
+
+	private final ExecutorService executor;
+	private final Partition[] partitions;
+	private final List<Partition> tasks; // The partitions handed to the pool this update
+
+	/**
+	 * Create a mover that uses one thread for each processor.
+	 */
+	public ParallelEnemyMover() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param threads
+	 *            The number of threads to move the enemies on, including the update thread.
+	 */
+	public ParallelEnemyMover(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1: " + threads);
+		}
+		partitions = new Partition[threads];
+		for (int i = 0; i < threads; i++) {
+			partitions[i] = new Partition();
+		}
+		tasks = new ArrayList<Partition>(threads);
+		executor = threads > 1 ? Executors.newFixedThreadPool(threads - 1, new MoverThreadFactory()) : null;
+	}
+
+	@Override
+	public void moveEnemies(WorldController controller, int count, float delta) {
+		int threads = Math.min(partitions.length, count / MIN_ENEMIES_PER_THREAD);
+		if (threads <= 1 || executor == null) {
+			partitions[0].set(controller, 0, count, delta);
+			partitions[0].call();
+			return;
+		}
+
+		// Split the enemies into ranges of the same size, with the remainder spread over the first ranges
+		int size = count / threads;
+		int remainder = count % threads;
+		int start = 0;
+		tasks.clear();
+		for (int i = 0; i < threads; i++) {
+			int end = start + size + (i < remainder ? 1 : 0);
+			partitions[i].set(controller, start, end, delta);
+			if (i > 0) {
+				tasks.add(partitions[i]);
+			}
+			start = end;
+		}
+
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+		for (int i = 0; i < tasks.size(); i++) {
+			futures.add(executor.submit(tasks.get(i)));
+		}
+		partitions[0].call();
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				futures.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new GdxRuntimeException("Interrupted while moving the enemies", e);
+			} catch (ExecutionException e) {
+				throw new GdxRuntimeException("Error moving the enemies", e.getCause());
+			}
+		}
+	}
+
+	/**
+	 * @return the number of threads the enemies can be moved on, including the update thread
+	 */
+	public int getThreads() {
+		return partitions.length;
+	}
+
+	/**
+	 * Stop the pool threads.
+	 */
+	public void dispose() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * A range of enemies, with its own rectangle for the collision checks.
+	 */
+	private static class Partition implements Callable<Void> {
+
+		private final Rectangle enemyRect = new Rectangle();
+		private WorldController controller;
+		private int start;
+		private int end;
+		private float delta;
+
+		void set(WorldController controller, int start, int end, float delta) {
+			this.controller = controller;
+			this.start = start;
+			this.end = end;
+			this.delta = delta;
+		}
+
+		@Override
+		public Void call() {
+			controller.moveEnemies(start, end, delta, enemyRect);
+			return null;
+		}
+	}
+
+	private static class MoverThreadFactory implements ThreadFactory {
+
+		private int count;
+
+		@Override
+		public synchronized Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "EnemyMover-" + (++count));
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+}
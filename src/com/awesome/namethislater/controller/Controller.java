@@ -1,45 +1,43 @@
 package com.awesome.namethislater.controller;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Vector;
-
 import com.awesome.namethislater.model.Drawable;
 import com.awesome.namethislater.model.Drawable.Direction;
 import com.awesome.namethislater.model.Enemy;
+import com.awesome.namethislater.model.EnemyStore;
 import com.awesome.namethislater.model.Level;
 import com.awesome.namethislater.model.Mike;
 import com.awesome.namethislater.model.Mike.State;
+import com.awesome.namethislater.model.SpatialHash;
 import com.awesome.namethislater.model.World;
-import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.awesome.namethislater.profiling.FrameProfiler;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.scenes.scene2d.ui.Touchpad;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.TimeUtils;
 
 public abstract class Controller {
 	private static final float ACCELERATION = 40f; // The speed of walking
 	private static final float JUMP_ACCELERATION = ACCELERATION / 1.5f; // The acceleration of a jump
 	private static final float SHADOW_ACCELERATION = 0.07f; // The acceleration of the base of the jump
 
+	private static final int INPUT_CAPACITY = 256; // The most key events that can wait for an update
+
 	public enum Keys {
-		DOWN, LEFT, UP, RIGHT, JUMP, ATTACK
-	}
+		DOWN, LEFT, UP, RIGHT, JUMP, ATTACK;
 
-	static Map<Keys, Boolean> keys = new HashMap<MikeController.Keys, Boolean>();
-	static {
-		keys.put(Keys.DOWN, false);
-		keys.put(Keys.LEFT, false);
-		keys.put(Keys.UP, false);
-		keys.put(Keys.RIGHT, false);
-		keys.put(Keys.JUMP, false);
-		keys.put(Keys.ATTACK, false);
+		final int mask = 1 << ordinal(); // The bit for the key in a key mask
 	}
 
-	// Blocks that can be collided with in any frame
-	private final Array<Rectangle> tiles = new Array<Rectangle>();
+	private static final Keys[] KEYS = Keys.values(); // Cached, because values() copies the array
+
+	/** Input **/
+	// Key presses and releases wait here until the next update. Each event is the key's ordinal shifted left once,
+	// with the low bit set for a press.
+	private final InputQueue inputQueue = new InputQueue(INPUT_CAPACITY);
+	private int heldKeys; // The keys pressed and not released yet, as seen by the input thread
+	private int keysDown; // The keys down for this update, as seen by the update thread
+
 	// This is the rectangle pool used in collision detection
 	// Good to avoid instantiation each frame
 	protected Pool<Rectangle> rectPool = new Pool<Rectangle>() {
@@ -59,103 +57,193 @@ public abstract class Controller {
 	protected World world;
 	protected Level level;
 	protected final Mike mike;
-	protected Vector<Enemy> enemies;
-	private final TiledMap map;
+	protected EnemyStore enemies;
+	protected SpatialHash enemyHash;
+	// The enemies found by the last spatial hash query. Reused so that queries do not allocate
+	protected final Array<Enemy> nearbyEnemies = new Array<Enemy>();
+	protected FrameProfiler profiler = new FrameProfiler(); // Times the input phase
 
 	public Controller(World world) {
 		this.world = world;
 		this.level = world.getLevel();
 		this.mike = world.getMike();
 		enemies = level.getEnemies();
-		map = level.getMap();
+		enemyHash = level.getEnemyHash();
 	}
 
 	public abstract void update(float delta);
 
+	/**
+	 * @param profiler
+	 *            the profiler that times reading the input
+	 */
+	public void setProfiler(FrameProfiler profiler) {
+		this.profiler = profiler;
+	}
+
 	public abstract void checkCollisions(float delta);
 
 	protected boolean checkForTiles(Drawable drawable, Rectangle bounds) {
-		boolean collide = false;
-		// Check for collisions on the horizontal X axis
-		int startX, endX;
+		if (hitsWater(bounds, drawable.getVelocity().x, drawable.getVelocity().y)) {
+			// Stop all movement
+			drawable.getVelocity().x = 0;
+			drawable.getVelocity().y = 0;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Check if the bounds run into a water tile when moving at a velocity, on either axis. This is the test used by
+	 * {@link #checkForTiles(Drawable, Rectangle)}, for callers that keep the velocity themselves.
+	 * 
+	 * @param bounds
+	 *            The bounds to check against the water tiles.
+	 * @param velocityX
+	 *            The x velocity, in frame units.
+	 * @param velocityY
+	 *            The y velocity, in frame units.
+	 * @return True if the bounds run into a water tile, false otherwise.
+	 */
+	protected boolean hitsWater(Rectangle bounds, float velocityX, float velocityY) {
+		// Check for collisions with blocks on the left and right
 		int startY = (int) bounds.y;
 		int endY = (int) (bounds.y + bounds.height);
-		// Check for collisions with blocks on the left and right
-		if (drawable.getVelocity().x < 0) {
-			startX = endX = (int) Math.floor(bounds.x + drawable.getVelocity().x);
+		int column;
+		if (velocityX < 0) {
+			column = (int) Math.floor(bounds.x + velocityX);
 		} else {
-			startX = endX = (int) Math.floor(bounds.x + bounds.width + drawable.getVelocity().x);
+			column = (int) Math.floor(bounds.x + bounds.width + velocityX);
 		}
-
-		getWaterTiles(startX, endX, startY, endY);
-
-		// If enemy collides, set his horizontal velocity to 0
-		for (Rectangle tile : tiles) {
-			if (tile == null) {
-				continue;
-			}
-			if (bounds.overlaps(tile)) {
-				// Stop all movement and set enemy's state to dying. Then reset the degree used to change the float
-				// angle and get the starting x and y coordinates for the death.
-				drawable.getVelocity().x = 0;
-				drawable.getVelocity().y = 0;
-				collide = true;
-				break;
-			}
+		if (overlapsWater(bounds, column, column, startY, endY)) {
+			return true;
 		}
 
 		// Check for collisions on the vertical Y axis
-		startX = (int) bounds.x;
-		endX = (int) (bounds.x + bounds.width);
-		if (drawable.getVelocity().y < 0) {
-			startY = endY = (int) Math.floor(bounds.y + drawable.getVelocity().y);
+		int startX = (int) bounds.x;
+		int endX = (int) (bounds.x + bounds.width);
+		int row;
+		if (velocityY < 0) {
+			row = (int) Math.floor(bounds.y + velocityY);
 		} else {
-			startY = endY = (int) Math.floor(bounds.y + (bounds.height) + drawable.getVelocity().y);
+			row = (int) Math.floor(bounds.y + (bounds.height) + velocityY);
 		}
+		return overlapsWater(bounds, startX, endX, row, row);
+	}
 
-		getWaterTiles(startX, endX, startY, endY);
-
-		for (Rectangle tile : tiles) {
-			if (tile == null) {
+	/**
+	 * Check if the bounds overlap any water tile in the range of cells. The water flags are baked into the level when
+	 * the map is loaded, so this does not need to look up tile properties or create a Rectangle for each tile.
+	 * 
+	 * @param bounds
+	 *            The bounds to check against the water tiles.
+	 * @return True if the bounds overlap a water tile, false otherwise.
+	 */
+	private boolean overlapsWater(Rectangle bounds, int startX, int endX, int startY, int endY) {
+		for (int x = startX; x <= endX; x++) {
+			// Each tile is a 1x1 rectangle at (x, y), so do the same test as Rectangle.overlaps
+			if (bounds.x >= x + 1 || bounds.x + bounds.width <= x) {
 				continue;
 			}
-			if (bounds.overlaps(tile)) {
-				// Stop all movement and set enemy's state to dying. Then reset the degree used to change the float
-				// angle and get the starting x and y coordinates for the death.
-				drawable.getVelocity().x = 0;
-				drawable.getVelocity().y = 0;
-				collide = true;
+			for (int y = startY; y <= endY; y++) {
+				if (bounds.y < y + 1 && bounds.y + bounds.height > y && level.isWater(x, y)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Apply the key events that happened before a time, in the order they happened. Called by the simulation at the
+	 * start of each update. Each key changes at most once per update: a key that was pressed and released since the
+	 * last update stays down for this update, and the release and any events after it wait for the next one. So a quick
+	 * tap is never lost, and the keys down in each update are all a recording needs to play it back.
+	 *
+	 * @param time
+	 *            The time the update started, in nanoseconds. Later events wait for the next update.
+	 */
+	public void drainInput(long time) {
+		int changed = 0; // The keys pressed or released during this drain
+		while (!inputQueue.isEmpty() && inputQueue.peekTime() <= time) {
+			int event = inputQueue.peekEvent();
+			Keys key = KEYS[event >> 1];
+			if ((changed & key.mask) != 0) {
 				break;
 			}
+			changed |= key.mask;
+			if ((event & 1) != 0) {
+				keyDown(key);
+			} else {
+				keyUp(key);
+			}
+			inputQueue.remove();
 		}
-		return collide;
-	}
-
-	private void getWaterTiles(int startX, int endX, int startY, int endY) {
-		try {
-			TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get(0);
-			rectPool.freeAll(tiles);
-			tiles.clear();
-			for (int x = startX; x <= endX; x++) {
-				for (int y = startY; y <= endY; y++) {
-					Cell cell = layer.getCell((x), (y));
-					if (cell != null) {
-						if (cell.getTile().getProperties().containsKey("water")) {
-							Rectangle rect = new Rectangle();
-							rect.set(x, y, 1, 1);
-							tiles.add(rect);
-						}
-					}
+	}
+
+	/**
+	 * Set the keys down for this update, as if they had been pressed and released since the last update. Used to play
+	 * back a recording instead of draining the input queue.
+	 *
+	 * @param keys
+	 *            The key mask, with the bit for each key down set.
+	 */
+	public void setKeysDown(int keys) {
+		int changed = keysDown ^ keys;
+		for (int i = 0; changed != 0 && i < KEYS.length; i++) {
+			Keys key = KEYS[i];
+			if ((changed & key.mask) != 0) {
+				changed &= ~key.mask;
+				if ((keys & key.mask) != 0) {
+					keyDown(key);
+				} else {
+					keyUp(key);
 				}
 			}
-		} catch (Exception e) {
-			System.out.println("ERROR!!! " + e.getLocalizedMessage());
-			e.printStackTrace();
 		}
 	}
 
+	private void keyDown(Keys key) {
+		keysDown |= key.mask;
+		if (key == Keys.ATTACK) {
+			attackPressed = false;
+		}
+	}
+
+	private void keyUp(Keys key) {
+		keysDown &= ~key.mask;
+		if (key == Keys.JUMP) {
+			jumpPressed = false;
+			float diff = Math.abs(90 - jumpDegree);
+			jumpDegree = 90 + diff;
+		} else if (key == Keys.ATTACK) {
+			attackPressed = false;
+		}
+	}
+
+	/**
+	 * @return whether a key is down for this update
+	 */
+	public boolean isDown(Keys key) {
+		return (keysDown & key.mask) != 0;
+	}
+
+	/**
+	 * @return the keys down for this update, with the bit for each key set
+	 */
+	public int getKeysDown() {
+		return keysDown;
+	}
+
+	/**
+	 * @return the key events waiting for the next update, and the events that were dropped
+	 */
+	public InputQueue getInputQueue() {
+		return inputQueue;
+	}
+
 	protected boolean processInput(float delta) {
-		if (keys.get(Keys.JUMP)) {
+		if (isDown(Keys.JUMP)) {
 			if (!jumpPressed) {
 				// If Mike is not jumping, set his state to JUMPING, get the starting jump time and y coordinate, and
 				// set his maximum jump height. Then set his velocity to increase based on the max jump speed.
@@ -169,15 +257,15 @@ public abstract class Controller {
 				}
 			}
 		}
-		if (keys.get(Keys.ATTACK)) {
+		if (isDown(Keys.ATTACK)) {
 			// Start the jump animation
 			if (mike.isJumping()) {
 				mike.setState(State.JUMP_ATTACK);
 			} else {
 				mike.setState(State.ATTACKING);
 			}
-		} else if (keys.get(Keys.DOWN)) {
-			if (keys.get(Keys.LEFT)) {
+		} else if (isDown(Keys.DOWN)) {
+			if (isDown(Keys.LEFT)) {
 				mike.setDirection(Direction.DOWN_LEFT);
 				if (!mike.isJumping()) {
 					mike.setState(State.RUNNING);
@@ -189,7 +277,7 @@ public abstract class Controller {
 					mike.getAcceleration().y = -JUMP_ACCELERATION;
 					mike.getShadowVelocity().y -= SHADOW_ACCELERATION;
 				}
-			} else if (keys.get(Keys.RIGHT)) {
+			} else if (isDown(Keys.RIGHT)) {
 				mike.setDirection(Direction.DOWN_RIGHT);
 				if (!mike.isJumping()) {
 					mike.setState(State.RUNNING);
@@ -212,8 +300,8 @@ public abstract class Controller {
 					mike.getShadowVelocity().y -= SHADOW_ACCELERATION;
 				}
 			}
-		} else if (keys.get(Keys.UP)) {
-			if (keys.get(Keys.LEFT)) {
+		} else if (isDown(Keys.UP)) {
+			if (isDown(Keys.LEFT)) {
 				mike.setDirection(Direction.UP_LEFT);
 				if (!mike.isJumping()) {
 					mike.setState(State.RUNNING);
@@ -225,7 +313,7 @@ public abstract class Controller {
 					mike.getAcceleration().y = JUMP_ACCELERATION;
 					mike.getShadowVelocity().y += SHADOW_ACCELERATION;
 				}
-			} else if (keys.get(Keys.RIGHT)) {
+			} else if (isDown(Keys.RIGHT)) {
 				mike.setDirection(Direction.UP_RIGHT);
 				if (!mike.isJumping()) {
 					mike.setState(State.RUNNING);
@@ -247,7 +335,7 @@ public abstract class Controller {
 					mike.getShadowVelocity().y += SHADOW_ACCELERATION;
 				}
 			}
-		} else if (keys.get(Keys.LEFT)) {
+		} else if (isDown(Keys.LEFT)) {
 			mike.setDirection(Direction.LEFT);
 			if (!mike.isJumping()) {
 				mike.setState(State.RUNNING);
@@ -255,7 +343,7 @@ public abstract class Controller {
 			} else if (mike.isJumping()) {
 				mike.getAcceleration().x = -JUMP_ACCELERATION;
 			}
-		} else if (keys.get(Keys.RIGHT)) {
+		} else if (isDown(Keys.RIGHT)) {
 			mike.setDirection(Direction.RIGHT);
 			if (!mike.isJumping()) {
 				mike.setState(State.RUNNING);
@@ -370,57 +458,70 @@ public abstract class Controller {
 		attackReleased();
 	}
 
+	/**
+	 * Queue a key press for the next update. A key that is already held is not queued again.
+	 */
+	private void press(Keys key) {
+		if ((heldKeys & key.mask) == 0 && inputQueue.add(TimeUtils.nanoTime(), key.ordinal() << 1 | 1)) {
+			heldKeys |= key.mask;
+		}
+	}
+
+	/**
+	 * Queue a key release for the next update. A key that is not held is not queued.
+	 */
+	private void release(Keys key) {
+		if ((heldKeys & key.mask) != 0 && inputQueue.add(TimeUtils.nanoTime(), key.ordinal() << 1)) {
+			heldKeys &= ~key.mask;
+		}
+	}
+
 	public void downPressed() {
-		keys.get(keys.put(Keys.DOWN, true));
+		press(Keys.DOWN);
 	}
 
 	public void upPressed() {
-		keys.get(keys.put(Keys.UP, true));
+		press(Keys.UP);
 	}
 
 	public void leftPressed() {
-		keys.get(keys.put(Keys.LEFT, true));
+		press(Keys.LEFT);
 	}
 
 	public void rightPressed() {
-		keys.get(keys.put(Keys.RIGHT, true));
+		press(Keys.RIGHT);
 	}
 
 	public void jumpPressed() {
-		keys.get(keys.put(Keys.JUMP, true));
+		press(Keys.JUMP);
 	}
 
 	public void attackPressed() {
-		keys.get(keys.put(Keys.ATTACK, true));
-		attackPressed = false;
+		press(Keys.ATTACK);
 	}
 
 	public void downReleased() {
-		keys.get(keys.put(Keys.DOWN, false));
+		release(Keys.DOWN);
 	}
 
 	public void upReleased() {
-		keys.get(keys.put(Keys.UP, false));
+		release(Keys.UP);
 	}
 
 	public void leftReleased() {
-		keys.get(keys.put(Keys.LEFT, false));
+		release(Keys.LEFT);
 	}
 
 	public void rightReleased() {
-		keys.get(keys.put(Keys.RIGHT, false));
+		release(Keys.RIGHT);
 	}
 
 	public void jumpReleased() {
-		keys.get(keys.put(Keys.JUMP, false));
-		jumpPressed = false;
-		float diff = Math.abs(90 - jumpDegree);
-		jumpDegree = 90 + diff;
+		release(Keys.JUMP);
 	}
 
 	public void attackReleased() {
-		keys.get(keys.put(Keys.ATTACK, false));
-		attackPressed = false;
+		release(Keys.ATTACK);
 	}
 
 	public void releaseAllMovement() {
@@ -0,0 +1,22 @@
+package com.awesome.namethislater.controller;
+
+/**
+ * Runs the move phase of the enemy update. The enemies can be moved in any number of ranges, on any threads, as long
+ * as every enemy is moved once and all of them have finished when this returns.
+ */
+public interface EnemyMover {
+
+	/**
+	 * Move every enemy by calling
+	 * {@link WorldController#moveEnemies(int, int, float, com.badlogic.gdx.math.Rectangle)}.
+	 * 
+	 * @param controller
+	 *            The controller that is updating the enemies.
+	 * @param count
+	 *            The number of enemies to move.
+	 * @param delta
+	 *            The time in seconds since the last update.
+	 */
+	public void moveEnemies(WorldController controller, int count, float delta);
+
+}
@@ -0,0 +1,145 @@
+package com.awesome.namethislater.controller;
+
+import com.awesome.namethislater.model.Enemy;
+import com.awesome.namethislater.model.EnemyStore;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Decides which enemies are moved in each update, so the enemies far from Mike cost less than the ones he can see.
+ * <p>
+ * Enemies near Mike are moved in every update, exactly as before. Farther out they are moved less often, by all the
+ * time since they last moved, and the farthest least often of all. The number of distant enemies moved in one update
+ * is capped by a budget, so the cost of an update stays bounded however many enemies there are. When the budget runs
+ * out, the enemies left waiting are the first considered in the next update, so every enemy gets its turn.
+ * <p>
+ * Enemies walking to a goal are moved in every update wherever they are. They steer tile by tile along their paths,
+ * and a quarter of a second of movement at once carries them past their turns, so they would circle their goals
+ * without ever stepping on them.
+ * <p>
+ * The schedule only depends on the enemies and Mike's position, so a world updates the same way every time.
+ */
+public class EnemyScheduler {
+
+	public static final float NEAR_DISTANCE = 16; // Enemies closer to Mike than this, in tiles, move in every update
+	public static final float FAR_DISTANCE = 48; // Enemies farther than this move the least often
+	public static final float MIDDLE_INTERVAL = 0.1f; // The seconds between the moves of enemies in between
+	public static final float FAR_INTERVAL = 0.25f; // The seconds between the moves of the farthest enemies
+	public static final float MAX_DELTA = 0.25f; // The most time one move covers, so a late enemy catches up slowly
+	public static final int DEFAULT_BUDGET = 1024; // The most distant enemies moved in one update
+
+	private final int budget;
+	private int cursor; // The enemy considered first in the next update
+
+	/** Metrics, for the last update **/
+	private int nearMoves;
+	private int distantMoves;
+	private int deferred; // Distant enemies that were due to move, but were over the budget
+
+	public EnemyScheduler() {
+		this(DEFAULT_BUDGET);
+	}
+
+	/**
+	 * @param budget
+	 *            The most enemies farther than {@link #NEAR_DISTANCE} from Mike to move in one update.
+	 */
+	public EnemyScheduler(int budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Decide which enemies move in this update.
+	 *
+	 * @param enemies
+	 *            The enemies of the level.
+	 * @param x
+	 *            Mike's x position.
+	 * @param y
+	 *            Mike's y position.
+	 * @param delta
+	 *            The time in seconds since the last update.
+	 * @param deltas
+	 *            Filled with the time each enemy moves by, by enemy index, or 0 if it waits for a later update.
+	 */
+	public void schedule(EnemyStore enemies, float x, float y, float delta, float[] deltas) {
+		int count = enemies.size();
+		if (cursor >= count) {
+			cursor = 0;
+		}
+		float near = NEAR_DISTANCE * NEAR_DISTANCE;
+		float far = FAR_DISTANCE * FAR_DISTANCE;
+		int left = budget;
+		int next = -1; // The first enemy left waiting by the budget
+		nearMoves = 0;
+		distantMoves = 0;
+		deferred = 0;
+
+		for (int k = 0; k < count; k++) {
+			int i = cursor + k < count ? cursor + k : cursor + k - count;
+			Enemy enemy = enemies.get(i);
+			float waiting = enemy.getWaitingTime() + delta;
+			Rectangle bounds = enemy.getDamageBounds();
+			float dx = bounds.x + bounds.width / 2 - x;
+			float dy = bounds.y + bounds.height / 2 - y;
+			float distance = dx * dx + dy * dy;
+
+			boolean move;
+			if (distance < near || enemy.hasGoal()) {
+				move = true;
+				nearMoves++;
+			} else if (waiting < (distance < far ? MIDDLE_INTERVAL : FAR_INTERVAL)) {
+				move = false;
+			} else if (left > 0) {
+				move = true;
+				left--;
+				distantMoves++;
+			} else {
+				move = false;
+				deferred++;
+				if (next < 0) {
+					next = i;
+				}
+			}
+
+			if (move) {
+				deltas[i] = Math.min(waiting, MAX_DELTA);
+				enemy.setWaitingTime(0);
+			} else {
+				deltas[i] = 0;
+				enemy.setWaitingTime(waiting);
+			}
+		}
+		if (next >= 0) {
+			cursor = next;
+		}
+	}
+
+	/**
+	 * @return the most enemies farther than {@link #NEAR_DISTANCE} from Mike moved in one update
+	 */
+	public int getBudget() {
+		return budget;
+	}
+
+	/**
+	 * @return the number of enemies near Mike or walking to a goal moved in the last update
+	 */
+	public int getNearMoves() {
+		return nearMoves;
+	}
+
+	/**
+	 * @return the number of distant enemies moved in the last update
+	 */
+	public int getDistantMoves() {
+		return distantMoves;
+	}
+
+	/**
+	 * @return the number of distant enemies that were due to move in the last update, but were left for the next
+	 */
+	public int getDeferred() {
+		return deferred;
+	}
+
+}
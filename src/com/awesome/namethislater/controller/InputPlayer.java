@@ -0,0 +1,74 @@
+package com.awesome.namethislater.controller;
+
+/**
+ * Plays an {@link InputRecording} back through a simulation, as fast as the updates can run. The simulation's world
+ * must have been made from the recording's level and seed, and not updated yet, for the game to play the same way.
+ */
+public class InputPlayer {
+
+	private static final int KEY_MASK = (1 << InputRecording.KEY_BITS) - 1;
+
+	private final InputRecording recording;
+	private final Simulation simulation;
+
+	private int tick; // The next update to play
+	private int change; // The next change of keys
+	private int keys; // The keys down, Mike's and the world controller's
+
+	/**
+	 * @param recording
+	 *            The recording to play.
+	 * @param simulation
+	 *            The simulation to update. Its tick rate is set to the recording's.
+	 */
+	public InputPlayer(InputRecording recording, Simulation simulation) {
+		this.recording = recording;
+		this.simulation = simulation;
+		simulation.setTickRate(recording.getTickRate());
+	}
+
+	/**
+	 * Set the keys of the next recorded update, and run it.
+	 *
+	 * @return false if every update has already been played
+	 */
+	public boolean step() {
+		if (tick >= recording.getTicks()) {
+			return false;
+		}
+		while (change < recording.getChanges() && recording.getChangeTick(change) == tick) {
+			keys = recording.getChangeKeys(change);
+			change++;
+		}
+		simulation.getMikeController().setKeysDown(keys & KEY_MASK);
+		simulation.getWorldController().setKeysDown(keys >>> InputRecording.KEY_BITS);
+		simulation.tick();
+		tick++;
+		return true;
+	}
+
+	/**
+	 * Play every update that is left.
+	 *
+	 * @return the number of updates played
+	 */
+	public int playAll() {
+		int played = 0;
+		while (step()) {
+			played++;
+		}
+		return played;
+	}
+
+	/**
+	 * @return the number of updates played so far
+	 */
+	public int getTick() {
+		return tick;
+	}
+
+	public InputRecording getRecording() {
+		return recording;
+	}
+
+}
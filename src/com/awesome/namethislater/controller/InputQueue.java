@@ -0,0 +1,96 @@
+package com.awesome.namethislater.controller;
+
+/**
+ * A fixed size ring buffer of timestamped input events, for one thread that adds events and one thread that removes
+ * them. The events are ints and the times are longs, kept in arrays, so adding and removing never allocates. Nothing
+ * is locked: each side only writes its own index, and the index is written after the slot it covers.
+ * <p>
+ * When the queue is full, new events are refused and counted, rather than overwriting events that have not been read.
+ */
+public class InputQueue {
+
+	private final long[] times;
+	private final int[] events;
+	private final int mask; // The capacity minus one, to wrap an index into the arrays
+
+	private volatile int head; // The index of the next event to read. Only written by the reading thread
+	private volatile int tail; // The index of the next event to write. Only written by the adding thread
+	private int dropped; // The events refused because the queue was full
+
+	/**
+	 * @param capacity
+	 *            The most events the queue can hold. Must be a power of two.
+	 */
+	public InputQueue(int capacity) {
+		if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+			throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+		}
+		times = new long[capacity];
+		events = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Add an event. Only call this from the adding thread.
+	 *
+	 * @param time
+	 *            When the event happened, in nanoseconds.
+	 * @param event
+	 *            The event.
+	 * @return false if the queue was full and the event was dropped
+	 */
+	public boolean add(long time, int event) {
+		int t = tail;
+		if (t - head == events.length) {
+			dropped++;
+			return false;
+		}
+		times[t & mask] = time;
+		events[t & mask] = event;
+		tail = t + 1; // Publishes the slot to the reading thread
+		return true;
+	}
+
+	/**
+	 * @return whether there are no events to read
+	 */
+	public boolean isEmpty() {
+		return head == tail;
+	}
+
+	/**
+	 * @return the time of the oldest event. Only call this from the reading thread, when the queue is not empty.
+	 */
+	public long peekTime() {
+		return times[head & mask];
+	}
+
+	/**
+	 * @return the oldest event. Only call this from the reading thread, when the queue is not empty.
+	 */
+	public int peekEvent() {
+		return events[head & mask];
+	}
+
+	/**
+	 * Remove the oldest event, freeing its slot for the adding thread. Only call this from the reading thread.
+	 */
+	public void remove() {
+		head = head + 1;
+	}
+
+	/**
+	 * @return the number of events waiting to be read
+	 */
+	public int size() {
+		return tail - head;
+	}
+
+	/**
+	 * @return the number of events dropped because the queue was full
+	 */
+	public int getDropped() {
+		return dropped;
+	}
+
+}
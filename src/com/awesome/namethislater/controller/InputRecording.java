@@ -0,0 +1,179 @@
+package com.awesome.namethislater.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.DataInput;
+import com.badlogic.gdx.utils.DataOutput;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/**
+ * The keys held down in each update of a game, with what is needed to start the same game again: the level, the seed
+ * the enemies were given, and the tick rate. Set it on a {@link Simulation} to record, and play it back with an
+ * {@link InputPlayer}.
+ * <p>
+ * Only the updates where the keys change are kept, so a recording stays small however long the game runs. In the
+ * file, each change is the number of updates since the last change and the bits that flipped, as variable length
+ * ints.
+ */
+public class InputRecording {
+
+	public static final String EXTENSION = "rec";
+	public static final int KEY_BITS = 8; // The world controller's keys are stored above Mike's, shifted by this
+
+	private static final int MAGIC = 0x4E544C52; // "NTLR"
+	private static final int VERSION = 4; // Raised when the file or the way the seed is used changes
+
+	private final String levelPath;
+	private final long seed;
+	private final float tickRate;
+
+	private final IntArray changeTicks = new IntArray(); // The update each change happened in
+	private final IntArray changeKeys = new IntArray(); // The keys down from that update on
+	private int ticks; // The number of updates recorded
+	private int lastKeys; // The keys down in the last update recorded
+
+	/**
+	 * Start an empty recording.
+	 *
+	 * @param levelPath
+	 *            The path of the level being played.
+	 * @param seed
+	 *            The seed the world's enemies were given.
+	 * @param tickRate
+	 *            The number of updates per second.
+	 */
+	public InputRecording(String levelPath, long seed, float tickRate) {
+		this.levelPath = levelPath;
+		this.seed = seed;
+		this.tickRate = tickRate;
+	}
+
+	/**
+	 * Add an update. Called by the simulation after the input for the update has been applied.
+	 *
+	 * @param mikeKeys
+	 *            The keys down for Mike's controller.
+	 * @param worldKeys
+	 *            The keys down for the world controller.
+	 */
+	public void addTick(int mikeKeys, int worldKeys) {
+		int keys = mikeKeys | worldKeys << KEY_BITS;
+		if (keys != lastKeys) {
+			changeTicks.add(ticks);
+			changeKeys.add(keys);
+			lastKeys = keys;
+		}
+		ticks++;
+	}
+
+	/**
+	 * Write the recording to a file.
+	 */
+	public void save(FileHandle file) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + changeTicks.size * 3);
+		DataOutput output = new DataOutput(bytes);
+		try {
+			output.writeInt(MAGIC);
+			output.writeByte(VERSION);
+			output.writeUTF(levelPath);
+			output.writeLong(seed);
+			output.writeFloat(tickRate);
+			output.writeInt(ticks, true);
+			output.writeInt(changeTicks.size, true);
+			int lastTick = 0;
+			int keys = 0;
+			for (int i = 0; i < changeTicks.size; i++) {
+				output.writeInt(changeTicks.get(i) - lastTick, true);
+				output.writeInt(changeKeys.get(i) ^ keys, true);
+				lastTick = changeTicks.get(i);
+				keys = changeKeys.get(i);
+			}
+			output.flush();
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Could not write " + file.path(), e);
+		}
+		file.writeBytes(bytes.toByteArray(), false);
+	}
+
+	/**
+	 * Read a recording written by {@link #save(FileHandle)}.
+	 */
+	public static InputRecording load(FileHandle file) {
+		DataInput input = new DataInput(file.read());
+		try {
+			if (input.readInt() != MAGIC) {
+				throw new GdxRuntimeException(file.path() + " is not an input recording");
+			}
+			int version = input.readByte();
+			if (version != VERSION) {
+				throw new GdxRuntimeException(file.path() + " was recorded with version " + version + ", expected "
+						+ VERSION);
+			}
+			InputRecording recording = new InputRecording(input.readUTF(), input.readLong(), input.readFloat());
+			recording.ticks = input.readInt(true);
+			int changes = input.readInt(true);
+			recording.changeTicks.ensureCapacity(changes);
+			recording.changeKeys.ensureCapacity(changes);
+			int tick = 0;
+			int keys = 0;
+			for (int i = 0; i < changes; i++) {
+				tick += input.readInt(true);
+				keys ^= input.readInt(true);
+				recording.changeTicks.add(tick);
+				recording.changeKeys.add(keys);
+			}
+			recording.lastKeys = keys;
+			return recording;
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Could not read " + file.path(), e);
+		} finally {
+			StreamUtils.closeQuietly(input);
+		}
+	}
+
+	/**
+	 * @return the number of updates recorded
+	 */
+	public int getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * @return the number of times the keys changed
+	 */
+	public int getChanges() {
+		return changeTicks.size;
+	}
+
+	/**
+	 * @return the update the change happened in
+	 */
+	public int getChangeTick(int change) {
+		return changeTicks.get(change);
+	}
+
+	/**
+	 * @return the keys down from the change on, Mike's in the low bits and the world controller's above
+	 *         {@link #KEY_BITS}
+	 */
+	public int getChangeKeys(int change) {
+		return changeKeys.get(change);
+	}
+
+	public String getLevelPath() {
+		return levelPath;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public float getTickRate() {
+		return tickRate;
+	}
+
+}
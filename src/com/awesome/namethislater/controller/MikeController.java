@@ -1,20 +1,20 @@
 package com.awesome.namethislater.controller;
 
-import java.util.Iterator;
-
 import com.awesome.namethislater.model.Chakram;
 import com.awesome.namethislater.model.Drawable.Direction;
 import com.awesome.namethislater.model.Enemy;
 import com.awesome.namethislater.model.Mike.State;
+import com.awesome.namethislater.model.ProjectileManager;
 import com.awesome.namethislater.model.World;
+import com.awesome.namethislater.profiling.FrameProfiler.Phase;
 import com.badlogic.gdx.math.Rectangle;
-import com.badlogic.gdx.math.Vector2;
 
 public class MikeController extends Controller {
 	private static final String TAG = "MikeController";
 	private static final float DEATH_ACCELERATION = 10f; // The acceleration of the death rise
 	private static final float DAMP = 0.90f; // Used to smooth out the walking animation
 	private static final float MAX_VEL = 4f;
+	private static final float ENEMY_MARGIN = 0.5f; // Extra distance to search for enemies that may move into Mike
 
 	private float lift; // The amount to increase or decrease the y-coord for a jump
 
@@ -30,7 +30,9 @@ public class MikeController extends Controller {
 	public void update(float delta) {
 		if (!mike.getState().equals(State.DYING) && !mike.getState().equals(State.ATTACKING)
 				&& !mike.getState().equals(State.JUMP_ATTACK)) {
+			profiler.begin(Phase.INPUT);
 			processInput(delta); // Allow for movement unless dead
+			profiler.end(Phase.INPUT);
 		}
 
 		checkForDeath(delta);
@@ -66,7 +68,8 @@ public class MikeController extends Controller {
 				velocityY = 0;
 			}
 			mike.getPosition().y = lift;
-			// Increase the angle of the jump. The jump peaks at 90 degrees, and lands on the ground at 180.
+			// Increase the angle of the jump. The jump peaks at 90 degrees, and lands on the ground at 180. This runs
+			// once per fixed update, so the jump takes the same time at any frame rate.
 			jumpDegree += 5;
 			if (jumpDegree < 90) {
 				shadowPercentage -= 2.5;
@@ -86,15 +89,19 @@ public class MikeController extends Controller {
 			}
 		}
 
-		Iterator<Chakram> it = mike.getChakrams().iterator();
-		while (it.hasNext()) {
-			Chakram chakram = it.next();
+		ProjectileManager projectiles = mike.getProjectiles();
+		for (int i = 0; i < projectiles.getActive().size; i++) {
+			Chakram chakram = projectiles.getActive().get(i);
 			chakram.getAcceleration().mul(delta);
 			chakram.getVelocity().add(chakram.getAcceleration().x, chakram.getAcceleration().y);
 			chakram.getPosition().add(chakram.getVelocity());
 
-			chakram.update(new Vector2(chakram.getPosition().x, chakram.getPosition().y), rotation);
-			checkChakramCollisions(delta, it, chakram);
+			chakram.update(chakram.getPosition().x, chakram.getPosition().y, rotation);
+			if (checkChakramCollisions(delta, chakram)) {
+				// Return the chakram to the pool, and check the chakram that took its place
+				projectiles.remove(i);
+				i--;
+			}
 		}
 
 		rotation += 5;
@@ -155,12 +162,15 @@ public class MikeController extends Controller {
 		mikeFeet.set(fl, fb, fr, ft);
 		mikeShadow.set(l, b, r, t);
 
-		for (Enemy enemy : enemies) {
-			enemy.getVelocity().mul(delta);
+		// Only check the enemies that are close to the bounds that can be hit
+		enemyHash.query(mike.isJumping() ? mikeShadow : mikeDamage, ENEMY_MARGIN, nearbyEnemies);
+		for (int i = 0; i < nearbyEnemies.size; i++) {
+			Enemy enemy = nearbyEnemies.get(i);
 
+			// The enemy's velocity is only read here, so it is scaled to frame units without changing it
 			Rectangle enemyRect = rectPool.obtain();
-			float el = enemy.getDamageBounds().x + enemy.getVelocity().x;
-			float eb = enemy.getDamageBounds().y + enemy.getVelocity().y;
+			float el = enemy.getDamageBounds().x + enemy.getVelocity().x * delta;
+			float eb = enemy.getDamageBounds().y + enemy.getVelocity().y * delta;
 			float er = enemy.getDamageBounds().width;
 			float et = enemy.getDamageBounds().height;
 
@@ -196,7 +206,6 @@ public class MikeController extends Controller {
 				}
 			}
 			rectPool.free(enemyRect);
-			enemy.getVelocity().mul(1 / delta);
 		}
 
 		if (!mike.isJumping() && !mike.getState().equals(State.DYING)) {
@@ -231,16 +240,17 @@ public class MikeController extends Controller {
 	}
 
 	/**
-	 * Check if the chakram collides with an enemy. If it does, remove it from the iterator.
+	 * Check if the chakram collides with an enemy or leaves the level.
 	 * 
 	 * @param delta
 	 *            The time in seconds since the last update. Used to scale the velocity to frame units.
-	 * @param it
-	 *            The iterator that is looping through each of the chakrams.
 	 * @param chakram
 	 *            The current chakram that is being checked.
+	 * @return True if the chakram should be removed, false otherwise.
 	 */
-	private void checkChakramCollisions(float delta, Iterator<Chakram> it, Chakram chakram) {
+	private boolean checkChakramCollisions(float delta, Chakram chakram) {
+		boolean remove = false;
+
 		// Multiply by the delta to convert velocity to frame units
 		chakram.getVelocity().mul(delta);
 
@@ -261,11 +271,13 @@ public class MikeController extends Controller {
 		chakramRect.x += chakram.getVelocity().x;
 		chakramRect.y += chakram.getVelocity().y;
 
-		for (Enemy enemy : enemies) { // Check for collisions
+		enemyHash.query(chakramRect, 0, nearbyEnemies);
+		for (int i = 0; i < nearbyEnemies.size; i++) { // Check for collisions
+			Enemy enemy = nearbyEnemies.get(i);
 			if (chakramRect.overlaps(enemy.getDamageBounds())) {
 				chakram.getVelocity().x = 0;
 				chakram.getVelocity().y = 0;
-				it.remove();
+				remove = true;
 				enemy.takeDamage(20);
 				enemy.setHurt(true);
 			}
@@ -274,14 +286,16 @@ public class MikeController extends Controller {
 		// Check for collisions with the left and right sides of the level
 		if (chakramRect.x <= 0
 				|| chakramRect.x > width - chakramRect.width - chakram.getVelocity().x) {
-			it.remove();
+			remove = true;
 		}
 		// Check for collisions with the bottom and top sides of the levels
 		if (chakramRect.y <= 0
 				|| chakramRect.y > height - chakramRect.height - chakram.getVelocity().y) {
-			it.remove();
+			remove = true;
 		}
+		rectPool.free(chakramRect);
 		chakram.getVelocity().mul(1 / delta);
+		return remove;
 	}
 
 	/**
@@ -309,6 +323,7 @@ public class MikeController extends Controller {
 				mike.setState(State.IDLE);
 				mike.getPosition().x = level.getStartingPosition().x;
 				mike.getPosition().y = level.getStartingPosition().y;
+				mike.savePosition(); // Do not draw Mike sliding back to the start
 				mike.updateDamageBounds(mike.getPosition());
 				mike.updateFeetBounds(mike.getPosition());
 				mike.setDirection(Direction.DOWN);
@@ -0,0 +1,138 @@
+package com.awesome.namethislater.controller;
+
+import com.awesome.namethislater.model.World;
+import com.awesome.namethislater.profiling.FrameProfiler;
+import com.awesome.namethislater.profiling.FrameProfiler.Phase;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Runs the controllers for a world in fixed steps, so the game plays the same at any frame rate. Used by the game
+ * screen, and by the headless runner to run the game without graphics.
+ */
+public class Simulation {
+
+	public static final float DEFAULT_TICK_RATE = 60f; // The number of simulation updates per second
+	private static final float MAX_FRAME_TIME = 0.25f; // The longest frame to catch up on, so a stall can't snowball
+
+	private final World world;
+	private final MikeController mikeController;
+	private final WorldController worldController;
+	private final FrameProfiler profiler;
+
+	private float tickTime = 1 / DEFAULT_TICK_RATE; // The time in seconds of each simulation update
+	private float accumulator; // The frame time that has not been simulated yet
+	private long ticks; // The number of updates that have been run
+	private InputRecording recording; // Records the keys of each update, or null
+
+	public Simulation(World world) {
+		this(world, new FrameProfiler());
+	}
+
+	/**
+	 * @param world
+	 *            The world to update.
+	 * @param profiler
+	 *            Times the input and the updates of each controller.
+	 */
+	public Simulation(World world, FrameProfiler profiler) {
+		this.world = world;
+		this.profiler = profiler;
+		mikeController = new MikeController(world);
+		worldController = new WorldController(world);
+		mikeController.setProfiler(profiler);
+		worldController.setProfiler(profiler);
+	}
+
+	/**
+	 * Run as many fixed updates as fit in the time since the last frame. Whatever time is left over is used to draw the
+	 * sprites part of the way to their next position.
+	 *
+	 * @param delta
+	 *            The time in seconds since the last frame.
+	 */
+	public void update(float delta) {
+		accumulator += Math.min(delta, MAX_FRAME_TIME);
+		while (accumulator >= tickTime) {
+			tick();
+			accumulator -= tickTime;
+		}
+		world.interpolate(accumulator / tickTime);
+	}
+
+	/**
+	 * Run a single fixed update. The key events that came in before the update are applied first.
+	 */
+	public void tick() {
+		long now = TimeUtils.nanoTime();
+		mikeController.drainInput(now);
+		worldController.drainInput(now);
+		if (recording != null) {
+			recording.addTick(mikeController.getKeysDown(), worldController.getKeysDown());
+		}
+		world.savePositions();
+		Vector2 position = world.getMike().getPosition();
+		world.getLevel().updateChunks(position.x, position.y);
+		profiler.begin(Phase.MIKE_UPDATE);
+		mikeController.update(tickTime);
+		profiler.end(Phase.MIKE_UPDATE);
+		profiler.begin(Phase.WORLD_UPDATE);
+		worldController.update(tickTime);
+		profiler.end(Phase.WORLD_UPDATE);
+		ticks++;
+	}
+
+	public MikeController getMikeController() {
+		return mikeController;
+	}
+
+	public WorldController getWorldController() {
+		return worldController;
+	}
+
+	public InputRecording getRecording() {
+		return recording;
+	}
+
+	/**
+	 * @param recording
+	 *            records the keys down in each update from now on, or null to stop recording
+	 */
+	public void setRecording(InputRecording recording) {
+		this.recording = recording;
+	}
+
+	public FrameProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * @return the number of updates that have been run
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * @return the time in seconds of each update
+	 */
+	public float getTickTime() {
+		return tickTime;
+	}
+
+	/**
+	 * @return the number of simulation updates per second
+	 */
+	public float getTickRate() {
+		return 1 / tickTime;
+	}
+
+	/**
+	 * @param tickRate
+	 *            the number of simulation updates per second
+	 */
+	public void setTickRate(float tickRate) {
+		this.tickTime = 1 / tickRate;
+	}
+
+}
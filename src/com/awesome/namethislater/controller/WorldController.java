@@ -1,10 +1,12 @@
 package com.awesome.namethislater.controller;
 
-import java.util.Random;
-
 import com.awesome.namethislater.model.Drawable.Direction;
 import com.awesome.namethislater.model.Enemy;
+import com.awesome.namethislater.model.FlowField;
+import com.awesome.namethislater.model.PathFinder;
+import com.awesome.namethislater.model.PathFinder.Path;
 import com.awesome.namethislater.model.World;
+import com.awesome.namethislater.profiling.FrameProfiler.Phase;
 import com.badlogic.gdx.math.Rectangle;
 
 public class WorldController extends Controller {
@@ -12,11 +14,29 @@ public class WorldController extends Controller {
 	private static float ACCELERATION = 10f; // The speed of walking
 	private static final float DAMP = 0.9f; // Used to smooth out the walking animation
 	private static final float MAX_VEL = 4f;
+	// The longest step of a move. Enemies walk less than their height in one, so no step carries them over water
+	private static final float MAX_STEP = 0.05f;
+	public static final int CHASE_RADIUS = 32; // Enemies this many tiles from Mike walk toward him
+
+	// Moves the enemies during an update. Runs on this thread unless a parallel mover is set
+	private EnemyMover mover = new SerialMover();
+	// Leads the enemies near Mike toward him, or null to let every enemy wander
+	private FlowField chaseField;
+	// Finds the paths of the enemies that have goals. Made when the first enemy needs a path
+	private PathFinder pathFinder;
+	// Moves the enemies far from Mike less often, or null to move every enemy in every update
+	private EnemyScheduler scheduler = new EnemyScheduler();
 
-	Random random = new Random();
+	/** Results of the move phase, by enemy index, applied in order by the commit phase **/
+	private boolean[] turns = new boolean[16]; // The enemy's walk time ran out, so it picks a new direction
+	private boolean[] tileHits = new boolean[16]; // The enemy walked into a water tile
+	private Direction[] edgeDirections = new Direction[16]; // The direction to turn after hitting the edge of the level
+	private float[] moveDeltas = new float[16]; // The time the scheduler moves the enemy by, or 0 if it waits
 
 	public WorldController(World world) {
 		super(world);
+		enemyHash.rebuild(enemies);
+		chaseField = new FlowField(level, CHASE_RADIUS);
 	}
 
 	@Override
@@ -26,111 +46,342 @@ public class WorldController extends Controller {
 
 	@Override
 	public void checkCollisions(float delta) {
-		for (Enemy enemy : enemies) {
-			if (enemy.isDead()) {
-				level.removeDeadEnemy(enemy);
-			} else {
-				processInput(delta);
-				enemy.setEnemyTime(enemy.getEnemyTime() - delta);
-				enemy.getAcceleration().mul(delta);
-				enemy.getVelocity().add(enemy.getAcceleration().x, enemy.getAcceleration().y);
-
-				Direction direction = enemy.getDirection();
-				if (direction.equals(Direction.UP)) {
-					enemy.getAcceleration().y = ACCELERATION;
-				} else if (direction.equals(Direction.DOWN)) {
-					enemy.getAcceleration().y = -ACCELERATION;
-				} else if (direction.equals(Direction.LEFT)) {
-					enemy.getAcceleration().x = -ACCELERATION;
-				} else if (direction.equals(Direction.RIGHT)) {
-					enemy.getAcceleration().x = ACCELERATION;
-				} else if (direction.equals(Direction.UP_LEFT)) {
-					enemy.getAcceleration().x = -ACCELERATION;
-					enemy.getAcceleration().y = ACCELERATION;
-				} else if (direction.equals(Direction.DOWN_LEFT)) {
-					enemy.getAcceleration().y = -ACCELERATION;
-					enemy.getAcceleration().y = -ACCELERATION;
-				} else if (direction.equals(Direction.UP_RIGHT)) {
-					enemy.getAcceleration().x = -ACCELERATION;
-					enemy.getAcceleration().y = ACCELERATION;
-				} else if (direction.equals(Direction.DOWN_RIGHT)) {
-					enemy.getAcceleration().x = ACCELERATION;
-					enemy.getAcceleration().y = -ACCELERATION;
-				}
-				if (enemy.getEnemyTime() < 0) { // Reset the enemy time and direction
-					enemy.setEnemyTime(random.nextInt(5));
-					enemy.setDirection(random.nextInt(7));
-				}
-				// Multiply by the delta to convert velocity to frame units
-				enemy.getVelocity().mul(delta);
+		int count = enemies.size();
+		if (count > 0) {
+			profiler.begin(Phase.INPUT);
+			processInput(delta);
+			profiler.end(Phase.INPUT);
+		}
+		Rectangle feet = mike.getFeetBounds();
+		float mikeX = feet.x + feet.width / 2;
+		float mikeY = feet.y + feet.height / 2;
+		if (chaseField != null) {
+			// Only searched again when Mike steps onto another tile
+			chaseField.update(mikeX, mikeY);
+		}
+		if (turns.length < count) {
+			int capacity = Math.max(count, turns.length * 2);
+			turns = new boolean[capacity];
+			tileHits = new boolean[capacity];
+			edgeDirections = new Direction[capacity];
+			moveDeltas = new float[capacity];
+		}
+		if (scheduler != null) {
+			scheduler.schedule(enemies, mikeX, mikeY, delta, moveDeltas);
+		}
 
-				// Get the width and height of the level
-				int width = level.getWidth();
-				int height = level.getHeight();
+		// Move the enemies, then apply the changes that must happen in order on this thread
+		mover.moveEnemies(this, count, delta);
+		commitEnemies(count, delta);
 
-				// Obtain enemy's rectangle from the pool of rectangles instead of instantiating every frame. Then set the
-				// bounds of the rectangle.
-				Rectangle enemyRect = rectPool.obtain();
-				float left = enemy.getDamageBounds().x;
-				float bottom = enemy.getDamageBounds().y;
-				float right = enemy.getDamageBounds().width;
-				float top = enemy.getDamageBounds().height;
+		level.removeDeadEnemies();
+		// The enemies have moved, so put them into their new cells for the next collision checks
+		enemyHash.rebuild(enemies);
+	}
+
+	/**
+	 * Move a range of enemies and check them against the water tiles and the edges of the level. This only changes the
+	 * enemies in the range and reads the level, so different ranges can be moved on different threads at the same time.
+	 * The positions and velocities are read from the enemy store's packed arrays, and written back to both the arrays
+	 * and the enemies.
+	 * Changes of direction and deaths are recorded, and applied afterwards by the commit phase. Enemies the scheduler
+	 * leaves waiting are not moved.
+	 * 
+	 * @param start
+	 *            The index of the first enemy to move.
+	 * @param end
+	 *            The index after the last enemy to move.
+	 * @param delta
+	 *            The time in seconds since the last update. Enemies the scheduler moves less often are moved by the
+	 *            time since they last moved instead, in steps of at most {@link #MAX_STEP}.
+	 * @param enemyRect
+	 *            A rectangle used for the collision checks. Each thread must use its own.
+	 */
+	public void moveEnemies(int start, int end, float delta, Rectangle enemyRect) {
+		// Get the width and height of the level
+		int width = level.getWidth();
+		int height = level.getHeight();
+		float[] positionX = enemies.getPositionX();
+		float[] positionY = enemies.getPositionY();
+		float[] velocityX = enemies.getVelocityX();
+		float[] velocityY = enemies.getVelocityY();
+
+		for (int i = start; i < end; i++) {
+			Enemy enemy = enemies.get(i);
+			turns[i] = false;
+			tileHits[i] = false;
+			edgeDirections[i] = null;
+			float enemyDelta = scheduler != null ? moveDeltas[i] : delta;
+			// Dead enemies are removed after every enemy has been updated
+			if (enemy.isDead() || enemyDelta == 0) {
+				continue;
+			}
+			// Enemies in chunks of a streamed level that are not in memory wait until the chunk is loaded again. They
+			// would only bump into the water that unloaded cells count as, and turn on every update.
+			if (!level.isLoaded((int) positionX[i], (int) positionY[i])) {
+				continue;
+			}
+			enemy.setEnemyTime(enemy.getEnemyTime() - enemyDelta);
+			if (enemy.getEnemyTime() < 0) { // Reset the enemy time and direction when committing
+				turns[i] = true;
+			}
+			if (chaseField != null && !enemy.hasGoal()) {
+				// Enemies near Mike follow the field toward him, the rest keep wandering
+				Rectangle bounds = enemy.getDamageBounds();
+				Direction chase = chaseField.getDirection(bounds.x + bounds.width / 2, bounds.y + bounds.height / 2);
+				if (chase != null) {
+					enemy.setDirection(chase);
+				}
+			}
+			float x = positionX[i];
+			float y = positionY[i];
+			float vx = velocityX[i];
+			float vy = velocityY[i];
+			Rectangle bounds = enemy.getDamageBounds();
+			// A move longer than a step is made in several, and stops at the first water tile it reaches
+			float remaining = enemyDelta;
+			while (remaining > 0 && !tileHits[i]) {
+				float step = Math.min(remaining, MAX_STEP);
+				remaining -= step;
+				enemy.getAcceleration().mul(step);
+				vx += enemy.getAcceleration().x;
+				vy += enemy.getAcceleration().y;
+				setAcceleration(enemy);
 
-				enemyRect.set(left, bottom, right, top);
+				// Multiply by the step to convert velocity to frame units
+				vx *= step;
+				vy *= step;
 
-				// Set enemy's collision rect to include his X and Y velocity
-				enemyRect.x += enemy.getVelocity().x;
-				enemyRect.y += enemy.getVelocity().y;
+				// Set the enemy's collision rect to its damage bounds moved by its X and Y velocity
+				enemyRect.set(x + vx, y + vy, bounds.width, bounds.height);
 
-				if (checkForTiles(enemy, enemyRect)) {
-					enemy.setEnemyTime(0);
+				if (hitsWater(enemyRect, vx, vy)) {
+					// Stop all movement
+					vx = 0;
+					vy = 0;
+					tileHits[i] = true;
 				}
 
 				// Check for collisions with the left and right sides of the level
 				if (enemyRect.x <= 0) {
-					enemy.setDirection(Direction.RIGHT);
+					edgeDirections[i] = Direction.RIGHT;
 				}
-				if (enemyRect.x > width - enemyRect.width - enemy.getVelocity().x) {
-					enemy.setDirection(Direction.LEFT);
+				if (enemyRect.x > width - enemyRect.width - vx) {
+					edgeDirections[i] = Direction.LEFT;
 				}
 				// Check for collisions with the bottom and top sides of the levels
 				if (enemyRect.y <= 0) {
-					enemy.setDirection(Direction.UP);
+					edgeDirections[i] = Direction.UP;
 				}
-				if (enemyRect.y > height - enemyRect.height - enemy.getVelocity().y) {
-					enemy.setDirection(Direction.DOWN);
+				if (enemyRect.y > height - enemyRect.height - vy) {
+					edgeDirections[i] = Direction.DOWN;
 				}
 
-				// Reset enemy's collision rect with his position
-				enemyRect.x = enemy.getPosition().x;
-				enemyRect.y = enemy.getPosition().y;
-
-				rectPool.free(enemyRect);
-
 				// Update the position
-				enemy.getPosition().add(enemy.getVelocity());
-				enemy.updateDamageBounds(enemy.getPosition());
+				x += vx;
+				y += vy;
 				// Un-scale the velocity so that it is no longer in frame time
-				enemy.getVelocity().mul(1 / delta);
+				float scale = 1 / step;
+				vx *= scale;
+				vy *= scale;
 
-				enemy.getVelocity().x *= DAMP;
-				enemy.getVelocity().y *= DAMP;
+				vx *= DAMP;
+				vy *= DAMP;
 
 				// Ensure terminal velocity is not exceeded
-				if (enemy.getVelocity().x > MAX_VEL) {
-					enemy.getVelocity().x = MAX_VEL;
-				}
-				if (enemy.getVelocity().x < -MAX_VEL) {
-					enemy.getVelocity().x = -MAX_VEL;
-				}
-				if (enemy.getVelocity().y > MAX_VEL) {
-					enemy.getVelocity().y = MAX_VEL;
-				}
-				if (enemy.getVelocity().y < -MAX_VEL) {
-					enemy.getVelocity().y = -MAX_VEL;
-				}
-				enemy.update(delta);
+				vx = Math.max(-MAX_VEL, Math.min(MAX_VEL, vx));
+				vy = Math.max(-MAX_VEL, Math.min(MAX_VEL, vy));
+			}
+
+			positionX[i] = x;
+			positionY[i] = y;
+			velocityX[i] = vx;
+			velocityY[i] = vy;
+			// Keep the enemy itself up to date for drawing and for Mike's collision checks
+			enemy.getPosition().set(x, y);
+			enemy.getVelocity().set(vx, vy);
+			enemy.updateDamageBounds(enemy.getPosition());
+		}
+	}
+
+	/**
+	 * Point the enemy's acceleration in the direction it walks.
+	 */
+	private void setAcceleration(Enemy enemy) {
+		Direction direction = enemy.getDirection();
+		if (direction.equals(Direction.UP)) {
+			enemy.getAcceleration().y = ACCELERATION;
+		} else if (direction.equals(Direction.DOWN)) {
+			enemy.getAcceleration().y = -ACCELERATION;
+		} else if (direction.equals(Direction.LEFT)) {
+			enemy.getAcceleration().x = -ACCELERATION;
+		} else if (direction.equals(Direction.RIGHT)) {
+			enemy.getAcceleration().x = ACCELERATION;
+		} else if (direction.equals(Direction.UP_LEFT)) {
+			enemy.getAcceleration().x = -ACCELERATION;
+			enemy.getAcceleration().y = ACCELERATION;
+		} else if (direction.equals(Direction.DOWN_LEFT)) {
+			enemy.getAcceleration().x = -ACCELERATION;
+			enemy.getAcceleration().y = -ACCELERATION;
+		} else if (direction.equals(Direction.UP_RIGHT)) {
+			enemy.getAcceleration().x = ACCELERATION;
+			enemy.getAcceleration().y = ACCELERATION;
+		} else if (direction.equals(Direction.DOWN_RIGHT)) {
+			enemy.getAcceleration().x = ACCELERATION;
+			enemy.getAcceleration().y = -ACCELERATION;
+		}
+	}
+
+	/**
+	 * Apply the changes recorded by the move phase, in enemy order. New directions are picked from each enemy's own
+	 * random numbers, so the result is the same however the move phase was split up. Enemies with goals are pointed
+	 * along their paths here, because the path finder can only be used by one thread.
+	 */
+	private void commitEnemies(int count, float delta) {
+		for (int i = 0; i < count; i++) {
+			Enemy enemy = enemies.get(i);
+			if (enemy.isDead()) {
+				continue;
+			}
+			float enemyDelta = scheduler != null ? moveDeltas[i] : delta;
+			if (enemyDelta == 0) {
+				// Still updated, so an enemy hurt while it waits dies in this update
+				enemy.update(0);
+				continue;
+			}
+			if (turns[i] && !enemy.hasGoal()) {
+				enemy.turn();
 			}
+			if (tileHits[i]) {
+				enemy.setEnemyTime(0);
+			}
+			if (edgeDirections[i] != null) {
+				enemy.setDirection(edgeDirections[i]);
+				edgeDirections[i] = null;
+			}
+			if (enemy.hasGoal()) {
+				followPath(enemy);
+			}
+			enemy.update(enemyDelta);
+		}
+	}
+
+	/**
+	 * Point an enemy at the next tile of the path to its goal. The path is found again if the enemy has left it, has
+	 * reached the end of a path that stopped short of the goal, or the rest of it crosses water since the level's
+	 * tiles changed. Chunks of a streamed level are loaded and dropped all the time, so a change to the tiles only
+	 * costs a check of the tiles left on each path, and only the enemies whose way is now cut off search again.
+	 */
+	private void followPath(Enemy enemy) {
+		Rectangle bounds = enemy.getDamageBounds();
+		int x = (int) Math.floor(bounds.x + bounds.width / 2);
+		int y = (int) Math.floor(bounds.y + bounds.height / 2);
+		if (x == enemy.getGoalX() && y == enemy.getGoalY()) {
+			enemy.clearGoal();
+			return;
+		}
+
+		Path path = enemy.getPath();
+		int step = enemy.getPathStep();
+		// Walk to the next tile once the enemy reaches the one it was walking to
+		if (path != null && step < path.getLength() && path.getX(step) == x && path.getY(step) == y) {
+			step++;
+		}
+		boolean onPath = path != null && step > 0 && step < path.getLength() && path.getX(step - 1) == x
+				&& path.getY(step - 1) == y;
+		if (pathFinder == null) {
+			pathFinder = new PathFinder(level);
+		}
+		int version = level.getTileVersion();
+		if (onPath && enemy.getPathVersion() != version) {
+			onPath = pathFinder.isWalkable(path, step - 1);
+		}
+		if (!onPath) {
+			path = pathFinder.findPath(x, y, enemy.getGoalX(), enemy.getGoalY());
+			if (path.getLength() < 2) {
+				// The enemy can not get any closer, so it gives up and wanders
+				enemy.clearGoal();
+				return;
+			}
+			step = 1;
+		}
+		enemy.setPath(path, step);
+		enemy.setPathVersion(version);
+		enemy.setDirection(PathFinder.getDirection(path.getX(step) - x, path.getY(step) - y));
+	}
+
+	/**
+	 * @return the field that leads the enemies near Mike toward him, or null if every enemy wanders
+	 */
+	public FlowField getChaseField() {
+		return chaseField;
+	}
+
+	/**
+	 * @param chaseField
+	 *            the field that leads the enemies near Mike toward him, or null to let every enemy wander
+	 */
+	public void setChaseField(FlowField chaseField) {
+		this.chaseField = chaseField;
+	}
+
+	/**
+	 * @return the path finder for the enemies that have goals, or null if no enemy has needed a path yet
+	 */
+	public PathFinder getPathFinder() {
+		return pathFinder;
+	}
+
+	/**
+	 * @param pathFinder
+	 *            the path finder for the enemies that have goals, for example one with a different node budget
+	 */
+	public void setPathFinder(PathFinder pathFinder) {
+		this.pathFinder = pathFinder;
+	}
+
+	/**
+	 * @return the scheduler that moves the enemies far from Mike less often, or null if every enemy moves in every
+	 *         update
+	 */
+	public EnemyScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * @param scheduler
+	 *            the scheduler that moves the enemies far from Mike less often, or null to move every enemy in every
+	 *            update
+	 */
+	public void setScheduler(EnemyScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * @return the mover used to move the enemies
+	 */
+	public EnemyMover getMover() {
+		return mover;
+	}
+
+	/**
+	 * @param mover
+	 *            the mover used to move the enemies. Set a parallel mover to move the enemies on several threads.
+	 */
+	public void setMover(EnemyMover mover) {
+		this.mover = mover;
+	}
+
+	/**
+	 * Moves the enemies on the update thread.
+	 */
+	private static class SerialMover implements EnemyMover {
+
+		private final Rectangle enemyRect = new Rectangle();
+
+		@Override
+		public void moveEnemies(WorldController controller, int count, float delta) {
+			controller.moveEnemies(0, count, delta, enemyRect);
 		}
 	}
 }
@@ -0,0 +1,167 @@
+package com.awesome.namethislater.headless;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import com.awesome.namethislater.view.GameAtlas;
+import com.awesome.namethislater.view.GameAtlas.SourceRegion;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Packs the regions listed in {@link GameAtlas} into a single page, and writes the page and a pack file that
+ * TextureAtlas can read. Run this whenever the source images change. The game loads the packed atlas if it exists, and
+ * cuts the regions from the source images otherwise.
+ * <p>
+ * The regions are packed in rows, tallest first, into the smallest power of two page they fit in.
+ * <p>
+ * Usage: AtlasPacker &lt;assets directory&gt; [output.atlas]
+ */
+public class AtlasPacker {
+
+	private static final int PADDING = 2; // The space between regions, so filtering never picks up a neighbour
+	private static final int MAX_PAGE_SIZE = 2048;
+
+	/**
+	 * Pack the regions.
+	 *
+	 * @param assets
+	 *            The directory the source images are in.
+	 * @param output
+	 *            The pack file to write. The page is written next to it, with the same name.
+	 * @return the size of the page
+	 */
+	public int pack(File assets, File output) throws IOException {
+		Array<SourceRegion> regions = GameAtlas.getRegions();
+		Map<String, BufferedImage> images = new HashMap<String, BufferedImage>();
+		int[] widths = new int[regions.size];
+		int[] heights = new int[regions.size];
+		Integer[] order = new Integer[regions.size];
+		for (int i = 0; i < regions.size; i++) {
+			SourceRegion region = regions.get(i);
+			BufferedImage image = images.get(region.file);
+			if (image == null) {
+				File file = new File(assets, region.file);
+				image = ImageIO.read(file);
+				if (image == null) {
+					throw new IOException("Not an image: " + file);
+				}
+				images.put(region.file, image);
+			}
+			widths[i] = region.width < 0 ? image.getWidth() : region.width;
+			heights[i] = region.height < 0 ? image.getHeight() : region.height;
+			if (region.x + widths[i] > image.getWidth() || region.y + heights[i] > image.getHeight()) {
+				throw new IOException("Region " + region.name + " is outside " + region.file);
+			}
+			order[i] = i;
+		}
+
+		// Tallest first, so each row wastes little space under its shorter regions
+		final int[] sortHeights = heights;
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return sortHeights[b] - sortHeights[a];
+			}
+		});
+
+		int[] xs = new int[regions.size];
+		int[] ys = new int[regions.size];
+		int size = 64;
+		while (!place(order, widths, heights, size, xs, ys)) {
+			size *= 2;
+			if (size > MAX_PAGE_SIZE) {
+				throw new IOException("The regions do not fit in a " + MAX_PAGE_SIZE + " page");
+			}
+		}
+
+		BufferedImage page = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		for (int i = 0; i < regions.size; i++) {
+			SourceRegion region = regions.get(i);
+			BufferedImage image = images.get(region.file);
+			int[] pixels = image.getRGB(region.x, region.y, widths[i], heights[i], null, 0, widths[i]);
+			page.setRGB(xs[i], ys[i], widths[i], heights[i], pixels, 0, widths[i]);
+		}
+
+		String name = output.getName();
+		String pageName = (name.lastIndexOf('.') < 0 ? name : name.substring(0, name.lastIndexOf('.'))) + ".png";
+		File pageFile = new File(output.getAbsoluteFile().getParentFile(), pageName);
+		if (!ImageIO.write(page, "png", pageFile)) {
+			throw new IOException("Could not write " + pageFile);
+		}
+		writePackFile(output, pageName, regions, xs, ys, widths, heights);
+		return size;
+	}
+
+	/**
+	 * Place the regions in rows on a page, in the given order.
+	 *
+	 * @return whether they all fit
+	 */
+	private boolean place(Integer[] order, int[] widths, int[] heights, int size, int[] xs, int[] ys) {
+		int x = 0, y = 0, rowHeight = 0;
+		for (int i = 0; i < order.length; i++) {
+			int region = order[i];
+			if (x + widths[region] > size) {
+				x = 0;
+				y += rowHeight + PADDING;
+				rowHeight = 0;
+			}
+			if (widths[region] > size || y + heights[region] > size) {
+				return false;
+			}
+			xs[region] = x;
+			ys[region] = y;
+			x += widths[region] + PADDING;
+			rowHeight = Math.max(rowHeight, heights[region]);
+		}
+		return true;
+	}
+
+	private void writePackFile(File output, String pageName, Array<SourceRegion> regions, int[] xs, int[] ys,
+			int[] widths, int[] heights) throws IOException {
+		Writer out = new OutputStreamWriter(new FileOutputStream(output), "UTF-8");
+		try {
+			out.write("\n" + pageName + "\n");
+			out.write("format: RGBA8888\n");
+			out.write("filter: Nearest,Nearest\n");
+			out.write("repeat: none\n");
+			for (int i = 0; i < regions.size; i++) {
+				SourceRegion region = regions.get(i);
+				out.write(region.name + "\n");
+				out.write("  rotate: false\n");
+				out.write("  xy: " + xs[i] + ", " + ys[i] + "\n");
+				out.write("  size: " + widths[i] + ", " + heights[i] + "\n");
+				out.write("  orig: " + widths[i] + ", " + heights[i] + "\n");
+				out.write("  offset: 0, 0\n");
+				out.write("  index: " + region.index + "\n");
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: AtlasPacker <assets directory> [output.atlas]");
+			return;
+		}
+		File assets = new File(args[0]);
+		File output = new File(args.length > 1 ? args[1] : new File(assets, GameAtlas.ATLAS_FILE).getPath());
+
+		long start = System.nanoTime();
+		int size = new AtlasPacker().pack(assets, output);
+		System.out.println(String.format("Packed %d regions into a %dx%d page at %s in %.1fms",
+				GameAtlas.getRegions().size, size, size, output.getPath(), (System.nanoTime() - start) / 1000000.0));
+	}
+
+}
@@ -0,0 +1,255 @@
+package com.awesome.namethislater.headless;
+
+import java.io.File;
+import java.util.Random;
+
+import com.awesome.namethislater.concurrent.BackgroundChunkLoader;
+import com.awesome.namethislater.concurrent.ParallelEnemyMover;
+import com.awesome.namethislater.controller.MikeController;
+import com.awesome.namethislater.controller.Simulation;
+import com.awesome.namethislater.io.MappedFileMapper;
+import com.awesome.namethislater.model.BinaryLevelLoader;
+import com.awesome.namethislater.model.ChunkManager;
+import com.awesome.namethislater.model.Enemy;
+import com.awesome.namethislater.model.EnemyStore;
+import com.awesome.namethislater.model.Level;
+import com.awesome.namethislater.model.PathFinder;
+import com.awesome.namethislater.model.World;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Runs the game without graphics as fast as possible, and reports how many updates it can run per second. The level is
+ * read from a TMX file or a level compiled by {@link LevelCompiler}, and Mike is moved around by a fixed input script.
+ * <p>
+ * Usage: HeadlessRunner &lt;level.tmx|level.lvl&gt; [ticks] [extra enemies] [threads] [all|chunks|background]
+ * [goal enemies]
+ * <p>
+ * With more than one thread, the enemies are moved on a {@link ParallelEnemyMover}. The fifth argument sets how a
+ * compiled level is read: every cell at once, in chunks on the update thread, or in chunks on a
+ * {@link BackgroundChunkLoader}. By default only big levels are read in chunks. The last argument gives that many
+ * enemies a tile to walk to whenever they have none, so the {@link PathFinder} is measured with the rest.
+ */
+public class HeadlessRunner {
+
+	private static final long DEFAULT_TICKS = 60 * 60 * 10; // Ten minutes of game time at the default tick rate
+	private static final long REPORT_INTERVAL = 60 * 60; // Print a report every minute of game time
+	private static final int SCRIPT_STEP = 30; // The number of ticks each step of the input script lasts
+	private static final long SEED = 1; // The seed used to place extra enemies
+	private static final int PLACE_ATTEMPTS = 1000; // The tries for each extra enemy to find a dry tile
+	private static final int GOAL_DISTANCE = 32; // How far from an enemy, in tiles, its goal can be on each axis
+
+	private final Simulation simulation;
+	private final MikeController controller;
+	private final Level level;
+	private final Random goalRandom = new Random(SEED);
+	private int goalEnemies; // The number of enemies, from the first, given goals
+
+	public HeadlessRunner(World world) {
+		simulation = new Simulation(world);
+		controller = simulation.getMikeController();
+		level = world.getLevel();
+	}
+
+	/**
+	 * Run the simulation for a number of ticks, printing a report every minute of game time.
+	 *
+	 * @param ticks
+	 *            The number of ticks to run.
+	 * @return The number of ticks run per second.
+	 */
+	public double run(long ticks) {
+		long start = System.nanoTime();
+		long last = start;
+		for (long tick = 0; tick < ticks; tick++) {
+			applyInput(tick);
+			if (tick % SCRIPT_STEP == 0) {
+				assignGoals();
+			}
+			simulation.tick();
+
+			if ((tick + 1) % REPORT_INTERVAL == 0) {
+				long now = System.nanoTime();
+				report("Minute " + ((tick + 1) / REPORT_INTERVAL), REPORT_INTERVAL, now - last);
+				last = now;
+			}
+		}
+		return report("Total", ticks, System.nanoTime() - start);
+	}
+
+	/**
+	 * Press and release keys on a fixed schedule. Mike walks in each direction in turn, jumps every few steps and
+	 * attacks every few more.
+	 */
+	private void applyInput(long tick) {
+		if (tick % SCRIPT_STEP != 0) {
+			return;
+		}
+		long step = tick / SCRIPT_STEP;
+		controller.releaseAll();
+		switch ((int) (step % 4)) {
+		case 0:
+			controller.upPressed();
+			break;
+		case 1:
+			controller.rightPressed();
+			break;
+		case 2:
+			controller.downPressed();
+			break;
+		case 3:
+			controller.leftPressed();
+			break;
+		}
+		if (step % 3 == 0) {
+			controller.jumpPressed();
+		}
+		if (step % 5 == 0) {
+			controller.attackPressed();
+		}
+	}
+
+	/**
+	 * Give each of the first few living enemies without a goal a dry tile near it to walk to. Each gets one try at
+	 * finding a dry tile, and the rest try again next time.
+	 */
+	private void assignGoals() {
+		EnemyStore enemies = level.getEnemies();
+		int count = Math.min(goalEnemies, enemies.size());
+		for (int i = 0; i < count; i++) {
+			Enemy enemy = enemies.get(i);
+			if (enemy.hasGoal() || enemy.isDead()) {
+				continue;
+			}
+			Rectangle bounds = enemy.getDamageBounds();
+			int x = (int) (bounds.x + bounds.width / 2) + goalRandom.nextInt(GOAL_DISTANCE * 2 + 1) - GOAL_DISTANCE;
+			int y = (int) (bounds.y + bounds.height / 2) + goalRandom.nextInt(GOAL_DISTANCE * 2 + 1) - GOAL_DISTANCE;
+			if (x >= 0 && y >= 0 && x < level.getWidth() && y < level.getHeight() && !level.isWater(x, y)) {
+				enemy.setGoal(x, y);
+			}
+		}
+	}
+
+	/**
+	 * @param goalEnemies
+	 *            The number of enemies, from the first, to keep giving goals to walk to.
+	 */
+	public void setGoalEnemies(int goalEnemies) {
+		this.goalEnemies = goalEnemies;
+	}
+
+	private double report(String name, long ticks, long nanos) {
+		double seconds = nanos / 1000000000.0;
+		double ticksPerSecond = ticks / seconds;
+		double gameSeconds = ticks * simulation.getTickTime();
+		System.out.println(String.format("%s: %d ticks in %.3fs, %.0f ticks/s, %.1fx real time", name, ticks, seconds,
+				ticksPerSecond, gameSeconds / seconds));
+		return ticksPerSecond;
+	}
+
+	/**
+	 * Add enemies at random places in the level that are not water. In a streamed level only the chunks around Mike's
+	 * starting position are loaded, so enemies are only placed there, and fewer may be added if there is little room.
+	 */
+	private static void addEnemies(Level level, int count) {
+		Vector2 start = level.getStartingPosition();
+		level.updateChunks(start.x, start.y);
+		Random random = new Random(SEED);
+		int added = 0;
+		long attempts = (long) count * PLACE_ATTEMPTS;
+		while (added < count && attempts-- > 0) {
+			int x = random.nextInt(level.getWidth());
+			int y = random.nextInt(level.getHeight());
+			if (!level.isWater(x, y)) {
+				level.getEnemies().add(new Enemy(new Vector2(x, y), random.nextLong()));
+				added++;
+			}
+		}
+		if (added < count) {
+			System.out.println("Only found room for " + added + " of " + count + " extra enemies");
+		}
+	}
+
+	/**
+	 * Read a level without its map and textures.
+	 *
+	 * @param stream
+	 *            "all" to read every cell of a compiled level, anything else to read it in chunks, or null to only read
+	 *            big levels in chunks.
+	 */
+	static Level loadLevel(FileHandle file, String stream) {
+		if (!BinaryLevelLoader.EXTENSION.equals(file.extension())) {
+			return new TmxLevelReader().read(file);
+		}
+		BinaryLevelLoader.setFileMapper(new MappedFileMapper());
+		if (stream == null) {
+			return new Level(file, false);
+		}
+		return new Level(file, false, !stream.equals("all"));
+	}
+
+	private static void reportChunks(ChunkManager chunks) {
+		Runtime runtime = Runtime.getRuntime();
+		System.out.println(String.format("Chunks: %d loaded, %d evicted, %d in memory (capacity %d), heap %.1fMB",
+				chunks.getLoads(), chunks.getEvictions(), chunks.getResidentCount(), chunks.getCapacity(),
+				(runtime.totalMemory() - runtime.freeMemory()) / (1024.0 * 1024.0)));
+	}
+
+	private static void reportPaths(PathFinder paths) {
+		int found = paths.getSearches();
+		System.out.println(String.format("Paths: %d searched, %d from the cache, %d over budget, %.1f nodes and %.1fus"
+				+ " per search, longest %.1fus", found, paths.getCacheHits(), paths.getBudgetStops(),
+				found == 0 ? 0.0 : paths.getExpandedNodes() / (double) found,
+				found == 0 ? 0.0 : paths.getSearchNanos() / 1000.0 / found, paths.getMaxSearchNanos() / 1000.0));
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: HeadlessRunner <level.tmx|level.lvl> [ticks] [extra enemies] [threads]"
+					+ " [all|chunks|background] [goal enemies]");
+			return;
+		}
+		long ticks = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_TICKS;
+		int enemies = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+		int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+		String stream = args.length > 4 ? args[4] : null;
+		int goals = args.length > 5 ? Integer.parseInt(args[5]) : 0;
+
+		long start = System.nanoTime();
+		Level level = loadLevel(new FileHandle(new File(args[0])), stream);
+		addEnemies(level, enemies);
+		if (level.isStreaming() && "background".equals(stream)) {
+			level.getChunks().setLoader(new BackgroundChunkLoader());
+			System.out.println("Loading chunks on a background thread");
+		}
+		World world = new World(level);
+		System.out.println(String.format("Loaded %dx%d level with %d enemies in %.1fms", level.getWidth(),
+				level.getHeight(), level.getEnemies().size(), (System.nanoTime() - start) / 1000000.0));
+
+		HeadlessRunner runner = new HeadlessRunner(world);
+		if (goals > 0) {
+			runner.setGoalEnemies(goals);
+			System.out.println("Giving " + goals + " enemies goals to walk to");
+		}
+		ParallelEnemyMover mover = null;
+		if (threads > 1) {
+			mover = new ParallelEnemyMover(threads);
+			runner.simulation.getWorldController().setMover(mover);
+			System.out.println("Moving enemies on " + threads + " threads");
+		}
+		runner.run(ticks);
+		if (mover != null) {
+			mover.dispose();
+		}
+		PathFinder paths = runner.simulation.getWorldController().getPathFinder();
+		if (paths != null) {
+			reportPaths(paths);
+		}
+		if (level.isStreaming()) {
+			reportChunks(level.getChunks());
+			level.getChunks().dispose();
+		}
+	}
+
+}
@@ -0,0 +1,312 @@
+package com.awesome.namethislater.headless;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import com.awesome.namethislater.io.MappedFileMapper;
+import com.awesome.namethislater.model.BinaryLevelLoader;
+import com.awesome.namethislater.model.ChunkManager;
+import com.awesome.namethislater.model.ChunkSource;
+import com.awesome.namethislater.model.Level;
+import com.awesome.namethislater.model.TileChunk;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+/**
+ * Compiles a TMX file into the binary level format read by {@link BinaryLevelLoader}. Run this whenever the map is
+ * edited in Tiled. The game loads the compiled level if it exists, and the TMX file otherwise.
+ * <p>
+ * Usage: LevelCompiler &lt;level.tmx&gt; [level.lvl]
+ */
+public class LevelCompiler {
+
+	private final XmlReader xml = new XmlReader();
+
+	/**
+	 * Compile a TMX file.
+	 *
+	 * @param tmx
+	 *            The TMX file to read.
+	 * @param output
+	 *            The file to write. Tileset images are stored relative to it.
+	 */
+	public void compile(File tmx, File output) throws IOException {
+		boolean compiled = false;
+		try {
+			write(tmx, output);
+			compiled = true;
+		} finally {
+			// Don't leave half a level behind for the game to load
+			if (!compiled) {
+				output.delete();
+			}
+		}
+	}
+
+	private void write(File tmx, File output) throws IOException {
+		FileHandle mapFile = new FileHandle(tmx);
+		Element map = parse(mapFile);
+		int width = map.getIntAttribute("width");
+		int height = map.getIntAttribute("height");
+		int tileWidth = map.getIntAttribute("tilewidth", 0);
+		int tileHeight = map.getIntAttribute("tileheight", 0);
+
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)));
+		try {
+			out.writeInt(BinaryLevelLoader.MAGIC);
+			out.writeInt(BinaryLevelLoader.VERSION);
+			out.writeInt(width);
+			out.writeInt(height);
+			out.writeInt(tileWidth);
+			out.writeInt(tileHeight);
+			writeSpawns(out, map, height * tileHeight, tileWidth, tileHeight);
+
+			// Read the tilesets first, because the flags come before them in the file
+			Array<Element> tilesets = new Array<Element>();
+			Array<FileHandle> tilesetFiles = new Array<FileHandle>();
+			int[] firstIds = new int[map.getChildrenByName("tileset").size];
+			byte[] flags = new byte[0];
+			for (Element tileset : map.getChildrenByName("tileset")) {
+				int firstId = tileset.getIntAttribute("firstgid", 1);
+				FileHandle file = mapFile;
+				String source = tileset.getAttribute("source", null);
+				if (source != null) {
+					file = mapFile.parent().child(source);
+					tileset = parse(file);
+				}
+				firstIds[tilesets.size] = firstId;
+				tilesets.add(tileset);
+				tilesetFiles.add(file);
+				flags = readFlags(tileset, firstId, flags);
+			}
+			out.writeInt(flags.length);
+			out.write(flags);
+
+			out.writeInt(tilesets.size);
+			for (int i = 0; i < tilesets.size; i++) {
+				Element tileset = tilesets.get(i);
+				Element image = tileset.getChildByName("image");
+				if (image == null) {
+					throw new GdxRuntimeException("Tilesets without an image are not supported: "
+							+ tileset.getAttribute("name", ""));
+				}
+				File imageFile = new File(tilesetFiles.get(i).file().getParentFile(), image.getAttribute("source"));
+				writeString(out, tileset.getAttribute("name", ""));
+				writeString(out, relativePath(output.getAbsoluteFile().getParentFile(), imageFile));
+				out.writeInt(firstIds[i]);
+				out.writeInt(tileset.getIntAttribute("tilewidth", tileWidth));
+				out.writeInt(tileset.getIntAttribute("tileheight", tileHeight));
+				out.writeInt(tileset.getIntAttribute("spacing", 0));
+				out.writeInt(tileset.getIntAttribute("margin", 0));
+			}
+
+			Array<Element> layers = map.getChildrenByName("layer");
+			out.writeInt(layers.size);
+			for (Element layer : layers) {
+				writeString(out, layer.getAttribute("name", ""));
+				out.writeByte(layer.getIntAttribute("visible", 1));
+				out.writeFloat(layer.getFloatAttribute("opacity", 1));
+				int[] ids = TmxLevelReader.readTileIds(layer.getChildByName("data"), width * height);
+				boolean shortIds = true;
+				for (int i = 0; i < ids.length && shortIds; i++) {
+					shortIds = (ids[i] & ~BinaryLevelLoader.FLIP_FLAGS) <= BinaryLevelLoader.SHORT_ID_MASK;
+				}
+				out.writeByte(shortIds ? 2 : 4);
+				// Tiled stores the rows from the top down, but the level counts y from the bottom up
+				for (int y = 0; y < height; y++) {
+					int row = height - 1 - y;
+					for (int x = 0; x < width; x++) {
+						int id = ids[row * width + x];
+						if (shortIds) {
+							int flips = (id & BinaryLevelLoader.FLIP_FLAGS) >>> 16;
+							out.writeShort((id & BinaryLevelLoader.SHORT_ID_MASK) | flips);
+						} else {
+							out.writeInt(id);
+						}
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Write Mike's starting position and the enemy positions from the spawn layer, the same way Level reads them from a
+	 * TMX file.
+	 */
+	private void writeSpawns(DataOutputStream out, Element map, int mapHeight, int tileWidth, int tileHeight)
+			throws IOException {
+		float startX = Level.DEFAULT_START_X;
+		float startY = Level.DEFAULT_START_Y;
+		FloatArray spawns = new FloatArray(Level.DEFAULT_ENEMY_SPAWNS);
+		for (Element group : map.getChildrenByName("objectgroup")) {
+			if (!Level.SPAWN_LAYER.equals(group.getAttribute("name", null))) {
+				continue;
+			}
+			spawns.clear();
+			for (Element object : group.getChildrenByName("object")) {
+				String type = object.getAttribute("type", object.getAttribute("name", null));
+				float x = object.getIntAttribute("x", 0) / (float) tileWidth;
+				float y = (mapHeight - object.getIntAttribute("y", 0) - object.getIntAttribute("height", 0))
+						/ (float) tileHeight;
+				if (Level.START_TYPE.equals(type)) {
+					startX = x;
+					startY = y;
+				} else if (Level.ENEMY_TYPE.equals(type)) {
+					spawns.add(x);
+					spawns.add(y);
+				}
+			}
+		}
+		out.writeFloat(startX);
+		out.writeFloat(startY);
+		out.writeInt(spawns.size / 2);
+		for (int i = 0; i < spawns.size; i++) {
+			out.writeFloat(spawns.get(i));
+		}
+	}
+
+	/**
+	 * Add the flags of every tile in a tileset with a "water" or "animation" property.
+	 *
+	 * @return The flags, grown if a tile's id is past the end.
+	 */
+	private byte[] readFlags(Element tileset, int firstId, byte[] flags) {
+		for (Element tile : tileset.getChildrenByName("tile")) {
+			Element properties = tile.getChildByName("properties");
+			if (properties == null) {
+				continue;
+			}
+			int flag = 0;
+			for (Element property : properties.getChildrenByName("property")) {
+				String name = property.getAttribute("name", null);
+				String value = property.getAttribute("value", null);
+				if ("water".equals(name)) {
+					flag |= BinaryLevelLoader.FLAG_WATER;
+				} else if ("animation".equals(name) && "grass".equals(value)) {
+					flag |= BinaryLevelLoader.FLAG_ANIMATION_GRASS;
+				} else if ("animation".equals(name) && "water".equals(value)) {
+					flag |= BinaryLevelLoader.FLAG_ANIMATION_WATER;
+				}
+			}
+			if (flag == 0) {
+				continue;
+			}
+			int id = firstId + tile.getIntAttribute("id");
+			if (id >= flags.length) {
+				byte[] grown = new byte[id + 1];
+				System.arraycopy(flags, 0, grown, 0, flags.length);
+				flags = grown;
+			}
+			flags[id] |= flag;
+		}
+		return flags;
+	}
+
+	private void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes("UTF-8");
+		out.writeShort(bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * Get the path of a file relative to a directory, with forward slashes so it can be used on any platform.
+	 */
+	private static String relativePath(File directory, File file) throws IOException {
+		String[] from = directory.getCanonicalPath().replace('\\', '/').split("/");
+		String[] to = file.getCanonicalPath().replace('\\', '/').split("/");
+		int common = 0;
+		while (common < from.length && common < to.length - 1 && from[common].equals(to[common])) {
+			common++;
+		}
+		StringBuilder path = new StringBuilder();
+		for (int i = common; i < from.length; i++) {
+			path.append("../");
+		}
+		for (int i = common; i < to.length; i++) {
+			if (i > common) {
+				path.append('/');
+			}
+			path.append(to[i]);
+		}
+		return path.toString();
+	}
+
+	private Element parse(FileHandle file) {
+		try {
+			return xml.parse(file);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Error reading " + file.path(), e);
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: LevelCompiler <level.tmx> [level.lvl]");
+			return;
+		}
+		File tmx = new File(args[0]);
+		File output;
+		if (args.length > 1) {
+			output = new File(args[1]);
+		} else {
+			String name = tmx.getName();
+			int dot = name.lastIndexOf('.');
+			output = new File(tmx.getAbsoluteFile().getParentFile(), (dot > 0 ? name.substring(0, dot) : name) + "."
+					+ BinaryLevelLoader.EXTENSION);
+		}
+
+		long start = System.nanoTime();
+		new LevelCompiler().compile(tmx, output);
+		System.out.println(String.format("Compiled %s to %s (%d bytes) in %.1fms", tmx.getPath(), output.getPath(),
+				output.length(), (System.nanoTime() - start) / 1000000.0));
+
+		// Check the compiled level against the TMX file
+		BinaryLevelLoader.setFileMapper(new MappedFileMapper());
+		start = System.nanoTime();
+		Level compiled = new Level(new FileHandle(output), false, false);
+		double compiledMillis = (System.nanoTime() - start) / 1000000.0;
+		start = System.nanoTime();
+		Level original = new TmxLevelReader().read(new FileHandle(tmx));
+		double tmxMillis = (System.nanoTime() - start) / 1000000.0;
+		for (int y = 0; y < original.getHeight(); y++) {
+			for (int x = 0; x < original.getWidth(); x++) {
+				if (compiled.isWater(x, y) != original.isWater(x, y)) {
+					throw new GdxRuntimeException("The compiled level does not match the TMX file at " + x + ", " + y);
+				}
+			}
+		}
+		System.out.println(String.format("Collision data matches. Loaded in %.1fms, TMX in %.1fms", compiledMillis,
+				tmxMillis));
+
+		// Check the chunks a streamed level reads against the whole level
+		start = System.nanoTime();
+		Level streamed = new Level(new FileHandle(output), false, true);
+		ChunkSource source = streamed.getChunks().getSource();
+		int size = ChunkManager.CHUNK_SIZE;
+		for (int chunkY = 0; chunkY * size < original.getHeight(); chunkY++) {
+			for (int chunkX = 0; chunkX * size < original.getWidth(); chunkX++) {
+				TileChunk chunk = source.readChunk(chunkX, chunkY, size);
+				for (int y = 0; y < size && chunkY * size + y < original.getHeight(); y++) {
+					for (int x = 0; x < size && chunkX * size + x < original.getWidth(); x++) {
+						if (chunk.isWater(x, y) != original.isWater(chunkX * size + x, chunkY * size + y)) {
+							throw new GdxRuntimeException("Chunk " + chunkX + ", " + chunkY
+									+ " does not match the TMX file at " + x + ", " + y);
+						}
+					}
+				}
+			}
+		}
+		System.out.println(String.format("Chunks match. Read every chunk in %.1fms",
+				(System.nanoTime() - start) / 1000000.0));
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.awesome.namethislater.headless;
+
+import java.io.File;
+
+import com.awesome.namethislater.controller.InputPlayer;
+import com.awesome.namethislater.controller.InputRecording;
+import com.awesome.namethislater.controller.Simulation;
+import com.awesome.namethislater.model.Enemy;
+import com.awesome.namethislater.model.EnemyStore;
+import com.awesome.namethislater.model.Level;
+import com.awesome.namethislater.model.Mike;
+import com.awesome.namethislater.model.World;
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Plays a recording saved from the game (press R) without graphics, as fast as possible. Each run starts the level
+ * again from the recorded seed, and reports the updates per second and a hash of where Mike and the enemies ended up.
+ * If the hashes of the runs differ, or differ from an expected hash, the game no longer plays the same way and the
+ * runner exits with an error.
+ * <p>
+ * Usage: ReplayRunner &lt;recording.rec&gt; [level.tmx|level.lvl] [runs] [expected hash]
+ * <p>
+ * The level defaults to the path stored in the recording.
+ */
+public class ReplayRunner {
+
+	private static final int DEFAULT_RUNS = 3;
+
+	/**
+	 * Play a recording once from the start of the level.
+	 *
+	 * @return the hash of the world after the last update
+	 */
+	public static long play(InputRecording recording, FileHandle levelFile) {
+		Level level = HeadlessRunner.loadLevel(levelFile, null);
+		World world = new World(level, recording.getSeed());
+		InputPlayer player = new InputPlayer(recording, new Simulation(world));
+		long start = System.nanoTime();
+		int ticks = player.playAll();
+		long nanos = System.nanoTime() - start;
+		long hash = hash(world);
+		System.out.println(String.format("%d ticks in %.3fs, %.0f ticks/s, hash %d", ticks, nanos / 1e9, ticks
+				/ (nanos / 1e9), hash));
+		if (level.isStreaming()) {
+			level.getChunks().dispose();
+		}
+		return hash;
+	}
+
+	/**
+	 * @return a hash of Mike's position, health and state, and the position and health of every enemy
+	 */
+	public static long hash(World world) {
+		Mike mike = world.getMike();
+		long hash = Float.floatToIntBits(mike.getPosition().x);
+		hash = hash * 31 + Float.floatToIntBits(mike.getPosition().y);
+		hash = hash * 31 + Float.floatToIntBits(mike.getHealth());
+		hash = hash * 31 + mike.getState().ordinal();
+		EnemyStore enemies = world.getLevel().getEnemies();
+		hash = hash * 31 + enemies.size();
+		for (int i = 0; i < enemies.size(); i++) {
+			Enemy enemy = enemies.get(i);
+			hash = hash * 31 + Float.floatToIntBits(enemy.getPosition().x);
+			hash = hash * 31 + Float.floatToIntBits(enemy.getPosition().y);
+			hash = hash * 31 + Float.floatToIntBits(enemy.getHealth());
+		}
+		return hash;
+	}
+
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.out.println("Usage: ReplayRunner <recording.rec> [level.tmx|level.lvl] [runs] [expected hash]");
+			return;
+		}
+		InputRecording recording = InputRecording.load(new FileHandle(new File(args[0])));
+		FileHandle levelFile = new FileHandle(new File(args.length > 1 ? args[1] : recording.getLevelPath()));
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_RUNS;
+		Long expected = args.length > 3 ? Long.valueOf(args[3]) : null;
+		System.out.println(String.format("%s: %d ticks, %d key changes, seed %d, level %s", args[0],
+				recording.getTicks(), recording.getChanges(), recording.getSeed(), levelFile.path()));
+
+		boolean same = true;
+		for (int run = 0; run < runs; run++) {
+			long hash = play(recording, levelFile);
+			if (expected == null) {
+				expected = Long.valueOf(hash);
+			} else if (hash != expected.longValue()) {
+				same = false;
+			}
+		}
+		if (!same) {
+			System.out.println("Replay diverged: expected hash " + expected);
+			System.exit(1);
+		}
+	}
+
+}
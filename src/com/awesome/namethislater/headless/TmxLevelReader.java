@@ -0,0 +1,172 @@
+package com.awesome.namethislater.headless;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.awesome.namethislater.model.Level;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Base64Coder;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+/**
+ * Reads the collision data out of a TMX file without loading any textures. This gives a {@link Level} that the
+ * controllers can run on without a GL context.
+ */
+public class TmxLevelReader {
+
+	private static final int FLIP_FLAGS = 0xE0000000; // The bits Tiled uses to flip a tile
+	private static final String LAYER_NAME = "background"; // The layer with the water tiles
+
+	private final XmlReader xml = new XmlReader();
+
+	/**
+	 * Read a level from a TMX file.
+	 *
+	 * @param file
+	 *            The TMX file to read.
+	 * @return A level with the size and water tiles of the map.
+	 */
+	public Level read(FileHandle file) {
+		Element map = parse(file);
+		int width = map.getIntAttribute("width");
+		int height = map.getIntAttribute("height");
+
+		IntArray waterIds = new IntArray();
+		for (Element tileset : map.getChildrenByName("tileset")) {
+			readWaterIds(file, tileset, waterIds);
+		}
+
+		Element layer = findLayer(map);
+		int[] ids = readTileIds(layer.getChildByName("data"), width * height);
+
+		// Tiled stores the rows from the top down, but the level counts y from the bottom up
+		Bits waterTiles = new Bits(width * height);
+		for (int row = 0; row < height; row++) {
+			for (int x = 0; x < width; x++) {
+				int id = ids[row * width + x] & ~FLIP_FLAGS;
+				if (id != 0 && waterIds.contains(id)) {
+					int y = height - 1 - row;
+					waterTiles.set(y * width + x);
+				}
+			}
+		}
+		return new Level(width, height, waterTiles);
+	}
+
+	/**
+	 * Add the global id of every tile with the "water" property in a tileset.
+	 */
+	private void readWaterIds(FileHandle mapFile, Element tileset, IntArray waterIds) {
+		int firstId = tileset.getIntAttribute("firstgid", 1);
+		// The tiles may be in a separate TSX file
+		String source = tileset.getAttribute("source", null);
+		if (source != null) {
+			tileset = parse(mapFile.parent().child(source));
+		}
+		for (Element tile : tileset.getChildrenByName("tile")) {
+			Element properties = tile.getChildByName("properties");
+			if (properties == null) {
+				continue;
+			}
+			for (Element property : properties.getChildrenByName("property")) {
+				if ("water".equals(property.getAttribute("name", null))) {
+					waterIds.add(firstId + tile.getIntAttribute("id"));
+					break;
+				}
+			}
+		}
+	}
+
+	private Element findLayer(Element map) {
+		Array<Element> layers = map.getChildrenByName("layer");
+		if (layers.size == 0) {
+			throw new GdxRuntimeException("The map does not have any tile layers");
+		}
+		for (Element layer : layers) {
+			if (LAYER_NAME.equals(layer.getAttribute("name", null))) {
+				return layer;
+			}
+		}
+		return layers.first();
+	}
+
+	/**
+	 * Read the tile ids of a layer, in any of the encodings Tiled can save. The ids are in the order Tiled stores them,
+	 * from the top row down, with the flip flags left in.
+	 */
+	static int[] readTileIds(Element data, int count) {
+		int[] ids = new int[count];
+		String encoding = data.getAttribute("encoding", null);
+		if (encoding == null) {
+			Array<Element> tiles = data.getChildrenByName("tile");
+			for (int i = 0; i < count && i < tiles.size; i++) {
+				ids[i] = (int) Long.parseLong(tiles.get(i).getAttribute("gid", "0"));
+			}
+		} else if (encoding.equals("csv")) {
+			String[] values = data.getText().split(",");
+			for (int i = 0; i < count && i < values.length; i++) {
+				ids[i] = (int) Long.parseLong(values[i].trim());
+			}
+		} else if (encoding.equals("base64")) {
+			byte[] bytes = inflate(Base64Coder.decode(data.getText().trim()), data.getAttribute("compression", null));
+			for (int i = 0; i < count && i * 4 + 3 < bytes.length; i++) {
+				int b = i * 4;
+				ids[i] = (bytes[b] & 0xFF) | (bytes[b + 1] & 0xFF) << 8 | (bytes[b + 2] & 0xFF) << 16
+						| (bytes[b + 3] & 0xFF) << 24;
+			}
+		} else {
+			throw new GdxRuntimeException("Unsupported TMX encoding: " + encoding);
+		}
+		return ids;
+	}
+
+	private static byte[] inflate(byte[] bytes, String compression) {
+		if (compression == null) {
+			return bytes;
+		}
+		InputStream input = null;
+		try {
+			if (compression.equals("zlib")) {
+				input = new InflaterInputStream(new ByteArrayInputStream(bytes));
+			} else if (compression.equals("gzip")) {
+				input = new GZIPInputStream(new ByteArrayInputStream(bytes));
+			} else {
+				throw new GdxRuntimeException("Unsupported TMX compression: " + compression);
+			}
+			ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length * 4);
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				output.write(buffer, 0, read);
+			}
+			return output.toByteArray();
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Error decompressing the TMX layer", e);
+		} finally {
+			if (input != null) {
+				try {
+					input.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	private Element parse(FileHandle file) {
+		try {
+			return xml.parse(file);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Error reading " + file.path(), e);
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.awesome.namethislater.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import com.awesome.namethislater.model.BinaryLevelLoader;
+import com.awesome.namethislater.model.BinaryLevelLoader.FileMapper;
+import com.badlogic.gdx.Files.FileType;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Maps level files into memory with NIO, so the operating system only reads the pages the loader touches. Files that
+ * are not on the file system, such as classpath files or internal files packed in a jar, are read into memory instead.
+ * <p>
+ * Uses java.nio.channels, so this is excluded from the GWT module. Install it with
+ * {@link BinaryLevelLoader#setFileMapper(FileMapper)}.
+ */
+public class MappedFileMapper implements FileMapper {
+
+	@Override
+	public ByteBuffer map(FileHandle file) {
+		File path = file.type() == FileType.Classpath ? null : file.file();
+		if (path == null || !path.isFile()) {
+			return ByteBuffer.wrap(file.readBytes());
+		}
+		RandomAccessFile input = null;
+		try {
+			input = new RandomAccessFile(path, "r");
+			FileChannel channel = input.getChannel();
+			// The mapping stays valid after the channel is closed
+			return channel.map(MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Error mapping " + file.path(), e);
+		} finally {
+			if (input != null) {
+				try {
+					input.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+}
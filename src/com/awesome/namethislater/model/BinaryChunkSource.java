@@ -0,0 +1,68 @@
+package com.awesome.namethislater.model;
+
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.utils.Bits;
+
+/**
+ * Reads the chunks of a compiled level straight from the level file. Only the cells of the chunk being read are
+ * touched, so a mapped file only needs the pages near Mike in memory.
+ */
+public class BinaryChunkSource implements ChunkSource {
+
+	private final ByteBuffer buffer; // The whole level file. Only read with absolute gets, so threads can share it
+	private final int width, height; // The size of the level, in tiles
+	private final int[] layerData; // The position in the file of the first cell of each layer
+	private final int[] cellSizes; // The bytes for each cell of each layer
+	private final byte[] flags; // The flags for each tile id
+	private final int collisionLayer; // The layer with the water tiles
+
+	BinaryChunkSource(ByteBuffer buffer, int width, int height, int[] layerData, int[] cellSizes, byte[] flags,
+			int collisionLayer) {
+		this.buffer = buffer;
+		this.width = width;
+		this.height = height;
+		this.layerData = layerData;
+		this.cellSizes = cellSizes;
+		this.flags = flags;
+		this.collisionLayer = collisionLayer;
+	}
+
+	@Override
+	public TileChunk readChunk(int chunkX, int chunkY, int size) {
+		int startX = chunkX * size;
+		int startY = chunkY * size;
+		int endX = Math.min(width, startX + size);
+		int endY = Math.min(height, startY + size);
+
+		int[][] layerIds = new int[layerData.length][size * size];
+		Bits waterTiles = new Bits(size * size);
+		for (int layer = 0; layer < layerData.length; layer++) {
+			int[] ids = layerIds[layer];
+			int data = layerData[layer];
+			int cellSize = cellSizes[layer];
+			for (int y = startY; y < endY; y++) {
+				int row = y * width;
+				int local = (y - startY) * size - startX;
+				for (int x = startX; x < endX; x++) {
+					ids[local + x] = BinaryLevelLoader.readCell(buffer, data, cellSize, row + x);
+				}
+			}
+			if (layer == collisionLayer) {
+				for (int i = 0; i < ids.length; i++) {
+					int id = ids[i] & ~BinaryLevelLoader.FLIP_FLAGS;
+					if (id < flags.length && (flags[id] & BinaryLevelLoader.FLAG_WATER) != 0) {
+						waterTiles.set(i);
+					}
+				}
+			}
+		}
+		return new TileChunk(chunkX, chunkY, size, layerIds, waterTiles);
+	}
+
+	@Override
+	public int getLayerCount() {
+		return layerData.length;
+	}
+
+}
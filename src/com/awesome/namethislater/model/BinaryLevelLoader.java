@@ -0,0 +1,405 @@
+package com.awesome.namethislater.model;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.ImageResolver;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.AnimatedTiledMapTile;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Loads a level compiled from a TMX file by LevelCompiler. The file holds the tile ids of every layer with the
+ * collision and animation flags of each tile already worked out, so loading it only copies numbers out of a buffer.
+ * <p>
+ * The file layout, with every value big-endian:
+ *
+ * <pre>
+ * int      magic, version
+ * int      width, height, tile width, tile height
+ * float    start x, start y
+ * int      spawn count, then float x and y for each enemy
+ * int      flag count, then a byte of flags for each tile id
+ * int      tileset count, then for each: string name, string image,
+ *          int first id, tile width, tile height, spacing, margin
+ * int      layer count, then for each: string name, byte visible, float opacity,
+ *          byte cell size, an id for each cell
+ * </pre>
+ *
+ * Strings are a short length followed by UTF-8 bytes. The cells of a layer go along each row, starting from the bottom
+ * row, so the index of a cell is (y * width + x) like the water tiles of a level. The ids keep the flip flags Tiled
+ * stores in the top bits. A layer whose ids all fit in {@link #SHORT_ID_MASK} is stored with a short for each cell, and
+ * the flip flags moved down to the top bits of the short. Otherwise each cell is an int.
+ * <p>
+ * A streamed level does not read its layers when it is loaded. The cells are read a chunk at a time by a
+ * {@link BinaryChunkSource} as Mike gets close to them, and the map only gets an empty layer for each layer in the
+ * file, which holds its name, visibility and opacity for the renderer.
+ */
+public class BinaryLevelLoader {
+
+	public static final String EXTENSION = "lvl";
+	public static final int MAGIC = 0x4E544C56; // "NTLV"
+	public static final int VERSION = 1;
+
+	/** Tile Flags **/
+	public static final int FLAG_WATER = 1; // The tile can not be walked on
+	public static final int FLAG_ANIMATION_GRASS = 2; // The tile is a frame of the grass animation
+	public static final int FLAG_ANIMATION_WATER = 4; // The tile is a frame of the water animation
+
+	/** Tile Id Flags **/
+	public static final int FLIP_HORIZONTALLY = 0x80000000;
+	public static final int FLIP_VERTICALLY = 0x40000000;
+	public static final int FLIP_DIAGONALLY = 0x20000000;
+	public static final int FLIP_FLAGS = FLIP_HORIZONTALLY | FLIP_VERTICALLY | FLIP_DIAGONALLY;
+	public static final int SHORT_ID_MASK = 0x1FFF; // The largest id that can be stored in a short cell
+
+	public static final String COLLISION_LAYER = "background"; // The layer with the water tiles
+	private static final float WATER_FRAME_DURATION = 1f; // The time each frame of the water animation is shown
+
+	/**
+	 * Gets the bytes of a level file. The default reads the whole file into memory, which works on every platform. The
+	 * desktop can map the file instead, so only the parts that are read are loaded.
+	 */
+	public interface FileMapper {
+
+		/**
+		 * @return the contents of the file. The position and limit of the buffer cover the whole file.
+		 */
+		public ByteBuffer map(FileHandle file);
+
+	}
+
+	private static FileMapper mapper = new FileMapper() {
+		@Override
+		public ByteBuffer map(FileHandle file) {
+			return ByteBuffer.wrap(file.readBytes());
+		}
+	};
+
+	/**
+	 * Read the id of a cell, with its flip flags, from a layer of short or int cells.
+	 */
+	public static int readCell(ByteBuffer buffer, int data, int cellSize, int cell) {
+		if (cellSize == 2) {
+			int value = buffer.getShort(data + cell * 2) & 0xFFFF;
+			return (value & SHORT_ID_MASK) | (value & ~SHORT_ID_MASK) << 16;
+		}
+		return buffer.getInt(data + cell * 4);
+	}
+
+	/**
+	 * Read a level file into a level. Levels are loaded through {@link Level#Level(FileHandle, boolean, boolean)}.
+	 *
+	 * @param loadMap
+	 *            Whether to build the tiled map and load its textures. Without the map, only the collision layer is
+	 *            read from the file, which is enough to run the controllers.
+	 * @param streamCells
+	 *            Levels with more cells than this have their layers read in chunks as they are needed, instead of all
+	 *            at once.
+	 * @param images
+	 *            Gets the tileset textures, which have already been loaded, by the path of each image. If null, the
+	 *            textures are loaded here and belong to the map.
+	 */
+	void load(FileHandle file, Level level, boolean loadMap, int streamCells, ImageResolver images) {
+		ByteBuffer buffer = open(file);
+		int width = buffer.getInt();
+		int height = buffer.getInt();
+		int tileWidth = buffer.getInt();
+		int tileHeight = buffer.getInt();
+		Vector2 start = new Vector2(buffer.getFloat(), buffer.getFloat());
+		boolean stream = (long) width * height > streamCells;
+
+		int spawnValues = buffer.getInt() * 2;
+		FloatArray spawns = new FloatArray(spawnValues);
+		for (int i = 0; i < spawnValues; i++) {
+			spawns.add(buffer.getFloat());
+		}
+
+		byte[] flags = new byte[buffer.getInt()];
+		buffer.get(flags);
+
+		TiledMap map = loadMap ? new TiledMap() : null;
+		Array<Texture> textures = new Array<Texture>();
+		int tilesets = buffer.getInt();
+		for (int i = 0; i < tilesets; i++) {
+			String name = readString(buffer);
+			String image = readString(buffer);
+			int firstId = buffer.getInt();
+			int setTileWidth = buffer.getInt();
+			int setTileHeight = buffer.getInt();
+			int spacing = buffer.getInt();
+			int margin = buffer.getInt();
+			if (map != null) {
+				map.getTileSets().addTileSet(
+						loadTileSet(file.parent(), name, image, firstId, setTileWidth, setTileHeight, spacing, margin,
+								flags, images, textures));
+			}
+		}
+		Array<StaticTiledMapTile> waterFrames = new Array<StaticTiledMapTile>();
+		AnimatedTiledMapTile animatedWater = null;
+		if (map != null) {
+			map.setOwnedResources(textures);
+			setSize(map, width, height, tileWidth, tileHeight);
+		}
+		if (map != null && !stream) {
+			// Build the water animation from its frames, in id order. A streamed map builds it in ChunkedMapRenderer
+			for (int id = 0; id < flags.length; id++) {
+				TiledMapTile tile = map.getTileSets().getTile(id);
+				if ((flags[id] & FLAG_ANIMATION_WATER) != 0 && tile instanceof StaticTiledMapTile) {
+					waterFrames.add((StaticTiledMapTile) tile);
+				}
+			}
+			if (waterFrames.size > 0) {
+				animatedWater = new AnimatedTiledMapTile(WATER_FRAME_DURATION, waterFrames);
+				for (TiledMapTile tile : waterFrames) {
+					animatedWater.getProperties().putAll(tile.getProperties());
+				}
+			}
+		}
+
+		Bits waterTiles = stream ? null : new Bits(width * height);
+		int cells = width * height;
+		int layers = buffer.getInt();
+		int collisionLayer = findCollisionLayer(buffer, layers, cells);
+		int[] layerData = new int[layers];
+		int[] cellSizes = new int[layers];
+		for (int i = 0; i < layers; i++) {
+			String name = readString(buffer);
+			boolean visible = buffer.get() != 0;
+			float opacity = buffer.getFloat();
+			int cellSize = buffer.get();
+			int data = buffer.position();
+			layerData[i] = data;
+			cellSizes[i] = cellSize;
+			if (i == collisionLayer && !stream) {
+				for (int cell = 0; cell < cells; cell++) {
+					int id = readCell(buffer, data, cellSize, cell) & ~FLIP_FLAGS;
+					if (id < flags.length && (flags[id] & FLAG_WATER) != 0) {
+						waterTiles.set(cell);
+					}
+				}
+			}
+			if (map != null && stream) {
+				MapLayer layer = new MapLayer();
+				layer.setName(name);
+				layer.setVisible(visible);
+				layer.setOpacity(opacity);
+				map.getLayers().add(layer);
+			} else if (map != null) {
+				TiledMapTileLayer layer = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+				layer.setName(name);
+				layer.setVisible(visible);
+				layer.setOpacity(opacity);
+				readCells(buffer, data, cellSize, layer, map, flags, COLLISION_LAYER.equals(name) ? animatedWater
+						: null);
+				map.getLayers().add(layer);
+			}
+			buffer.position(data + cells * cellSize);
+		}
+		ChunkManager chunks = null;
+		if (stream) {
+			chunks = new ChunkManager(new BinaryChunkSource(buffer, width, height, layerData, cellSizes, flags,
+					collisionLayer), width, height);
+		}
+		level.setup(width, height, waterTiles, chunks, map, start, spawns);
+	}
+
+	/**
+	 * Map a level file and check that it was compiled for this version. The buffer is left after the version.
+	 */
+	private static ByteBuffer open(FileHandle file) {
+		ByteBuffer buffer = mapper.map(file);
+		if (buffer.getInt() != MAGIC) {
+			throw new GdxRuntimeException(file.path() + " is not a compiled level");
+		}
+		int version = buffer.getInt();
+		if (version != VERSION) {
+			throw new GdxRuntimeException(file.path() + " was compiled for version " + version + ", expected " + VERSION
+					+ ". Run LevelCompiler again.");
+		}
+		return buffer;
+	}
+
+	/**
+	 * Read the tileset images a level needs, without reading its layers. Used to load the textures before the level.
+	 *
+	 * @return the image of each tileset
+	 */
+	public static Array<FileHandle> getTilesetImages(FileHandle file) {
+		ByteBuffer buffer = open(file);
+		buffer.position(buffer.position() + 16 + 8); // The size, the tile size and the start
+		buffer.position(buffer.position() + buffer.getInt() * 8); // The enemy spawns
+		buffer.position(buffer.position() + buffer.getInt()); // The flags
+
+		Array<FileHandle> images = new Array<FileHandle>();
+		int tilesets = buffer.getInt();
+		for (int i = 0; i < tilesets; i++) {
+			readString(buffer);
+			images.add(getImageFile(file.parent(), readString(buffer)));
+			buffer.position(buffer.position() + 20); // The first id, the tile size, the spacing and the margin
+		}
+		return images;
+	}
+
+	// The textures are looked up by this path once loaded, so it is built in one place
+	private static FileHandle getImageFile(FileHandle directory, String image) {
+		return directory.child(image);
+	}
+
+	private void setSize(TiledMap map, int width, int height, int tileWidth, int tileHeight) {
+		MapProperties properties = map.getProperties();
+		properties.put("width", width);
+		properties.put("height", height);
+		properties.put("tilewidth", tileWidth);
+		properties.put("tileheight", tileHeight);
+	}
+
+	/**
+	 * Find the layer with the water tiles, which is the one named for collisions or else the first, like
+	 * TmxLevelReader. Only the layer names are read, and the buffer is left where it was.
+	 */
+	private int findCollisionLayer(ByteBuffer buffer, int layers, int cells) {
+		int start = buffer.position();
+		int found = 0;
+		for (int i = 0; i < layers; i++) {
+			if (COLLISION_LAYER.equals(readString(buffer))) {
+				found = i;
+				break;
+			}
+			buffer.position(buffer.position() + 5); // Skip the visible flag and the opacity
+			int cellSize = buffer.get();
+			buffer.position(buffer.position() + cells * cellSize);
+		}
+		buffer.position(start);
+		return found;
+	}
+
+	private void readCells(ByteBuffer buffer, int data, int cellSize, TiledMapTileLayer layer, TiledMap map,
+			byte[] flags, AnimatedTiledMapTile animatedWater) {
+		int width = layer.getWidth();
+		int height = layer.getHeight();
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int value = readCell(buffer, data, cellSize, y * width + x);
+				int id = value & ~FLIP_FLAGS;
+				TiledMapTile tile = map.getTileSets().getTile(id);
+				if (tile == null) {
+					continue;
+				}
+				Cell cell = createCell((value & FLIP_HORIZONTALLY) != 0, (value & FLIP_VERTICALLY) != 0,
+						(value & FLIP_DIAGONALLY) != 0);
+				if (animatedWater != null && id < flags.length && (flags[id] & FLAG_ANIMATION_WATER) != 0) {
+					cell.setTile(animatedWater);
+				} else {
+					cell.setTile(tile);
+				}
+				layer.setCell(x, y, cell);
+			}
+		}
+	}
+
+	/**
+	 * Create a cell with the flips Tiled stores for a tile, the same way TmxMapLoader does for a map with y going up.
+	 */
+	private Cell createCell(boolean flipHorizontally, boolean flipVertically, boolean flipDiagonally) {
+		Cell cell = new Cell();
+		if (flipDiagonally) {
+			if (flipHorizontally && flipVertically) {
+				cell.setFlipHorizontally(true);
+				cell.setRotation(Cell.ROTATE_270);
+			} else if (flipHorizontally) {
+				cell.setRotation(Cell.ROTATE_270);
+			} else if (flipVertically) {
+				cell.setRotation(Cell.ROTATE_90);
+			} else {
+				cell.setFlipVertically(true);
+				cell.setRotation(Cell.ROTATE_270);
+			}
+		} else {
+			cell.setFlipHorizontally(flipHorizontally);
+			cell.setFlipVertically(flipVertically);
+		}
+		return cell;
+	}
+
+	/**
+	 * Cut a tileset's texture into tiles, and give each tile the properties its flags stand for.
+	 */
+	private TiledMapTileSet loadTileSet(FileHandle directory, String name, String image, int firstId, int tileWidth,
+			int tileHeight, int spacing, int margin, byte[] flags, ImageResolver images, Array<Texture> textures) {
+		FileHandle imageFile = getImageFile(directory, image);
+		Texture texture;
+		if (images != null) {
+			texture = images.getImage(imageFile.path()).getTexture();
+		} else {
+			texture = new Texture(imageFile);
+			textures.add(texture);
+		}
+		TiledMapTileSet tileset = new TiledMapTileSet();
+		tileset.setName(name);
+		MapProperties properties = tileset.getProperties();
+		properties.put("firstgid", firstId);
+		properties.put("imagesource", image);
+		properties.put("tilewidth", tileWidth);
+		properties.put("tileheight", tileHeight);
+		properties.put("margin", margin);
+		properties.put("spacing", spacing);
+
+		int stopWidth = texture.getWidth() - tileWidth;
+		int stopHeight = texture.getHeight() - tileHeight;
+		int id = firstId;
+		for (int y = margin; y <= stopHeight; y += tileHeight + spacing) {
+			for (int x = margin; x <= stopWidth; x += tileWidth + spacing) {
+				TextureRegion region = new TextureRegion(texture, x, y, tileWidth, tileHeight);
+				StaticTiledMapTile tile = new StaticTiledMapTile(region);
+				tile.setId(id);
+				if (id < flags.length) {
+					if ((flags[id] & FLAG_WATER) != 0) {
+						tile.getProperties().put("water", "true");
+					}
+					if ((flags[id] & FLAG_ANIMATION_GRASS) != 0) {
+						tile.getProperties().put("animation", "grass");
+					}
+					if ((flags[id] & FLAG_ANIMATION_WATER) != 0) {
+						tile.getProperties().put("animation", "water");
+					}
+				}
+				tileset.putTile(id++, tile);
+			}
+		}
+		return tileset;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		try {
+			return new String(bytes, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new GdxRuntimeException(e);
+		}
+	}
+
+	/**
+	 * @param mapper
+	 *            Gets the bytes of the level files. Set this once when the game starts.
+	 */
+	public static void setFileMapper(FileMapper mapper) {
+		BinaryLevelLoader.mapper = mapper;
+	}
+
+}
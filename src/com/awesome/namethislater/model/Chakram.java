@@ -3,8 +3,9 @@ package com.awesome.namethislater.model;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Pool.Poolable;
 
-public class Chakram extends Drawable implements IDrawable {
+public class Chakram extends Drawable implements IDrawable, Poolable {
 
 	public static float SIZE = 0.5f; // The size of the chakram
 	private static final float ACCELERATION = 4f; // The speed the chakram is thrown
@@ -34,8 +35,32 @@ public class Chakram extends Drawable implements IDrawable {
 	 */
 	public Chakram(Vector2 position, Mike mike, float airHeight) {
 		super(position, SIZE);
+		init(position.x, position.y, mike, airHeight);
+	}
+
+	/**
+	 * Create an empty chakram. Used by the projectile pool, which calls {@link #init(float, float, Mike, float)} before
+	 * the chakram is thrown.
+	 */
+	public Chakram() {
+		super(new Vector2(), SIZE);
+	}
+
+	/**
+	 * Set up the chakram to be thrown. Set the x and y coordinates, the sprite that threw the chakram, and the height in the air that the chakram is.
+	 * 
+	 * @param x
+	 *            The x coordinate of the chakram.
+	 * @param y
+	 *            The y coordinate of the chakram.
+	 * @param mike
+	 *            The sprite that threw the chakram.
+	 * @param airHeight
+	 *            The height in the air that the chakram is. Used when the sprite is jumping.
+	 */
+	public void init(float x, float y, Mike mike, float airHeight) {
 		// Set the position of the chakram and it's shadow
-		this.position = position;
+		position.set(x, y);
 		shadowPosition.x = position.x;
 		shadowPosition.y = position.y;
 
@@ -55,7 +80,7 @@ public class Chakram extends Drawable implements IDrawable {
 		updateBounds(position);
 
 		// Set the ellipse for the shadow and update its bounds
-		update(new Vector2(shadowPosition.x, shadowPosition.y), rotation);
+		update(shadowPosition.x, shadowPosition.y, rotation);
 
 		// Set the position and acceleration of the chakram based on Mike's direction
 		switch (direction) {
@@ -103,6 +128,8 @@ public class Chakram extends Drawable implements IDrawable {
 			acceleration.x = ACCELERATION;
 			break;
 		}
+		// Start drawing the chakram at the point it was thrown from
+		savePosition();
 	}
 
 	/**
@@ -114,6 +141,20 @@ public class Chakram extends Drawable implements IDrawable {
 	 *            The amount to rotate the chakram.
 	 */
 	public void update(Vector2 position, float rotation) {
+		update(position.x, position.y, rotation);
+	}
+
+	/**
+	 * Used to update the position of the chakram and it's shadow.
+	 * 
+	 * @param x
+	 *            The x coordinate of the chakram.
+	 * @param y
+	 *            The y coordinate of the chakram.
+	 * @param rotation
+	 *            The amount to rotate the chakram.
+	 */
+	public void update(float x, float y, float rotation) {
 		this.rotation = rotation;
 
 		// Extra distance to move shadow based on the direction of the throw
@@ -123,35 +164,35 @@ public class Chakram extends Drawable implements IDrawable {
 		switch (direction) {
 		case DOWN:
 			shadowPosition.x = this.position.x;
-			shadowPosition.y = position.y - shadowMove;
+			shadowPosition.y = y - shadowMove;
 			break;
 		case UP:
 			shadowPosition.x = this.position.x;
-			shadowPosition.y = position.y - shadowMove;
+			shadowPosition.y = y - shadowMove;
 			break;
 		case LEFT:
-			shadowPosition.x = position.x;
+			shadowPosition.x = x;
 			break;
 		case RIGHT:
-			shadowPosition.x = position.x;
+			shadowPosition.x = x;
 			this.rotation *= -1; // Switch direction on rotation
 			break;
 		case DOWN_LEFT:
-			shadowPosition.x = position.x;
-			shadowPosition.y = position.y - shadowMove;
+			shadowPosition.x = x;
+			shadowPosition.y = y - shadowMove;
 			break;
 		case DOWN_RIGHT:
-			shadowPosition.x = position.x;
-			shadowPosition.y = position.y - shadowMove;
+			shadowPosition.x = x;
+			shadowPosition.y = y - shadowMove;
 			this.rotation *= -1; // Switch direction on rotation
 			break;
 		case UP_LEFT:
-			shadowPosition.x = position.x;
-			shadowPosition.y = position.y - shadowMove;
+			shadowPosition.x = x;
+			shadowPosition.y = y - shadowMove;
 			break;
 		case UP_RIGHT:
-			shadowPosition.x = position.x;
-			shadowPosition.y = position.y - shadowMove;
+			shadowPosition.x = x;
+			shadowPosition.y = y - shadowMove;
 			this.rotation *= -1; // Switch direction on rotation
 			break;
 		}
@@ -180,8 +221,8 @@ public class Chakram extends Drawable implements IDrawable {
 	 */
 	@Override
 	public void loadSprite(SpriteBatch spriteBatch) {
-		float x = position.x;
-		float y = position.y;
+		float x = renderPosition.x;
+		float y = renderPosition.y;
 
 		float width = SIZE;
 		float height = SIZE;
@@ -207,9 +248,10 @@ public class Chakram extends Drawable implements IDrawable {
 	 */
 	@Override
 	public void drawShadow(SpriteBatch spriteBatch) {
-		// Get the x and y coordinates to draw. These are the lower left corners of the ellipse.
-		float x = shadow.getX();
-		float y = shadow.getY();
+		// Get the x and y coordinates to draw. These are the lower left corners of the ellipse. Move the shadow along
+		// with the render position of the chakram.
+		float x = shadow.getX() + (renderPosition.x - position.x);
+		float y = shadow.getY() + (renderPosition.y - position.y);
 
 		// Get the width and height of the shadow, and scale them according to the scale percentage.
 		float width = shadow.getWidth();
@@ -219,6 +261,25 @@ public class Chakram extends Drawable implements IDrawable {
 		shadowSprite.setBounds(x, y, width, height); // Set the bounds
 	}
 
+	/**
+	 * Clear the chakram so it can be returned to the projectile pool. The render frame is kept, because the render
+	 * queue uses it to find this chakram if it is thrown again in the next frame.
+	 */
+	@Override
+	public void reset() {
+		position.set(0, 0);
+		acceleration.set(0, 0);
+		velocity.set(0, 0);
+		shadowPosition.set(0, 0);
+		shadowVelocity.set(0, 0);
+		direction = null;
+		startingX = 0;
+		startingY = 0;
+		stateTime = 0;
+		airHeight = 0;
+		rotation = 0;
+	}
+
 	/**
 	 * @return the attackBounds
 	 */
@@ -0,0 +1,24 @@
+package com.awesome.namethislater.model;
+
+/**
+ * Loads chunks for a {@link ChunkManager}. A loader may read the chunks on another thread, and hands them back through
+ * {@link #poll()} on the update thread.
+ */
+public interface ChunkLoader {
+
+	/**
+	 * Start loading a chunk. The manager does not request a chunk again until it has been returned by poll().
+	 */
+	public void request(ChunkSource source, int chunkX, int chunkY, int size);
+
+	/**
+	 * @return a chunk that has finished loading, or null if there are none
+	 */
+	public TileChunk poll();
+
+	/**
+	 * Stop loading chunks and free any threads.
+	 */
+	public void dispose();
+
+}
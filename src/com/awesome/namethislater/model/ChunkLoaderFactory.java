@@ -0,0 +1,14 @@
+package com.awesome.namethislater.model;
+
+/**
+ * Makes a {@link ChunkLoader} for each streamed level that is played. This is separate from the loaders because the
+ * loaders that read on another thread can only be built on some platforms, so the launcher passes one in.
+ */
+public interface ChunkLoaderFactory {
+
+	/**
+	 * @return a new loader, disposed with the level's chunk manager
+	 */
+	public ChunkLoader newLoader();
+
+}
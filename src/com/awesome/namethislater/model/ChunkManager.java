@@ -0,0 +1,280 @@
+package com.awesome.namethislater.model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Keeps the chunks of a streamed level that are near Mike in memory. Chunks within the load radius of Mike's chunk are
+ * requested from the loader as he moves, and once more chunks are held than the capacity allows, the least recently
+ * used chunks outside the load radius are dropped.
+ * <p>
+ * Cells in chunks that are not in memory count as water, so nothing can walk into the part of the level that has not
+ * been loaded yet. The chunk Mike is standing in is always loaded straight away, so he is never held up.
+ */
+public class ChunkManager {
+
+	public static final int CHUNK_SHIFT = 5; // Chunks are 2^5 = 32 tiles across
+	public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	public static final int DEFAULT_LOAD_RADIUS = 2; // The chunks around Mike's chunk to keep loaded
+	private static final int CAPACITY_FACTOR = 2; // How many times the loaded area to hold before evicting
+
+	private final ChunkSource source;
+	private final int width, height; // The size of the level, in tiles
+	private final int columns, rows; // The size of the level, in chunks
+	private final TileChunk[] resident; // The chunks in memory, by (chunkY * columns + chunkX)
+	private final boolean[] pending; // The chunks that have been requested and not yet returned
+
+	// The chunks in memory from least to most recently used
+	private final LinkedHashMap<Integer, TileChunk> recent = new LinkedHashMap<Integer, TileChunk>(16, 0.75f, true);
+	private final Array<TileChunk> evicted = new Array<TileChunk>(); // Reused while evicting
+
+	private ChunkLoader loader = new ImmediateLoader();
+	private int loadRadius = DEFAULT_LOAD_RADIUS;
+	private int capacity;
+	private int centerX = -1, centerY = -1; // The chunk Mike was in at the last update
+
+	/** Stats **/
+	private int loads; // The chunks that have been loaded
+	private int evictions; // The chunks that have been dropped
+
+	/**
+	 * @param source
+	 *            Reads the chunks.
+	 * @param width
+	 *            The width of the level, in tiles.
+	 * @param height
+	 *            The height of the level, in tiles.
+	 */
+	public ChunkManager(ChunkSource source, int width, int height) {
+		this.source = source;
+		this.width = width;
+		this.height = height;
+		columns = (width + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+		rows = (height + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+		resident = new TileChunk[columns * rows];
+		pending = new boolean[columns * rows];
+		setLoadRadius(DEFAULT_LOAD_RADIUS);
+	}
+
+	/**
+	 * Take in the chunks that have finished loading, and load and evict chunks if Mike has moved to another chunk. Call
+	 * this before the controllers are updated, and not while they are running.
+	 *
+	 * @param x
+	 *            Mike's x position, in tiles.
+	 * @param y
+	 *            Mike's y position, in tiles.
+	 */
+	public void update(float x, float y) {
+		boolean changed = installLoaded();
+
+		int chunkX = clamp((int) x >> CHUNK_SHIFT, columns);
+		int chunkY = clamp((int) y >> CHUNK_SHIFT, rows);
+		if (resident[chunkY * columns + chunkX] == null) {
+			// Mike must never walk on missing tiles, so load his chunk now
+			install(source.readChunk(chunkX, chunkY, CHUNK_SIZE));
+			changed = true;
+		}
+		if (chunkX == centerX && chunkY == centerY && !changed) {
+			return;
+		}
+		centerX = chunkX;
+		centerY = chunkY;
+
+		for (int cy = Math.max(0, chunkY - loadRadius); cy <= Math.min(rows - 1, chunkY + loadRadius); cy++) {
+			for (int cx = Math.max(0, chunkX - loadRadius); cx <= Math.min(columns - 1, chunkX + loadRadius); cx++) {
+				int index = cy * columns + cx;
+				if (resident[index] != null) {
+					recent.get(index); // Mark the chunk as used
+				} else if (!pending[index]) {
+					pending[index] = true;
+					loader.request(source, cx, cy, CHUNK_SIZE);
+				}
+			}
+		}
+		// Take in chunks that loaded while requesting, so the immediate loader has the whole area ready now
+		installLoaded();
+		evict();
+	}
+
+	/**
+	 * @return whether any chunks had finished loading
+	 */
+	private boolean installLoaded() {
+		boolean installed = false;
+		TileChunk chunk;
+		while ((chunk = loader.poll()) != null) {
+			install(chunk);
+			installed = true;
+		}
+		return installed;
+	}
+
+	private void install(TileChunk chunk) {
+		int index = chunk.getChunkY() * columns + chunk.getChunkX();
+		pending[index] = false;
+		if (resident[index] == null) {
+			loads++;
+		}
+		resident[index] = chunk;
+		recent.put(index, chunk);
+	}
+
+	/**
+	 * Drop the least recently used chunks until no more than the capacity are held. Chunks within the load radius are
+	 * kept even if that leaves too many.
+	 */
+	private void evict() {
+		int excess = recent.size() - capacity;
+		Iterator<TileChunk> chunks = recent.values().iterator();
+		while (excess > 0 && chunks.hasNext()) {
+			TileChunk chunk = chunks.next();
+			if (Math.abs(chunk.getChunkX() - centerX) > loadRadius
+					|| Math.abs(chunk.getChunkY() - centerY) > loadRadius) {
+				chunks.remove();
+				evicted.add(chunk);
+				excess--;
+			}
+		}
+		for (int i = 0; i < evicted.size; i++) {
+			TileChunk chunk = evicted.get(i);
+			resident[chunk.getChunkY() * columns + chunk.getChunkX()] = null;
+			evictions++;
+		}
+		evicted.clear();
+	}
+
+	private static int clamp(int value, int count) {
+		return Math.max(0, Math.min(count - 1, value));
+	}
+
+	/**
+	 * Check whether a cell is water. Cells in chunks that are not in memory count as water.
+	 *
+	 * @param x
+	 *            The x coordinate of the cell, inside the level.
+	 * @param y
+	 *            The y coordinate of the cell, inside the level.
+	 */
+	public boolean isWater(int x, int y) {
+		TileChunk chunk = resident[(y >> CHUNK_SHIFT) * columns + (x >> CHUNK_SHIFT)];
+		return chunk == null || chunk.isWater(x & CHUNK_MASK, y & CHUNK_MASK);
+	}
+
+	/**
+	 * @return the chunk at a position in chunks, or null if it is not in memory
+	 */
+	public TileChunk getChunk(int chunkX, int chunkY) {
+		if (chunkX < 0 || chunkY < 0 || chunkX >= columns || chunkY >= rows) {
+			return null;
+		}
+		return resident[chunkY * columns + chunkX];
+	}
+
+	/**
+	 * @return whether the cell is in a chunk that is in memory
+	 */
+	public boolean isLoaded(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return false;
+		}
+		return resident[(y >> CHUNK_SHIFT) * columns + (x >> CHUNK_SHIFT)] != null;
+	}
+
+	public ChunkSource getSource() {
+		return source;
+	}
+
+	public ChunkLoader getLoader() {
+		return loader;
+	}
+
+	/**
+	 * @param loader
+	 *            loads the chunks, for example on a background thread. The old loader is disposed.
+	 */
+	public void setLoader(ChunkLoader loader) {
+		this.loader.dispose();
+		this.loader = loader;
+		// Chunks requested from the old loader will never arrive, so ask again
+		for (int i = 0; i < pending.length; i++) {
+			pending[i] = false;
+		}
+		centerX = centerY = -1;
+	}
+
+	public int getLoadRadius() {
+		return loadRadius;
+	}
+
+	/**
+	 * @param loadRadius
+	 *            the number of chunks around Mike's chunk to keep loaded. The capacity is set to hold twice that area.
+	 */
+	public void setLoadRadius(int loadRadius) {
+		this.loadRadius = loadRadius;
+		int side = loadRadius * 2 + 1;
+		capacity = side * side * CAPACITY_FACTOR;
+		centerX = centerY = -1;
+	}
+
+	/**
+	 * @return the largest number of chunks held before the least recently used are dropped
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return the number of chunks in memory
+	 */
+	public int getResidentCount() {
+		return recent.size();
+	}
+
+	/**
+	 * @return the number of chunks that have been loaded
+	 */
+	public int getLoads() {
+		return loads;
+	}
+
+	/**
+	 * @return the number of chunks that have been dropped to stay under the capacity
+	 */
+	public int getEvictions() {
+		return evictions;
+	}
+
+	public void dispose() {
+		loader.dispose();
+	}
+
+	/**
+	 * Loads each chunk as soon as it is requested, on the update thread.
+	 */
+	private static class ImmediateLoader implements ChunkLoader {
+
+		private final Array<TileChunk> loaded = new Array<TileChunk>();
+
+		@Override
+		public void request(ChunkSource source, int chunkX, int chunkY, int size) {
+			loaded.add(source.readChunk(chunkX, chunkY, size));
+		}
+
+		@Override
+		public TileChunk poll() {
+			return loaded.size > 0 ? loaded.pop() : null;
+		}
+
+		@Override
+		public void dispose() {
+			loaded.clear();
+		}
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.awesome.namethislater.model;
+
+/**
+ * Reads the chunks of a streamed level. The chunks may be read on a background thread, so implementations must not
+ * change any state shared with the game.
+ */
+public interface ChunkSource {
+
+	/**
+	 * Read a chunk.
+	 *
+	 * @param chunkX
+	 *            The x position of the chunk, in chunks.
+	 * @param chunkY
+	 *            The y position of the chunk, in chunks.
+	 * @param size
+	 *            The width and height of the chunk, in tiles. Cells past the edge of the level are left empty.
+	 * @return The chunk.
+	 */
+	public TileChunk readChunk(int chunkX, int chunkY, int size);
+
+	/**
+	 * @return the number of tile layers in each chunk
+	 */
+	public int getLayerCount();
+
+}
@@ -13,6 +13,8 @@ public class Drawable {
 	}
 
 	Vector2 position = new Vector2(); // The current position
+	Vector2 previousPosition = new Vector2(); // The position before the last update
+	Vector2 renderPosition = new Vector2(); // The position to draw at, between the previous and current position
 	Vector2 acceleration = new Vector2(); // The speed of movement
 	Vector2 velocity = new Vector2(); // The acceleration and direction of movement
 	Vector2 shadowPosition = new Vector2();
@@ -31,12 +33,15 @@ public class Drawable {
 	// This is the base of the drawable. Used for drawables that have multiple sprites to draw (ex: Mike when jumping
 	// has the Mike sprite and the shadow sprite. The baseY will be the lower y-coordinate of the shadow).
 	float baseY;
+	int renderFrame; // The last frame this drawable was queued to be drawn
 	float size;
 	float stateTime;
 
 	public Drawable(Vector2 position, float size) {
 		this.position = position;
 		this.size = size;
+		previousPosition.set(position);
+		renderPosition.set(position);
 
 		bounds.x = position.x;
 		bounds.y = position.y;
@@ -59,6 +64,33 @@ public class Drawable {
 		this.position = position;
 		this.bounds.setX(position.x);
 		this.bounds.setY(position.y);
+		savePosition();
+	}
+
+	/**
+	 * Store the current position as the previous position. Call this before each update, or after moving the drawable
+	 * somewhere it should not be drawn sliding to.
+	 */
+	public void savePosition() {
+		previousPosition.set(position);
+		renderPosition.set(position);
+	}
+
+	/**
+	 * Set the render position between the previous and current position.
+	 * 
+	 * @param alpha
+	 *            How far the time being drawn is between the last update and the next one, from 0 to 1.
+	 */
+	public void interpolate(float alpha) {
+		renderPosition.set(previousPosition).lerp(position, alpha);
+	}
+
+	/**
+	 * @return the position to draw at
+	 */
+	public Vector2 getRenderPosition() {
+		return renderPosition;
 	}
 
 	/**
@@ -287,6 +319,21 @@ public class Drawable {
 		this.baseY = baseY;
 	}
 
+	/**
+	 * @return the renderFrame
+	 */
+	public int getRenderFrame() {
+		return renderFrame;
+	}
+
+	/**
+	 * @param renderFrame
+	 *            the renderFrame to set
+	 */
+	public void setRenderFrame(int renderFrame) {
+		this.renderFrame = renderFrame;
+	}
+
 	/**
 	 * @return the size
 	 */
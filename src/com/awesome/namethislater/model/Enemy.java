@@ -1,11 +1,6 @@
 package com.awesome.namethislater.model;
 
-import java.util.Random;
-
-import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 
@@ -19,17 +14,49 @@ public class Enemy extends Drawable {
 	float currentFrame;
 
 	final int distanceFromEnemy = 100;
-	Random random = new Random();
+	RandomStream random; // The enemy's own stream, so enemies moved on different threads do not share one
 	// Defines time left for movement. set to random int below 3 will move around at most for 3 seconds
-	float enemyTime = random.nextInt(5);
+	float enemyTime;
+	float waitingTime; // The time since the enemy was last moved, when distant enemies are moved less often
+
+	/** The different states that an enemy can be in, for choosing its animation **/
+	public enum State {
+		WALKING, HURT
+	}
 
 	private float health;
 	private boolean dead = false;
 	private boolean hurt = false;
 
+	/** Path Following **/
+	private boolean hasGoal; // Whether the enemy walks to its goal instead of wandering
+	private int goalX, goalY; // The tile the enemy walks to
+	private PathFinder.Path path; // The path to the goal, or null if it has not been found yet
+	private int pathStep; // The index of the tile on the path the enemy is walking to
+	private int pathVersion; // The tile version of the level when the path was last checked
+
 	public Enemy(Vector2 position) {
+		this(position, new RandomStream());
+	}
+
+	/**
+	 * Create an enemy that picks its directions from a seeded random number generator, so it moves the same way every
+	 * time.
+	 * 
+	 * @param position
+	 *            The starting position of the enemy.
+	 * @param seed
+	 *            The seed for the enemy's random numbers.
+	 */
+	public Enemy(Vector2 position, long seed) {
+		this(position, new RandomStream(seed));
+	}
+
+	private Enemy(Vector2 position, RandomStream random) {
 		super(position, SIZE);
 		this.position = position;
+		this.random = random;
+		turn();
 
 		bounds.x = position.x;
 		bounds.y = position.y;
@@ -37,12 +64,20 @@ public class Enemy extends Drawable {
 		bounds.width = SIZE;
 
 		updateDamageBounds(position);
-		setDirection(random.nextInt(7));
 
 		// shadow = new Ellipse2D.Float();
 		health = 100;
 	}
 
+	/**
+	 * Seed the enemy's random numbers, and pick its first direction and walk time again from the new seed. An enemy
+	 * given the same seed moves the same way.
+	 */
+	public void setSeed(long seed) {
+		random.setSeed(seed);
+		turn();
+	}
+
 	public void update(float delta) {
 		stateTime += delta;
 		baseY = position.y;
@@ -53,8 +88,8 @@ public class Enemy extends Drawable {
 	}
 
 	public void loadSprite(SpriteBatch spriteBatch) {
-		float x = position.x;
-		float y = position.y;
+		float x = renderPosition.x;
+		float y = renderPosition.y;
 
 		float width = SIZE;
 		float height = SIZE * 1.5f;
@@ -63,20 +98,82 @@ public class Enemy extends Drawable {
 		sprite.setBounds(x, y, width, height); // Set the bounds
 	}
 
-	public void drawHealth(ShapeRenderer sr) {
-		sr.begin(ShapeType.Filled);
-		sr.setColor(Color.BLACK);
-		float x = position.x - (SIZE / 4);
-		float y = position.y + SIZE + 0.6f;
-		float width = (SIZE * 1.5f);
-		float height = (SIZE / 6);
+	/**
+	 * Pick a new random direction, and a random time to walk in it.
+	 */
+	public void turn() {
+		enemyTime = random.nextInt(5);
+		setDirection(random.nextInt(7));
+	}
+
+	/**
+	 * Walk to a tile along a path found by the world controller, instead of wandering. Once the enemy reaches the tile
+	 * the goal is cleared and it wanders again.
+	 * 
+	 * @param x
+	 *            The x coordinate of the tile.
+	 * @param y
+	 *            The y coordinate of the tile.
+	 */
+	public void setGoal(int x, int y) {
+		if (hasGoal && x == goalX && y == goalY) {
+			return;
+		}
+		hasGoal = true;
+		goalX = x;
+		goalY = y;
+		setPath(null, 0);
+	}
+
+	public void clearGoal() {
+		hasGoal = false;
+		setPath(null, 0);
+	}
+
+	public boolean hasGoal() {
+		return hasGoal;
+	}
+
+	public int getGoalX() {
+		return goalX;
+	}
+
+	public int getGoalY() {
+		return goalY;
+	}
 
-		sr.rect(x, y, width, height);
+	public PathFinder.Path getPath() {
+		return path;
+	}
 
-		sr.setColor(Color.GREEN);
-		float healthScale = width * (health / 100);
-		sr.rect(x, y, healthScale, height);
-		sr.end();
+	public int getPathStep() {
+		return pathStep;
+	}
+
+	/**
+	 * @param path
+	 *            the path to the goal
+	 * @param pathStep
+	 *            the index of the tile on the path the enemy is walking to
+	 */
+	public void setPath(PathFinder.Path path, int pathStep) {
+		this.path = path;
+		this.pathStep = pathStep;
+	}
+
+	/**
+	 * @return the tile version of the level when the path was last found or checked
+	 */
+	public int getPathVersion() {
+		return pathVersion;
+	}
+
+	/**
+	 * @param pathVersion
+	 *            the tile version of the level when the path was last found or checked
+	 */
+	public void setPathVersion(int pathVersion) {
+		this.pathVersion = pathVersion;
 	}
 
 	public void takeDamage(float damage) {
@@ -106,6 +203,10 @@ public class Enemy extends Drawable {
 		this.dead = dead;
 	}
 
+	public State getState() {
+		return hurt ? State.HURT : State.WALKING;
+	}
+
 	public boolean isHurt() {
 		return hurt;
 	}
@@ -202,4 +303,19 @@ public class Enemy extends Drawable {
 	public void setEnemyTime(float enemyTime) {
 		this.enemyTime = enemyTime;
 	}
+
+	/**
+	 * @return the time in seconds since the enemy was last moved
+	 */
+	public float getWaitingTime() {
+		return waitingTime;
+	}
+
+	/**
+	 * @param waitingTime
+	 *            the time in seconds since the enemy was last moved
+	 */
+	public void setWaitingTime(float waitingTime) {
+		this.waitingTime = waitingTime;
+	}
 }
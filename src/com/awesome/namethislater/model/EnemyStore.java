@@ -0,0 +1,134 @@
+package com.awesome.namethislater.model;
+
+/**
+ * Holds the enemies in a level. The enemies are kept in a flat array that is not synchronized, and loops over them
+ * should use {@link #size()} and {@link #get(int)}. Dead enemies are not removed while the enemies are being updated.
+ * They stay in place until {@link #removeDead()} is called at the end of the update, which removes them all in one pass
+ * by swapping the last enemy into each gap.
+ * <p>
+ * The position and velocity of every enemy are also kept in parallel float arrays, by enemy index, so the loops that
+ * move the enemies and bucket them into the spatial hash stream through contiguous memory. The arrays are the
+ * positions and velocities the world controller moves the enemies from: it writes the results back to each enemy for
+ * drawing, but changes made to an enemy's position or velocity directly are not read back once it is in the store.
+ */
+public class EnemyStore {
+
+	private Enemy[] enemies = new Enemy[16];
+	private int size;
+
+	/** Packed State **/
+	private float[] positionX = new float[16];
+	private float[] positionY = new float[16];
+	private float[] velocityX = new float[16];
+	private float[] velocityY = new float[16];
+
+	/**
+	 * Add an enemy to the level. Its position and velocity are copied into the packed arrays.
+	 *
+	 * @param enemy
+	 *            The enemy to add.
+	 */
+	public void add(Enemy enemy) {
+		if (size == enemies.length) {
+			Enemy[] grown = new Enemy[enemies.length * 2];
+			System.arraycopy(enemies, 0, grown, 0, size);
+			enemies = grown;
+			positionX = grow(positionX);
+			positionY = grow(positionY);
+			velocityX = grow(velocityX);
+			velocityY = grow(velocityY);
+		}
+		positionX[size] = enemy.getPosition().x;
+		positionY[size] = enemy.getPosition().y;
+		velocityX[size] = enemy.getVelocity().x;
+		velocityY[size] = enemy.getVelocity().y;
+		enemies[size++] = enemy;
+	}
+
+	private float[] grow(float[] values) {
+		float[] grown = new float[enemies.length];
+		System.arraycopy(values, 0, grown, 0, size);
+		return grown;
+	}
+
+	/**
+	 * @param index
+	 *            The index of the enemy, from 0 to size() - 1.
+	 * @return the enemy at the index
+	 */
+	public Enemy get(int index) {
+		return enemies[index];
+	}
+
+	/**
+	 * @return the number of enemies in the level
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Remove every dead enemy. The last enemy is moved into the place of each enemy removed, so the order of the enemies
+	 * changes. Do not call this while looping over the enemies.
+	 *
+	 * @return The number of enemies removed.
+	 */
+	public int removeDead() {
+		int removed = 0;
+		int i = 0;
+		while (i < size) {
+			if (enemies[i].isDead()) {
+				size--;
+				enemies[i] = enemies[size];
+				enemies[size] = null;
+				positionX[i] = positionX[size];
+				positionY[i] = positionY[size];
+				velocityX[i] = velocityX[size];
+				velocityY[i] = velocityY[size];
+				removed++;
+			} else {
+				i++;
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Remove every enemy.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			enemies[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * @return the x position of each enemy, by enemy index
+	 */
+	public float[] getPositionX() {
+		return positionX;
+	}
+
+	/**
+	 * @return the y position of each enemy, by enemy index
+	 */
+	public float[] getPositionY() {
+		return positionY;
+	}
+
+	/**
+	 * @return the x velocity of each enemy, by enemy index
+	 */
+	public float[] getVelocityX() {
+		return velocityX;
+	}
+
+	/**
+	 * @return the y velocity of each enemy, by enemy index
+	 */
+	public float[] getVelocityY() {
+		return velocityY;
+	}
+
+}
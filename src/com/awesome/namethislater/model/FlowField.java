@@ -0,0 +1,174 @@
+package com.awesome.namethislater.model;
+
+import java.util.Arrays;
+
+import com.awesome.namethislater.model.Drawable.Direction;
+
+/**
+ * The direction to walk from each tile to reach one target tile, found with one breadth first search out from the
+ * target over the tiles that are not water. Any number of enemies can then follow the field toward Mike for the cost of
+ * looking up their tile, instead of each searching for its own path.
+ * <p>
+ * The field only covers a square of tiles around the target, so its cost does not grow with the size of the level,
+ * and it is only searched again when the target moves onto another tile. Diagonal steps are only taken when both of the
+ * tiles beside them are dry, so paths do not cut the corners of the water.
+ */
+public class FlowField {
+
+	/** Steps by direction ordinal: DOWN, LEFT, UP, RIGHT, DOWN_LEFT, UP_LEFT, UP_RIGHT, DOWN_RIGHT **/
+	private static final int[] DX = { 0, -1, 0, 1, -1, -1, 1, 1 };
+	private static final int[] DY = { -1, 0, 1, 0, -1, 1, 1, -1 };
+	private static final int[] OPPOSITE = { 2, 3, 0, 1, 6, 7, 4, 5 };
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private static final byte NONE = -1; // No direction: the tile is the target, water, or out of reach
+
+	private final Level level;
+	private final int radius; // The number of tiles the field reaches out from the target
+	private final int size; // The width and height of the field, in tiles
+
+	private final int[] distances; // The steps from each tile to the target, or -1 if it was not reached
+	private final byte[] directions; // The direction ordinal of the first step from each tile toward the target
+	private final int[] queue; // The tiles waiting to be searched, as field indices
+
+	private int originX, originY; // The level tile at the lower left corner of the field
+	private int targetX, targetY;
+	private boolean built; // Whether the field has been searched yet
+	private int tileVersion; // The tile version of the level when the field was searched
+	private int searches; // The number of times the field has been searched
+
+	/**
+	 * @param level
+	 *            The level to find paths in.
+	 * @param radius
+	 *            The number of tiles the field reaches out from the target in each direction.
+	 */
+	public FlowField(Level level, int radius) {
+		this.level = level;
+		this.radius = radius;
+		size = radius * 2 + 1;
+		distances = new int[size * size];
+		directions = new byte[size * size];
+		queue = new int[size * size];
+	}
+
+	/**
+	 * Move the target. The field is only searched again if the target is on a different tile than before, or the
+	 * level's tiles have changed.
+	 *
+	 * @param x
+	 *            The target's x position, in tiles.
+	 * @param y
+	 *            The target's y position, in tiles.
+	 * @return whether the field was searched again
+	 */
+	public boolean update(float x, float y) {
+		int tileX = (int) Math.floor(x);
+		int tileY = (int) Math.floor(y);
+		int version = level.getTileVersion();
+		if (built && tileX == targetX && tileY == targetY && version == tileVersion) {
+			return false;
+		}
+		targetX = tileX;
+		targetY = tileY;
+		tileVersion = version;
+		search();
+		built = true;
+		searches++;
+		return true;
+	}
+
+	private void search() {
+		originX = targetX - radius;
+		originY = targetY - radius;
+		Arrays.fill(distances, -1);
+		Arrays.fill(directions, NONE);
+
+		int start = radius * size + radius; // The target is in the middle of the field
+		distances[start] = 0;
+		queue[0] = start;
+		int head = 0;
+		int tail = 1;
+		while (head < tail) {
+			int index = queue[head++];
+			int fieldX = index % size;
+			int fieldY = index / size;
+			int next = distances[index] + 1;
+			for (int d = 0; d < DX.length; d++) {
+				int nx = fieldX + DX[d];
+				int ny = fieldY + DY[d];
+				if (nx < 0 || ny < 0 || nx >= size || ny >= size) {
+					continue;
+				}
+				int neighbour = ny * size + nx;
+				if (distances[neighbour] != -1 || !isDry(nx, ny)) {
+					continue;
+				}
+				// A diagonal step needs both tiles beside it to be dry
+				if (DX[d] != 0 && DY[d] != 0 && (!isDry(nx, fieldY) || !isDry(fieldX, ny))) {
+					continue;
+				}
+				distances[neighbour] = next;
+				directions[neighbour] = (byte) OPPOSITE[d];
+				queue[tail++] = neighbour;
+			}
+		}
+	}
+
+	private boolean isDry(int fieldX, int fieldY) {
+		int x = originX + fieldX;
+		int y = originY + fieldY;
+		return x >= 0 && y >= 0 && x < level.getWidth() && y < level.getHeight() && !level.isWater(x, y);
+	}
+
+	/**
+	 * @param x
+	 *            The x position, in tiles.
+	 * @param y
+	 *            The y position, in tiles.
+	 * @return the direction to walk from the tile at the position toward the target, or null if the tile is the
+	 *         target's, is outside the field, or has no dry path to the target
+	 */
+	public Direction getDirection(float x, float y) {
+		int index = indexOf((int) Math.floor(x), (int) Math.floor(y));
+		if (index < 0 || directions[index] == NONE) {
+			return null;
+		}
+		return DIRECTIONS[directions[index]];
+	}
+
+	/**
+	 * @return the steps from the tile to the target, or -1 if it is outside the field or has no dry path to the target
+	 */
+	public int getDistance(int x, int y) {
+		int index = indexOf(x, y);
+		return index < 0 ? -1 : distances[index];
+	}
+
+	private int indexOf(int x, int y) {
+		if (!built) {
+			return -1;
+		}
+		int fieldX = x - originX;
+		int fieldY = y - originY;
+		if (fieldX < 0 || fieldY < 0 || fieldX >= size || fieldY >= size) {
+			return -1;
+		}
+		return fieldY * size + fieldX;
+	}
+
+	/**
+	 * @return the number of tiles the field reaches out from the target
+	 */
+	public int getRadius() {
+		return radius;
+	}
+
+	/**
+	 * @return the number of times the field has been searched
+	 */
+	public int getSearches() {
+		return searches;
+	}
+
+}
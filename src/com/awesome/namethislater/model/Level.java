@@ -1,8 +1,13 @@
 package com.awesome.namethislater.model;
 
 import java.util.Iterator;
-import java.util.Vector;
 
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.ImageResolver;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.MapProperties;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
@@ -12,38 +17,210 @@ import com.badlogic.gdx.maps.tiled.tiles.AnimatedTiledMapTile;
 import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
 
-public class Level {
+public class Level implements Disposable {
+
+	private static final int MAX_ENEMY_CELLS = 65536; // The most cells in the enemy spatial hash, cleared every update
+
+	/** Streaming **/
+	public static final int STREAM_CELLS = 512 * 512; // Compiled levels with more cells than this are streamed
+
+	/** Level Files **/
+	public static final String TMX_PATH = "data/world/level/level3.tmx"; // The map to edit in Tiled
+	public static final String BINARY_PATH = "data/world/level/level3.lvl"; // Compiled from the TMX by LevelCompiler
+
+	/** Spawns **/
+	public static final String SPAWN_LAYER = "spawns"; // The object layer that places Mike and the enemies
+	public static final String START_TYPE = "start"; // The type of the object for Mike's starting position
+	public static final String ENEMY_TYPE = "enemy"; // The type of the objects for the enemies
+	// Used when the map does not have a spawn layer
+	public static final float DEFAULT_START_X = 2, DEFAULT_START_Y = 2;
+	public static final float[] DEFAULT_ENEMY_SPAWNS = { 1, 4, 10, 10 }; // x and y pairs
 
 	private int width, height;
 	private Block[][] grassBlocks;
 	private Block[][] waterBlocks;
+	// Packed flags for every water cell, indexed by (y * width + x). Built once so collision checks avoid property lookups
+	private Bits waterTiles;
+	private ChunkManager chunks; // Holds the chunks near Mike when the level is streamed, otherwise null
+	private int tileChanges; // The number of cells changed by setWater
 
-	private Vector<Enemy> enemies;
+	private EnemyStore enemies;
+	private SpatialHash enemyHash;
 
 	private TiledMap map;
 
 	private Vector2 startingPosition;
+	private FloatArray enemySpawns; // The position of each enemy, as x and y pairs
 
+	/**
+	 * Load the game's level. The compiled level is used if it has been built, because it loads much faster. Otherwise
+	 * the TMX file is loaded.
+	 */
 	public Level() {
-		loadMap();
+		this(getDefaultFile(), true);
 	}
 
-	private void loadMap() {
-		TmxMapLoader loader = new TmxMapLoader();
-		map = loader.load("data/world/level/level3.tmx");
+	/**
+	 * @return the compiled level if it has been built, otherwise the TMX file
+	 */
+	public static FileHandle getDefaultFile() {
+		FileHandle compiled = Gdx.files.internal(BINARY_PATH);
+		return compiled.exists() ? compiled : Gdx.files.internal(TMX_PATH);
+	}
 
-		startingPosition = new Vector2(2, 2);
+	/**
+	 * Load a level from a TMX file, or from a level compiled by LevelCompiler. Compiled levels with more than
+	 * {@link #STREAM_CELLS} cells are streamed.
+	 * 
+	 * @param file
+	 *            The TMX or compiled level file.
+	 * @param loadMap
+	 *            Whether to load the tiled map and its textures. Only compiled levels can be loaded without the map.
+	 */
+	public Level(FileHandle file, boolean loadMap) {
+		load(file, loadMap, STREAM_CELLS);
+	}
 
-		Enemy enemy1 = new Enemy(new Vector2(1, 4));
-		Enemy enemy2 = new Enemy(new Vector2(10, 10));
+	/**
+	 * Load a level from a TMX file, or from a level compiled by LevelCompiler.
+	 * 
+	 * @param file
+	 *            The TMX or compiled level file.
+	 * @param loadMap
+	 *            Whether to load the tiled map and its textures. Only compiled levels can be loaded without the map.
+	 * @param stream
+	 *            Whether to read a compiled level in chunks around Mike as he moves, instead of all at once. TMX levels
+	 *            are never streamed.
+	 */
+	public Level(FileHandle file, boolean loadMap, boolean stream) {
+		load(file, loadMap, stream ? 0 : Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Load a level compiled by LevelCompiler, with tileset textures that have already been loaded. Used to load levels
+	 * through an AssetManager. Compiled levels with more than {@link #STREAM_CELLS} cells are streamed.
+	 * 
+	 * @param file
+	 *            The compiled level file.
+	 * @param images
+	 *            Gets the texture of each image from {@link BinaryLevelLoader#getTilesetImages(FileHandle)}. The
+	 *            textures do not belong to the map.
+	 */
+	public Level(FileHandle file, ImageResolver images) {
+		new BinaryLevelLoader().load(file, this, true, STREAM_CELLS, images);
+	}
+
+	/**
+	 * Create a level from a tiled map that has already been loaded from a TMX file.
+	 * 
+	 * @param map
+	 *            The map of the level.
+	 */
+	public Level(TiledMap map) {
+		setupMap(map);
+	}
+
+	private void load(FileHandle file, boolean loadMap, int streamCells) {
+		if (BinaryLevelLoader.EXTENSION.equals(file.extension())) {
+			new BinaryLevelLoader().load(file, this, loadMap, streamCells, null);
+		} else {
+			loadMap(file);
+		}
+	}
 
-		enemies = new Vector<Enemy>();
-		enemies.add(enemy1);
-		enemies.add(enemy2);
+	/**
+	 * Create a level without a tiled map. The level only has the data needed by the controllers, so the game can be run
+	 * without graphics.
+	 * 
+	 * @param width
+	 *            The width of the level, in tiles.
+	 * @param height
+	 *            The height of the level, in tiles.
+	 * @param waterTiles
+	 *            The flags for every water cell, indexed by (y * width + x).
+	 */
+	public Level(int width, int height, Bits waterTiles) {
+		setup(width, height, waterTiles, null, null, new Vector2(DEFAULT_START_X, DEFAULT_START_Y), new FloatArray(
+				DEFAULT_ENEMY_SPAWNS));
+	}
+
+	/**
+	 * Set the data of the level once it has been read, and place the enemies.
+	 * 
+	 * @param waterTiles
+	 *            The flags for every water cell, or null if the level is streamed.
+	 * @param chunks
+	 *            Holds the chunks of a streamed level, or null if every cell was read.
+	 * @param map
+	 *            The tiled map, or null if it was not loaded.
+	 * @param enemySpawns
+	 *            The position of each enemy, as x and y pairs.
+	 */
+	void setup(int width, int height, Bits waterTiles, ChunkManager chunks, TiledMap map, Vector2 startingPosition,
+			FloatArray enemySpawns) {
+		this.width = width;
+		this.height = height;
+		this.waterTiles = waterTiles;
+		this.chunks = chunks;
+		this.map = map;
+		this.startingPosition = startingPosition;
+		this.enemySpawns = enemySpawns;
+		createEnemies();
+	}
+
+	private void createEnemies() {
+		enemies = new EnemyStore();
+		for (int i = 0; i + 1 < enemySpawns.size; i += 2) {
+			enemies.add(new Enemy(new Vector2(enemySpawns.get(i), enemySpawns.get(i + 1))));
+		}
+
+		// Use bigger cells on big levels, so the hash does not have millions of cells to clear every update
+		int cellSize = Math.max(1, (int) Math.ceil(Math.sqrt((double) width * height / MAX_ENEMY_CELLS)));
+		enemyHash = new SpatialHash(width, height, cellSize);
+	}
+
+	/**
+	 * Read Mike's starting position and the enemy positions from the spawn layer of a map. Objects are placed in
+	 * pixels, so they are converted to tiles.
+	 */
+	private void readSpawns(TiledMap map, float tileWidth, float tileHeight) {
+		startingPosition = new Vector2(DEFAULT_START_X, DEFAULT_START_Y);
+		MapLayer layer = map.getLayers().get(SPAWN_LAYER);
+		if (layer == null) {
+			enemySpawns = new FloatArray(DEFAULT_ENEMY_SPAWNS);
+			return;
+		}
+		enemySpawns = new FloatArray();
+		for (MapObject object : layer.getObjects()) {
+			MapProperties properties = object.getProperties();
+			String type = properties.get("type", object.getName(), String.class);
+			float x = properties.get("x", Integer.class) / tileWidth;
+			float y = properties.get("y", Integer.class) / tileHeight;
+			if (START_TYPE.equals(type)) {
+				startingPosition.set(x, y);
+			} else if (ENEMY_TYPE.equals(type)) {
+				enemySpawns.add(x);
+				enemySpawns.add(y);
+			}
+		}
+	}
+
+	private void loadMap(FileHandle file) {
+		TmxMapLoader loader = new TmxMapLoader();
+		setupMap(loader.load(file.path()));
+	}
 
+	private void setupMap(TiledMap map) {
+		this.map = map;
 		width = map.getProperties().get("width", Integer.class);
 		height = map.getProperties().get("height", Integer.class);
+		readSpawns(map, map.getProperties().get("tilewidth", Integer.class),
+				map.getProperties().get("tileheight", Integer.class));
+		createEnemies();
 
 		// Animated tile frames
 		Array<StaticTiledMapTile> grassFrameTiles = new Array<StaticTiledMapTile>(2);
@@ -73,10 +250,17 @@ public class Level {
 		}
 
 		TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get("background");
+		waterTiles = new Bits(width * height);
 
 		for (int x = 0; x < layer.getWidth(); x++) {
 			for (int y = 0; y < layer.getHeight(); y++) {
 				Cell cell = layer.getCell(x, y);
+				if (cell == null) {
+					continue;
+				}
+				if (cell.getTile().getProperties().containsKey("water")) {
+					waterTiles.set(y * width + x);
+				}
 				if (cell.getTile().getProperties().containsKey("animation")
 						&& cell.getTile().getProperties().get("animation", String.class)
 								.equals("grass")) {
@@ -91,14 +275,130 @@ public class Level {
 		}
 	}
 
-	public void removeDeadEnemy(Enemy enemy) {
-		enemies.remove(enemy);
+	/**
+	 * Check whether the tile at the specified cell is water. Cells outside of the level are never water.
+	 * 
+	 * @param x
+	 *            The x coordinate of the cell.
+	 * @param y
+	 *            The y coordinate of the cell.
+	 * @return True if the cell is a water tile, false otherwise.
+	 */
+	public boolean isWater(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return false;
+		}
+		if (chunks != null) {
+			return chunks.isWater(x, y);
+		}
+		return waterTiles.get(y * width + x);
+	}
+
+	/**
+	 * @return whether the cell's tiles are in memory. Only the cells of a streamed level outside the chunks around Mike
+	 *         are not, and they count as water until their chunk is loaded.
+	 */
+	public boolean isLoaded(int x, int y) {
+		return chunks == null || chunks.isLoaded(x, y);
+	}
+
+	/**
+	 * Change whether a cell is water. Only levels that are not streamed can be changed, because a streamed level reads
+	 * its chunks again from the file.
+	 * 
+	 * @param x
+	 *            The x coordinate of the cell.
+	 * @param y
+	 *            The y coordinate of the cell.
+	 * @param water
+	 *            Whether the cell should be water.
+	 */
+	public void setWater(int x, int y, boolean water) {
+		if (chunks != null) {
+			throw new IllegalStateException("The cells of a streamed level can not be changed.");
+		}
+		if (water) {
+			waterTiles.set(y * width + x);
+		} else {
+			waterTiles.clear(y * width + x);
+		}
+		tileChanges++;
+	}
+
+	/**
+	 * @return a number that changes whenever the water cells might have changed: when a cell is set, or when a chunk of
+	 *         a streamed level is loaded or dropped. Paths found at one version may cross water at another.
+	 */
+	public int getTileVersion() {
+		if (chunks != null) {
+			return tileChanges + chunks.getLoads() + chunks.getEvictions();
+		}
+		return tileChanges;
+	}
+
+	/**
+	 * Load the chunks around Mike and drop the chunks that are far away, if the level is streamed. Call this before the
+	 * controllers are updated.
+	 * 
+	 * @param x
+	 *            Mike's x position.
+	 * @param y
+	 *            Mike's y position.
+	 */
+	public void updateChunks(float x, float y) {
+		if (chunks != null) {
+			chunks.update(x, y);
+		}
+	}
+
+	/**
+	 * Stop loading the chunks of a streamed level. Called by the asset manager when the level is unloaded.
+	 */
+	@Override
+	public void dispose() {
+		if (chunks != null) {
+			chunks.dispose();
+		}
+	}
+
+	/**
+	 * @return whether the cells are read in chunks around Mike
+	 */
+	public boolean isStreaming() {
+		return chunks != null;
+	}
+
+	/**
+	 * @return the chunks of a streamed level, or null if the level is not streamed
+	 */
+	public ChunkManager getChunks() {
+		return chunks;
+	}
+
+	/**
+	 * Remove every dead enemy from the level. Call this once the enemies have all been updated, not while looping over
+	 * them.
+	 * 
+	 * @return The number of enemies removed.
+	 */
+	public int removeDeadEnemies() {
+		return enemies.removeDead();
+	}
+
+	/**
+	 * Give every enemy its own random stream derived from one seed and the enemy's index, so they move the same way in
+	 * every game started with that seed.
+	 */
+	public void seedEnemies(long seed) {
+		for (int i = 0; i < enemies.size(); i++) {
+			enemies.get(i).setSeed(RandomStream.derive(seed, i));
+		}
 	}
 
 	/**
 	 * @return the enemies
 	 */
-	public Vector<Enemy> getEnemies() {
+	public EnemyStore getEnemies() {
 		return enemies;
 	}
 
@@ -106,10 +406,17 @@ public class Level {
 	 * @param enemies
 	 *            the enemies to set
 	 */
-	public void setEnemies(Vector<Enemy> enemies) {
+	public void setEnemies(EnemyStore enemies) {
 		this.enemies = enemies;
 	}
 
+	/**
+	 * @return the spatial hash used to find the enemies near an area
+	 */
+	public SpatialHash getEnemyHash() {
+		return enemyHash;
+	}
+
 	public Block getBlockAt(int x, int y) {
 		return waterBlocks[x][y];
 	}
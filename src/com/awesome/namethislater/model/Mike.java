@@ -1,15 +1,16 @@
 package com.awesome.namethislater.model;
 
-import java.util.ArrayList;
-import java.util.List;
-
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
 
 public class Mike extends Drawable implements IDrawable {
 
 	public static final float SIZE = 1f; // The size of Mike
+	public static final float ATTACK_FRAME_TIME = 0.2f; // Each frame of the attacks, the chakram leaves on the second
+	public static final float ATTACK_TIME = 0.4f; // How long an attack lasts, the length of the attack animations
+	public static final float HURT_TIME = 0.5f; // How long Mike stays hurt and invincible after a hit
 
 	/** The different states that Mike can be in **/
 	public enum State {
@@ -22,7 +23,7 @@ public class Mike extends Drawable implements IDrawable {
 	State state = State.IDLE; // The state that Mike is in
 	Direction direction = Direction.DOWN; // The direction Mike is facing
 
-	List<Chakram> chakrams;
+	ProjectileManager projectiles;
 
 	boolean grounded; // Whether Mike is on the ground or not
 	boolean swimming;
@@ -31,14 +32,18 @@ public class Mike extends Drawable implements IDrawable {
 	boolean invincible;
 	float damageAmount;
 	float shadowPercentage; // The amount to scale Mike's jumping shadow
+	float attackTime; // The time since the attack began, or 0 if Mike is not attacking
+	float hurtTime; // The time since Mike was hurt, or 0 if he is not hurt
 
 	private float health;
 	private float stamina;
 
+	private final Array<MikeListener> listeners = new Array<MikeListener>(false, 2);
+
 	public Mike(Vector2 position) {
 		super(position, SIZE);
 
-		chakrams = new ArrayList<Chakram>();
+		projectiles = new ProjectileManager();
 
 		grounded = true;
 		updateDamageBounds(position);
@@ -51,31 +56,67 @@ public class Mike extends Drawable implements IDrawable {
 	}
 
 	/**
-	 * Update Mike's state time according to the delta.
+	 * Update Mike's state time according to the delta, and end his attack or the time he is hurt once they are over.
+	 * These are timed here rather than by the animations, so the game plays the same whatever the frame rate.
 	 * 
 	 * @param delta
-	 *            The time in seconds since the last render.
+	 *            The time in seconds since the last update.
 	 */
 	public void update(float delta) {
 		stateTime += delta;
 		baseY = position.y;
 
+		updateAttack(delta);
+		if (hurt) {
+			hurtTime += delta;
+			if (hurtTime > HURT_TIME) {
+				setHurt(false);
+				invincible = false;
+				setState(State.IDLE);
+			}
+		}
+
 		if (health <= 0) {
-			state = State.DYING;
+			setState(State.DYING);
 		} else {
 			// Set Mike to be invincible after he takes one hit.
 			invincible = hurt;
 		}
 
 		if (stamina <= 0) {
-			stamina = 100;
+			setStamina(100);
+		}
+	}
+
+	/**
+	 * Time the attack. Mike is set to attack once, when the attack reaches its second frame, so the chakram is thrown
+	 * on the next update. When the attack is over he goes back to idle, or to jumping if he is still in the air.
+	 */
+	private void updateAttack(float delta) {
+		attacking = false;
+		if (!isAttackingState()) {
+			attackTime = 0;
+			return;
+		}
+		float before = attackTime;
+		attackTime += delta;
+		if (before < ATTACK_FRAME_TIME && attackTime >= ATTACK_FRAME_TIME) {
+			attacking = true; // Attack!
+		}
+		if (attackTime > ATTACK_TIME) {
+			attackTime = 0;
+			if (state == State.JUMP_ATTACK && !grounded) {
+				setState(State.JUMPING);
+			} else {
+				setState(State.IDLE);
+			}
 		}
 	}
 
 	@Override
 	public void loadSprite(SpriteBatch spriteBatch) {
-		float x = position.x;
-		float y = position.y;
+		float x = renderPosition.x;
+		float y = renderPosition.y;
 
 		float width = SIZE;
 		float height = SIZE * 1.5f;
@@ -106,8 +147,9 @@ public class Mike extends Drawable implements IDrawable {
 		float originX = shadow.getX() + shadow.getWidth() / 2;
 		float originY = shadow.getY() + shadow.getHeight() / 2;
 
-		// Get the x and y coordinates to draw. These are the lower left corners of the ellipse.
-		float x = shadow.getX();
+		// Get the x and y coordinates to draw. These are the lower left corners of the ellipse. The shadow follows Mike
+		// across the ground, so move it along with his render position.
+		float x = shadow.getX() + (renderPosition.x - position.x);
 		float y = shadow.getY();
 
 		// Get the width and height of the shadow, and scale them according to the scale percentage.
@@ -124,23 +166,23 @@ public class Mike extends Drawable implements IDrawable {
 	}
 
 	/**
-	 * Throw a chakram. This creates a new Chakram and adds it to Mike's list of thrown chakrams.
+	 * Throw a chakram. This takes a Chakram from the projectile pool and adds it to Mike's list of thrown chakrams.
+	 * Nothing is thrown if too many chakrams are already in the air.
 	 */
 	public void attack() {
-		Chakram chakram = new Chakram(new Vector2(position.x, position.y), this, 0);
-		chakrams.add(chakram);
-		stamina -= 10;
+		if (projectiles.throwChakram(this, 0) != null) {
+			setStamina(stamina - 10);
+		}
 	}
 
 	/**
-	 * Throw a chakram. This creates a new Chakram and adds it to Mike's list of thrown chakrams. The air height is used to determine shadow position of the chakram.
+	 * Throw a chakram. This takes a Chakram from the projectile pool and adds it to Mike's list of thrown chakrams. The air height is used to determine shadow position of the chakram.
 	 * 
 	 * @param airHeight
 	 *            The height that Mike is in the air.
 	 */
 	public void jumpAttack(float airHeight) {
-		Chakram chakram = new Chakram(new Vector2(position.x, position.y), this, airHeight);
-		chakrams.add(chakram);
+		projectiles.throwChakram(this, airHeight);
 	}
 
 	/**
@@ -204,7 +246,7 @@ public class Mike extends Drawable implements IDrawable {
 	}
 
 	public void takeDamage(float damage) {
-		health -= damage;
+		setHealth(health - damage);
 	}
 
 	/**
@@ -238,7 +280,10 @@ public class Mike extends Drawable implements IDrawable {
 	 *            the grounded to set
 	 */
 	public void setGrounded(boolean grounded) {
-		this.grounded = grounded;
+		if (this.grounded != grounded) {
+			this.grounded = grounded;
+			fireStateChanged();
+		}
 	}
 
 	/**
@@ -283,7 +328,18 @@ public class Mike extends Drawable implements IDrawable {
 	 *            the hurt to set
 	 */
 	public void setHurt(boolean hurt) {
-		this.hurt = hurt;
+		if (this.hurt != hurt) {
+			this.hurt = hurt;
+			hurtTime = 0;
+			fireStateChanged();
+		}
+	}
+
+	/**
+	 * @return the time since the attack began, for the attack animations
+	 */
+	public float getAttackTime() {
+		return attackTime;
 	}
 
 	/**
@@ -302,18 +358,17 @@ public class Mike extends Drawable implements IDrawable {
 	}
 
 	/**
-	 * @return the chakras
+	 * @return the chakrams that are in the air
 	 */
-	public List<Chakram> getChakrams() {
-		return chakrams;
+	public Array<Chakram> getChakrams() {
+		return projectiles.getActive();
 	}
 
 	/**
-	 * @param chakras
-	 *            the chakras to set
+	 * @return the projectile manager that holds Mike's thrown chakrams
 	 */
-	public void setChakrams(List<Chakram> chakrams) {
-		this.chakrams = chakrams;
+	public ProjectileManager getProjectiles() {
+		return projectiles;
 	}
 
 	/**
@@ -328,7 +383,12 @@ public class Mike extends Drawable implements IDrawable {
 	 *            the health to set
 	 */
 	public void setHealth(float health) {
-		this.health = health;
+		if (this.health != health) {
+			this.health = health;
+			for (int i = 0; i < listeners.size; i++) {
+				listeners.get(i).healthChanged(this);
+			}
+		}
 	}
 
 	public float getStamina() {
@@ -336,7 +396,12 @@ public class Mike extends Drawable implements IDrawable {
 	}
 
 	public void setStamina(float stamina) {
-		this.stamina = stamina;
+		if (this.stamina != stamina) {
+			this.stamina = stamina;
+			for (int i = 0; i < listeners.size; i++) {
+				listeners.get(i).staminaChanged(this);
+			}
+		}
 	}
 
 	// TODO Add all states
@@ -362,7 +427,28 @@ public class Mike extends Drawable implements IDrawable {
 	 *            -Dying
 	 */
 	public void setState(State state) {
-		this.state = state;
+		if (this.state != state) {
+			this.state = state;
+			fireStateChanged();
+		}
+	}
+
+	private void fireStateChanged() {
+		for (int i = 0; i < listeners.size; i++) {
+			listeners.get(i).stateChanged(this);
+		}
+	}
+
+	/**
+	 * @param listener
+	 *            Told when Mike's health, stamina or state changes.
+	 */
+	public void addListener(MikeListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(MikeListener listener) {
+		listeners.removeValue(listener, true);
 	}
 
 	/**
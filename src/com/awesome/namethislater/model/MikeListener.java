@@ -0,0 +1,24 @@
+package com.awesome.namethislater.model;
+
+/**
+ * Told when something about Mike that is shown to the player changes. Each method is only called when the value is
+ * different from before, not every time it is set.
+ */
+public interface MikeListener {
+
+	/**
+	 * Mike's health went up or down.
+	 */
+	public void healthChanged(Mike mike);
+
+	/**
+	 * Mike's stamina went up or down.
+	 */
+	public void staminaChanged(Mike mike);
+
+	/**
+	 * Mike's state changed, or whether he is hurt or on the ground.
+	 */
+	public void stateChanged(Mike mike);
+
+}
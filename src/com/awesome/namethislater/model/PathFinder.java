@@ -0,0 +1,484 @@
+package com.awesome.namethislater.model;
+
+import com.awesome.namethislater.model.Drawable.Direction;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Finds paths between two tiles of a level with A*, for enemies that walk to their own goals rather than following the
+ * flow field toward Mike. Paths step to the eight neighbouring tiles, and only take a diagonal step when both of the
+ * tiles beside it are dry.
+ * <p>
+ * The open list is a binary heap of node numbers, and the nodes are kept in arrays, so a search does not allocate
+ * anything except the path it returns. The nodes are found by tile through a small hash table rather than arrays the
+ * size of the level, so the memory used only depends on the node budget. A search that expands more nodes than the
+ * budget stops and returns the path to the tile it reached closest to the goal, so one far away goal can not stall an
+ * update.
+ * <p>
+ * The last few paths found are kept, and used again for the same start and goal. When the level's tiles change, such as
+ * when a chunk of a streamed level is loaded or dropped, a kept path is checked tile by tile the next time it is asked
+ * for, and only searched for again if it now crosses water. A path kept after new land appears may no longer be the
+ * shortest, but it can still be walked. Not thread safe: only search from the update thread.
+ */
+public class PathFinder {
+
+	public static final int DEFAULT_NODE_BUDGET = 4096; // The most nodes one search expands
+	public static final int DEFAULT_CACHE_SIZE = 64; // The number of paths kept
+
+	private static final float DIAGONAL_COST = 1.4142135f;
+	/** Steps by direction ordinal: DOWN, LEFT, UP, RIGHT, DOWN_LEFT, UP_LEFT, UP_RIGHT, DOWN_RIGHT **/
+	private static final int[] DX = { 0, -1, 0, 1, -1, -1, 1, 1 };
+	private static final int[] DY = { -1, 0, 1, 0, -1, 1, 1, -1 };
+	private static final Direction[] STEP_DIRECTIONS = { Direction.DOWN_LEFT, Direction.LEFT, Direction.UP_LEFT,
+			Direction.DOWN, null, Direction.UP, Direction.DOWN_RIGHT, Direction.RIGHT, Direction.UP_RIGHT };
+
+	private static final int CLOSED = -1; // The heap index of a node that has been expanded
+
+	private final Level level;
+	private final int nodeBudget;
+
+	/** Nodes **/
+	private final int[] nodeCell; // The level cell of each node, y * width + x
+	private final float[] nodeCost; // The cost of the best path found from the start to the node
+	private final float[] nodeScore; // The cost plus the estimate of the cost left to the goal
+	private final int[] nodeParent; // The node before it on the best path, or -1 for the start
+	private final int[] nodeHeapIndex; // The node's place in the heap, or CLOSED
+	private final int[] nodeSlot; // The node's slot in the hash table, to clear it after the search
+	private int nodeCount;
+
+	/** Hash Table, from level cell to node **/
+	private final int[] slotCells; // The cell in each slot plus one, or 0 if the slot is empty
+	private final int[] slotNodes;
+	private final int slotMask;
+	private final int slotShift; // Keeps the top bits of the hashed cell, as many as it takes to number the slots
+
+	/** Open List **/
+	private final int[] heap; // Node numbers, with the lowest score first
+	private int heapSize;
+
+	/** Cache **/
+	private final long[] cacheKeys; // The start cell and goal cell of each kept path
+	private final Path[] cachePaths;
+	private final long[] cacheUsed; // When each path was last used, to replace the least recently used
+	private final int[] cacheChecked; // The tile version of the level when each kept path was last checked
+	private long useClock;
+
+	/** Metrics **/
+	private int searches; // The searches run, not counting paths taken from the cache
+	private int cacheHits;
+	private int budgetStops; // The searches stopped by the node budget
+	private long expandedNodes;
+	private long searchNanos; // The total time spent searching
+	private long maxSearchNanos;
+
+	public PathFinder(Level level) {
+		this(level, DEFAULT_NODE_BUDGET, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param level
+	 *            The level to find paths in.
+	 * @param nodeBudget
+	 *            The most nodes one search expands.
+	 * @param cacheSize
+	 *            The number of paths to keep.
+	 */
+	public PathFinder(Level level, int nodeBudget, int cacheSize) {
+		this.level = level;
+		this.nodeBudget = nodeBudget;
+
+		// Each expanded node adds at most eight more
+		int maxNodes = nodeBudget * DX.length + 1;
+		nodeCell = new int[maxNodes];
+		nodeCost = new float[maxNodes];
+		nodeScore = new float[maxNodes];
+		nodeParent = new int[maxNodes];
+		nodeHeapIndex = new int[maxNodes];
+		nodeSlot = new int[maxNodes];
+		heap = new int[maxNodes];
+
+		int slots = 1;
+		while (slots < maxNodes * 2) {
+			slots <<= 1;
+		}
+		slotCells = new int[slots];
+		slotNodes = new int[slots];
+		slotMask = slots - 1;
+		slotShift = 32 - Integer.numberOfTrailingZeros(slots);
+
+		cacheKeys = new long[cacheSize];
+		cachePaths = new Path[cacheSize];
+		cacheUsed = new long[cacheSize];
+		cacheChecked = new int[cacheSize];
+	}
+
+	/**
+	 * Find a path between two tiles, or take it from the cache if it was found recently.
+	 *
+	 * @return the path, from the start tile to the goal tile. If the goal could not be reached within the node budget,
+	 *         the path ends at the tile closest to it and is not complete.
+	 */
+	public Path findPath(int startX, int startY, int goalX, int goalY) {
+		int width = level.getWidth();
+		long key = (long) (startY * width + startX) << 32 | (goalY * width + goalX) & 0xFFFFFFFFL;
+		int version = level.getTileVersion();
+		int oldest = 0;
+		for (int i = 0; i < cachePaths.length; i++) {
+			if (cachePaths[i] != null && cacheKeys[i] == key) {
+				if (cacheChecked[i] == version || isWalkable(cachePaths[i], 0)) {
+					cacheChecked[i] = version;
+					cacheUsed[i] = ++useClock;
+					cacheHits++;
+					return cachePaths[i];
+				}
+				// The path crosses water now, so its place is the first to be used again
+				cachePaths[i] = null;
+				cacheUsed[i] = 0;
+			}
+			if (cacheUsed[i] < cacheUsed[oldest]) {
+				oldest = i;
+			}
+		}
+
+		long start = TimeUtils.nanoTime();
+		Path path = search(startX, startY, goalX, goalY);
+		long nanos = TimeUtils.nanoTime() - start;
+		searches++;
+		searchNanos += nanos;
+		maxSearchNanos = Math.max(maxSearchNanos, nanos);
+
+		// Partial paths are not kept, so the goal is tried again next time
+		if (path.isComplete() && cachePaths.length > 0) {
+			cacheKeys[oldest] = key;
+			cachePaths[oldest] = path;
+			cacheUsed[oldest] = ++useClock;
+			cacheChecked[oldest] = version;
+		}
+		return path;
+	}
+
+	private Path search(int startX, int startY, int goalX, int goalY) {
+		int width = level.getWidth();
+		int goalCell = goalY * width + goalX;
+		reset();
+
+		int first = addNode(startY * width + startX, 0, heuristic(startX, startY, goalX, goalY), -1);
+		push(first);
+		int best = first; // The node closest to the goal, for a partial path
+		float bestEstimate = nodeScore[first];
+		int expanded = 0;
+		boolean found = false;
+		while (heapSize > 0) {
+			int node = pop();
+			int cell = nodeCell[node];
+			if (cell == goalCell) {
+				best = node;
+				found = true;
+				break;
+			}
+			if (expanded == nodeBudget) {
+				budgetStops++;
+				break;
+			}
+			expanded++;
+
+			int x = cell % width;
+			int y = cell / width;
+			float estimate = nodeScore[node] - nodeCost[node];
+			if (estimate < bestEstimate) {
+				best = node;
+				bestEstimate = estimate;
+			}
+			for (int d = 0; d < DX.length; d++) {
+				int nx = x + DX[d];
+				int ny = y + DY[d];
+				if (!isDry(nx, ny)) {
+					continue;
+				}
+				boolean diagonal = DX[d] != 0 && DY[d] != 0;
+				if (diagonal && (!isDry(nx, y) || !isDry(x, ny))) {
+					continue;
+				}
+				float cost = nodeCost[node] + (diagonal ? DIAGONAL_COST : 1);
+				int neighbourCell = ny * width + nx;
+				int neighbour = findNode(neighbourCell);
+				if (neighbour < 0) {
+					push(addNode(neighbourCell, cost, cost + heuristic(nx, ny, goalX, goalY), node));
+				} else if (nodeHeapIndex[neighbour] != CLOSED && cost < nodeCost[neighbour]) {
+					nodeScore[neighbour] += cost - nodeCost[neighbour];
+					nodeCost[neighbour] = cost;
+					nodeParent[neighbour] = node;
+					siftUp(nodeHeapIndex[neighbour]);
+				}
+			}
+		}
+		expandedNodes += expanded;
+		return buildPath(best, found, width);
+	}
+
+	private Path buildPath(int last, boolean complete, int width) {
+		int length = 0;
+		for (int node = last; node >= 0; node = nodeParent[node]) {
+			length++;
+		}
+		int[] xs = new int[length];
+		int[] ys = new int[length];
+		int i = length;
+		for (int node = last; node >= 0; node = nodeParent[node]) {
+			i--;
+			xs[i] = nodeCell[node] % width;
+			ys[i] = nodeCell[node] / width;
+		}
+		return new Path(xs, ys, complete);
+	}
+
+	/**
+	 * Check whether the rest of a path can still be walked, after the level's tiles have changed. This only looks at
+	 * the tiles of the path, so it is much cheaper than finding the path again.
+	 *
+	 * @param path
+	 *            The path to check.
+	 * @param from
+	 *            The step of the path to check from.
+	 * @return whether every tile from the step on is dry, and no diagonal step cuts the corner of a water tile
+	 */
+	public boolean isWalkable(Path path, int from) {
+		for (int i = from; i < path.getLength(); i++) {
+			int x = path.getX(i);
+			int y = path.getY(i);
+			if (!isDry(x, y)) {
+				return false;
+			}
+			if (i > from) {
+				int lastX = path.getX(i - 1);
+				int lastY = path.getY(i - 1);
+				if (lastX != x && lastY != y && (!isDry(x, lastY) || !isDry(lastX, y))) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private boolean isDry(int x, int y) {
+		return x >= 0 && y >= 0 && x < level.getWidth() && y < level.getHeight() && !level.isWater(x, y);
+	}
+
+	/**
+	 * The octile distance: the cost of walking straight to the goal on dry land.
+	 */
+	private static float heuristic(int x, int y, int goalX, int goalY) {
+		int dx = Math.abs(goalX - x);
+		int dy = Math.abs(goalY - y);
+		return dx + dy + (DIAGONAL_COST - 2) * Math.min(dx, dy);
+	}
+
+	/** Nodes **/
+
+	private void reset() {
+		for (int i = 0; i < nodeCount; i++) {
+			slotCells[nodeSlot[i]] = 0;
+		}
+		nodeCount = 0;
+		heapSize = 0;
+	}
+
+	private int addNode(int cell, float cost, float score, int parent) {
+		int node = nodeCount++;
+		nodeCell[node] = cell;
+		nodeCost[node] = cost;
+		nodeScore[node] = score;
+		nodeParent[node] = parent;
+		int slot = hash(cell);
+		while (slotCells[slot] != 0) {
+			slot = (slot + 1) & slotMask;
+		}
+		slotCells[slot] = cell + 1;
+		slotNodes[slot] = node;
+		nodeSlot[node] = slot;
+		return node;
+	}
+
+	/**
+	 * @return the node for a cell, or -1 if the search has not reached it
+	 */
+	private int findNode(int cell) {
+		for (int slot = hash(cell); slotCells[slot] != 0; slot = (slot + 1) & slotMask) {
+			if (slotCells[slot] == cell + 1) {
+				return slotNodes[slot];
+			}
+		}
+		return -1;
+	}
+
+	private int hash(int cell) {
+		return cell * 0x9E3779B9 >>> slotShift;
+	}
+
+	/** Binary Heap **/
+
+	private void push(int node) {
+		heap[heapSize] = node;
+		nodeHeapIndex[node] = heapSize;
+		siftUp(heapSize++);
+	}
+
+	private int pop() {
+		int top = heap[0];
+		nodeHeapIndex[top] = CLOSED;
+		heapSize--;
+		if (heapSize > 0) {
+			heap[0] = heap[heapSize];
+			nodeHeapIndex[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	private void siftUp(int index) {
+		int node = heap[index];
+		float score = nodeScore[node];
+		while (index > 0) {
+			int parent = (index - 1) >> 1;
+			if (nodeScore[heap[parent]] <= score) {
+				break;
+			}
+			heap[index] = heap[parent];
+			nodeHeapIndex[heap[index]] = index;
+			index = parent;
+		}
+		heap[index] = node;
+		nodeHeapIndex[node] = index;
+	}
+
+	private void siftDown(int index) {
+		int node = heap[index];
+		float score = nodeScore[node];
+		while (true) {
+			int child = index * 2 + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && nodeScore[heap[child + 1]] < nodeScore[heap[child]]) {
+				child++;
+			}
+			if (nodeScore[heap[child]] >= score) {
+				break;
+			}
+			heap[index] = heap[child];
+			nodeHeapIndex[heap[index]] = index;
+			index = child;
+		}
+		heap[index] = node;
+		nodeHeapIndex[node] = index;
+	}
+
+	/** Cache **/
+
+	/**
+	 * Drop every kept path.
+	 */
+	public void clearCache() {
+		for (int i = 0; i < cachePaths.length; i++) {
+			cachePaths[i] = null;
+			cacheUsed[i] = 0;
+		}
+	}
+
+	/**
+	 * @return the direction of a step to a neighbouring tile, or null if the step does not move
+	 */
+	public static Direction getDirection(int dx, int dy) {
+		return STEP_DIRECTIONS[(Integer.signum(dx) + 1) * 3 + Integer.signum(dy) + 1];
+	}
+
+	/** Metrics **/
+
+	/**
+	 * @return the number of searches run, not counting paths taken from the cache
+	 */
+	public int getSearches() {
+		return searches;
+	}
+
+	/**
+	 * @return the number of paths taken from the cache
+	 */
+	public int getCacheHits() {
+		return cacheHits;
+	}
+
+	/**
+	 * @return the number of searches stopped by the node budget
+	 */
+	public int getBudgetStops() {
+		return budgetStops;
+	}
+
+	/**
+	 * @return the number of nodes expanded by every search
+	 */
+	public long getExpandedNodes() {
+		return expandedNodes;
+	}
+
+	/**
+	 * @return the total time spent searching, in nanoseconds
+	 */
+	public long getSearchNanos() {
+		return searchNanos;
+	}
+
+	/**
+	 * @return the longest search, in nanoseconds
+	 */
+	public long getMaxSearchNanos() {
+		return maxSearchNanos;
+	}
+
+	public void resetMetrics() {
+		searches = 0;
+		cacheHits = 0;
+		budgetStops = 0;
+		expandedNodes = 0;
+		searchNanos = 0;
+		maxSearchNanos = 0;
+	}
+
+	/**
+	 * A path of tiles from a start to a goal. Paths can be shared by several enemies, so they are never changed.
+	 */
+	public static class Path {
+
+		private final int[] xs, ys;
+		private final boolean complete;
+
+		Path(int[] xs, int[] ys, boolean complete) {
+			this.xs = xs;
+			this.ys = ys;
+			this.complete = complete;
+		}
+
+		/**
+		 * @return the number of tiles, including the start and the last tile
+		 */
+		public int getLength() {
+			return xs.length;
+		}
+
+		public int getX(int step) {
+			return xs[step];
+		}
+
+		public int getY(int step) {
+			return ys[step];
+		}
+
+		/**
+		 * @return whether the path reaches the goal, rather than stopping at the tile closest to it
+		 */
+		public boolean isComplete() {
+			return complete;
+		}
+	}
+
+}
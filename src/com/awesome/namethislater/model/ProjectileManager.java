@@ -0,0 +1,101 @@
+package com.awesome.namethislater.model;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Keeps track of the chakrams that are in the air. Chakrams are taken from a pool when thrown and returned to it when
+ * they hit something, so throwing does not create any garbage. Only a limited number of chakrams can be in the air at
+ * once.
+ */
+public class ProjectileManager {
+
+	public static final int DEFAULT_MAX_PROJECTILES = 16; // The default number of chakrams that can be in the air
+
+	private final Pool<Chakram> pool;
+	private final Array<Chakram> active;
+	private int maxProjectiles;
+
+	public ProjectileManager() {
+		this(DEFAULT_MAX_PROJECTILES);
+	}
+
+	/**
+	 * Create a new projectile manager.
+	 *
+	 * @param maxProjectiles
+	 *            The maximum number of chakrams that can be in the air at once.
+	 */
+	public ProjectileManager(int maxProjectiles) {
+		this.maxProjectiles = maxProjectiles;
+		active = new Array<Chakram>(maxProjectiles);
+		// No more chakrams are freed than were in the air at once, so the pool needs no cap of its own. A cap would
+		// drop the chakrams over it after the maximum is raised.
+		pool = new Pool<Chakram>(maxProjectiles) {
+			@Override
+			protected Chakram newObject() {
+				return new Chakram();
+			}
+		};
+	}
+
+	/**
+	 * Throw a chakram from the pool.
+	 *
+	 * @param mike
+	 *            The sprite that threw the chakram.
+	 * @param airHeight
+	 *            The height in the air that the chakram is. Used when the sprite is jumping.
+	 * @return The chakram that was thrown, or null if there are already too many chakrams in the air.
+	 */
+	public Chakram throwChakram(Mike mike, float airHeight) {
+		if (active.size >= maxProjectiles) {
+			return null;
+		}
+		Chakram chakram = pool.obtain();
+		chakram.init(mike.getPosition().x, mike.getPosition().y, mike, airHeight);
+		active.add(chakram);
+		return chakram;
+	}
+
+	/**
+	 * Remove a chakram from the air and return it to the pool.
+	 *
+	 * @param index
+	 *            The index of the chakram in the active chakrams.
+	 */
+	public void remove(int index) {
+		pool.free(active.removeIndex(index));
+	}
+
+	/**
+	 * Remove every chakram from the air and return them to the pool.
+	 */
+	public void clear() {
+		pool.freeAll(active);
+		active.clear();
+	}
+
+	/**
+	 * @return the chakrams that are in the air
+	 */
+	public Array<Chakram> getActive() {
+		return active;
+	}
+
+	/**
+	 * @return the maxProjectiles
+	 */
+	public int getMaxProjectiles() {
+		return maxProjectiles;
+	}
+
+	/**
+	 * @param maxProjectiles
+	 *            the maxProjectiles to set
+	 */
+	public void setMaxProjectiles(int maxProjectiles) {
+		this.maxProjectiles = maxProjectiles;
+	}
+
+}
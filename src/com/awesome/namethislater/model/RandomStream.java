@@ -0,0 +1,86 @@
+package com.awesome.namethislater.model;
+
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * A small, fast random number generator (SplitMix64). The state is one long that is not shared or synchronized, so
+ * each enemy or system keeps its own stream and can draw from it on any thread without contention.
+ * <p>
+ * Streams are split from one world seed with {@link #derive(long, long)}: each enemy or system gets the seed derived
+ * from the world seed and its own key, so its numbers do not depend on how many numbers any other stream has drawn.
+ */
+public class RandomStream {
+
+	private static final long GAMMA = 0x9E3779B97F4A7C15L; // The golden ratio, as a 64 bit fraction
+	private static final float FLOAT_UNIT = 1f / (1 << 24);
+
+	private static long uniquifier; // Keeps streams made in the same nanosecond apart
+
+	private long state;
+
+	/**
+	 * Create a stream with a seed taken from the clock, for when the numbers do not need to be repeated.
+	 */
+	public RandomStream() {
+		uniquifier += GAMMA;
+		state = mix(TimeUtils.nanoTime() + uniquifier);
+	}
+
+	/**
+	 * @param seed
+	 *            Streams with the same seed give the same numbers.
+	 */
+	public RandomStream(long seed) {
+		state = seed;
+	}
+
+	/**
+	 * Derive the seed of a stream from a parent seed and a key, such as an enemy's index. Different keys give
+	 * unrelated streams.
+	 */
+	public static long derive(long seed, long key) {
+		return mix(seed + (key + 1) * GAMMA);
+	}
+
+	/**
+	 * Scramble the bits of a long, so that nearby values give unrelated results.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	public void setSeed(long seed) {
+		state = seed;
+	}
+
+	public long nextLong() {
+		state += GAMMA;
+		return mix(state);
+	}
+
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	/**
+	 * @return a number from 0 up to but not including the bound, which must be positive
+	 */
+	public int nextInt(int bound) {
+		// Scales the top 32 bits into the range instead of using %, which is slower and favours small numbers more
+		return (int) (((nextLong() >>> 32) * bound) >>> 32);
+	}
+
+	/**
+	 * @return a number from 0 up to but not including 1
+	 */
+	public float nextFloat() {
+		return (nextLong() >>> 40) * FLOAT_UNIT;
+	}
+
+	public boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+
+}
@@ -0,0 +1,142 @@
+package com.awesome.namethislater.model;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A uniform grid that buckets enemies by the tile cell of their damage bounds. The grid is rebuilt once per update, and
+ * collision checks only look at the enemies in the buckets around the area being checked instead of every enemy in the
+ * level.
+ */
+public class SpatialHash {
+
+	private final int cellSize; // The size of each cell, in tiles
+	private final int columns, rows;
+
+	// The enemies sorted by cell. The enemies in cell i are entries[cellStart[i]] up to entries[cellStart[i + 1] - 1]
+	private final int[] cellStart;
+	private final int[] cellFill; // The next free index in each cell while rebuilding
+	private Enemy[] entries = new Enemy[16];
+	private int size;
+
+	// Used while rebuilding, to remember each enemy and its cell before they are sorted
+	private Enemy[] unsorted = new Enemy[16];
+	private int[] unsortedCells = new int[16];
+
+	/**
+	 * Create a new spatial hash covering a level.
+	 *
+	 * @param width
+	 *            The width of the level, in tiles.
+	 * @param height
+	 *            The height of the level, in tiles.
+	 * @param cellSize
+	 *            The size of each cell, in tiles. Enemies must not be larger than this.
+	 */
+	public SpatialHash(int width, int height, int cellSize) {
+		this.cellSize = cellSize;
+		columns = Math.max(1, (width + cellSize - 1) / cellSize);
+		rows = Math.max(1, (height + cellSize - 1) / cellSize);
+		cellStart = new int[columns * rows + 1];
+		cellFill = new int[columns * rows];
+	}
+
+	/**
+	 * Put every living enemy into the bucket for its current position. This should be called once per update, after the
+	 * enemies have moved. The positions are read from the store's packed arrays.
+	 *
+	 * @param enemies
+	 *            The enemies in the level.
+	 */
+	public void rebuild(EnemyStore enemies) {
+		int count = enemies.size();
+		// An enemy's damage bounds start at its position, so the packed positions can be used instead
+		float[] positionX = enemies.getPositionX();
+		float[] positionY = enemies.getPositionY();
+		if (unsorted.length < count) {
+			int capacity = Math.max(count, unsorted.length * 2);
+			unsorted = new Enemy[capacity];
+			unsortedCells = new int[capacity];
+			entries = new Enemy[capacity];
+		}
+
+		// Count the enemies in each cell
+		for (int i = 0; i < cellStart.length; i++) {
+			cellStart[i] = 0;
+		}
+		int previousSize = size;
+		size = 0;
+		for (int i = 0; i < count; i++) {
+			Enemy enemy = enemies.get(i);
+			if (enemy.isDead()) {
+				continue;
+			}
+			int cell = row(positionY[i]) * columns + column(positionX[i]);
+			unsorted[size] = enemy;
+			unsortedCells[size] = cell;
+			cellStart[cell + 1]++;
+			size++;
+		}
+
+		// Turn the counts into the starting index of each cell, then place each enemy into its cell
+		for (int i = 1; i < cellStart.length; i++) {
+			cellStart[i] += cellStart[i - 1];
+		}
+		System.arraycopy(cellStart, 0, cellFill, 0, cellFill.length);
+		for (int i = 0; i < size; i++) {
+			entries[cellFill[unsortedCells[i]]++] = unsorted[i];
+			unsorted[i] = null;
+		}
+		// Let go of enemies that are no longer in the level
+		for (int i = size; i < previousSize && i < entries.length; i++) {
+			entries[i] = null;
+		}
+	}
+
+	/**
+	 * Find the enemies that may overlap an area. The results include every enemy whose damage bounds overlap the area,
+	 * but can also include enemies that are close by, so callers still need to do their own overlap check.
+	 *
+	 * @param area
+	 *            The area to search.
+	 * @param margin
+	 *            Extra distance around the area to search. Use this to find enemies that may move into the area.
+	 * @param results
+	 *            The array to fill with the enemies found. It is cleared first.
+	 */
+	public void query(Rectangle area, float margin, Array<Enemy> results) {
+		results.clear();
+		// Enemies are bucketed by the lower left corner of their bounds, so look one cell further to the left and below
+		int startX = column(area.x - margin - cellSize);
+		int endX = column(area.x + area.width + margin);
+		int startY = row(area.y - margin - cellSize);
+		int endY = row(area.y + area.height + margin);
+
+		for (int y = startY; y <= endY; y++) {
+			for (int x = startX; x <= endX; x++) {
+				int cell = y * columns + x;
+				for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+					results.add(entries[i]);
+				}
+			}
+		}
+	}
+
+	private int column(float x) {
+		int column = (int) Math.floor(x / cellSize);
+		return Math.min(columns - 1, Math.max(0, column));
+	}
+
+	private int row(float y) {
+		int row = (int) Math.floor(y / cellSize);
+		return Math.min(rows - 1, Math.max(0, row));
+	}
+
+	/**
+	 * @return The number of enemies in the hash.
+	 */
+	public int size() {
+		return size;
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.awesome.namethislater.model;
+
+import com.badlogic.gdx.utils.Bits;
+
+/**
+ * A square piece of a streamed level. It holds the tile ids of every layer and the water flags for its cells, indexed
+ * by (y * size + x) from the bottom left corner of the chunk.
+ */
+public class TileChunk {
+
+	private final int chunkX, chunkY; // The position of the chunk, in chunks
+	private final int size; // The width and height of the chunk, in tiles
+	private final int[][] layerIds; // The tile ids of each layer, with Tiled's flip flags
+	private final Bits waterTiles;
+
+	public TileChunk(int chunkX, int chunkY, int size, int[][] layerIds, Bits waterTiles) {
+		this.chunkX = chunkX;
+		this.chunkY = chunkY;
+		this.size = size;
+		this.layerIds = layerIds;
+		this.waterTiles = waterTiles;
+	}
+
+	/**
+	 * @param x
+	 *            The x coordinate of the cell in the chunk.
+	 * @param y
+	 *            The y coordinate of the cell in the chunk.
+	 * @return True if the cell is a water tile.
+	 */
+	public boolean isWater(int x, int y) {
+		return waterTiles.get(y * size + x);
+	}
+
+	/**
+	 * @return the tile id of a cell in a layer, with Tiled's flip flags, or 0 if the cell is empty
+	 */
+	public int getTileId(int layer, int x, int y) {
+		return layerIds[layer][y * size + x];
+	}
+
+	public int getChunkX() {
+		return chunkX;
+	}
+
+	public int getChunkY() {
+		return chunkY;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+}
@@ -17,15 +17,41 @@ public class World {
 	Room room;
 	/** The collision boxes **/
 	Array<Rectangle> collisionRects = new Array<Rectangle>();
+	/** The seed the enemies were given, or 0 if they were not seeded **/
+	long seed;
 
 	public World() {
-		createDemoWorld();
+		createDemoWorld(new Level());
 	}
 
-	private void createDemoWorld() {
-		level = new Level();
+	/**
+	 * Create a world for a level that has already been loaded.
+	 * 
+	 * @param level
+	 *            The level to play.
+	 */
+	public World(Level level) {
+		createDemoWorld(level);
+	}
+
+	/**
+	 * Create a world for a level that has already been loaded, and seed its enemies so the game can be played back.
+	 * 
+	 * @param level
+	 *            The level to play. It should not have been played yet.
+	 * @param seed
+	 *            The seed for the enemies' random numbers.
+	 */
+	public World(Level level, long seed) {
+		createDemoWorld(level);
+		this.seed = seed;
+		level.seedEnemies(seed);
+	}
+
+	private void createDemoWorld(Level level) {
+		this.level = level;
 		room = new Room();
-		mike = new Mike(new Vector2(2, 2));
+		mike = new Mike(new Vector2(level.getStartingPosition().x, level.getStartingPosition().y));
 	}
 
 	public List<Block> getWaterBlocks(int width, int height) {
@@ -90,6 +116,39 @@ public class World {
 		return blocks;
 	}
 
+	/**
+	 * Store the current position of every drawable as its previous position. Call this before each update.
+	 */
+	public void savePositions() {
+		mike.savePosition();
+		EnemyStore enemies = level.getEnemies();
+		for (int i = 0; i < enemies.size(); i++) {
+			enemies.get(i).savePosition();
+		}
+		Array<Chakram> chakrams = mike.getChakrams();
+		for (int i = 0; i < chakrams.size; i++) {
+			chakrams.get(i).savePosition();
+		}
+	}
+
+	/**
+	 * Set the render position of every drawable between its previous and current position.
+	 * 
+	 * @param alpha
+	 *            How far the time being drawn is between the last update and the next one, from 0 to 1.
+	 */
+	public void interpolate(float alpha) {
+		mike.interpolate(alpha);
+		EnemyStore enemies = level.getEnemies();
+		for (int i = 0; i < enemies.size(); i++) {
+			enemies.get(i).interpolate(alpha);
+		}
+		Array<Chakram> chakrams = mike.getChakrams();
+		for (int i = 0; i < chakrams.size; i++) {
+			chakrams.get(i).interpolate(alpha);
+		}
+	}
+
 	public Array<Rectangle> getCollisionRects() {
 		return collisionRects;
 	}
@@ -106,4 +165,11 @@ public class World {
 		return room;
 	}
 
+	/**
+	 * @return the seed the enemies were given, or 0 if they were not seeded
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
 }
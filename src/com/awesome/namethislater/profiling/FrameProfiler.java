@@ -0,0 +1,324 @@
+package com.awesome.namethislater.profiling;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Times each phase of a frame, and keeps the times of the last few seconds of frames. Surround the code for a phase
+ * with {@link #begin(Phase)} and {@link #end(Phase)}, and call {@link #endFrame()} once the frame is drawn. A phase can
+ * run more than once in a frame, and its times are added together.
+ * <p>
+ * Phases can be nested, such as the input read during Mike's update. The time of the inner phase is only counted for
+ * the inner phase, and taken out of the phase around it, so the phases of a frame add up to the time they took.
+ * <p>
+ * While the profiler is turned off, begin and end only check a flag, so the calls can stay in every build. Nothing is
+ * allocated while it is turned on.
+ */
+public class FrameProfiler {
+
+	public static final int DEFAULT_WINDOW = 300; // The number of frames to keep, five seconds at 60 FPS
+
+	/**
+	 * The parts of a frame that are timed.
+	 */
+	public enum Phase {
+		INPUT("Input"), MIKE_UPDATE("Mike"), WORLD_UPDATE("World"), TILEMAP("Tiles"), SPRITES("Sprites"), OVERLAY(
+				"Overlay"), UI("UI");
+
+		private final String label; // The name shown on the overlay and in the CSV
+
+		private Phase(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	private static final Phase[] PHASES = Phase.values(); // Cached, because values() copies the array
+
+	private final int window;
+	private boolean enabled;
+	private GcCounter gcCounter; // Null if the platform can not count garbage collections
+
+	/** Current Frame **/
+	private final long[] starts = new long[PHASES.length]; // The time each phase began
+	private final long[] totals = new long[PHASES.length]; // The time spent in each phase this frame
+	private final int[] open = new int[PHASES.length]; // The ordinals of the phases begun and not ended, innermost last
+	private int depth; // The number of phases begun and not ended
+	private int renderCalls; // The draw calls made this frame
+	private long lastFrame; // The time the last frame ended, or 0 if no frame has ended since turning on
+	private long lastCollections; // The garbage collection count at the end of the last frame
+
+	/** History **/
+	private RollingHistogram[] phaseTimes; // Created the first time the profiler is turned on
+	private RollingHistogram frameTimes;
+	private RollingHistogram renderCallCounts;
+	private RollingHistogram collections;
+	private long collectionsSinceEnabled;
+	private long collectionMillisAtEnable;
+
+	/** Startup **/
+	private long launchTime; // When the game started loading, or 0 if it was not marked
+	private long timeToFirstFrame; // From the launch to the end of the first frame of play, or 0 if not there yet
+
+	public FrameProfiler() {
+		this(DEFAULT_WINDOW);
+	}
+
+	/**
+	 * @param window
+	 *            The number of frames to keep.
+	 */
+	public FrameProfiler(int window) {
+		this.window = window;
+	}
+
+	/**
+	 * Start timing a phase.
+	 */
+	public void begin(Phase phase) {
+		if (enabled) {
+			if (depth < open.length) {
+				open[depth++] = phase.ordinal();
+			}
+			starts[phase.ordinal()] = TimeUtils.nanoTime();
+		}
+	}
+
+	/**
+	 * Stop timing a phase, and add the time since {@link #begin(Phase)} to this frame's total for the phase. If the
+	 * phase was begun inside another, the time is taken out of the other phase's total.
+	 */
+	public void end(Phase phase) {
+		if (enabled) {
+			int i = phase.ordinal();
+			long time = TimeUtils.nanoTime() - starts[i];
+			totals[i] += time;
+			if (depth > 0 && open[depth - 1] == i) {
+				depth--;
+				if (depth > 0) {
+					totals[open[depth - 1]] -= time;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param calls
+	 *            The number of draw calls a batch made this frame, usually its renderCalls after end().
+	 */
+	public void addRenderCalls(int calls) {
+		if (enabled) {
+			renderCalls += calls;
+		}
+	}
+
+	/**
+	 * Record this frame's times and start the next frame.
+	 */
+	public void endFrame() {
+		if (!enabled) {
+			return;
+		}
+		long now = TimeUtils.nanoTime();
+		if (lastFrame != 0) {
+			frameTimes.add(now - lastFrame);
+			for (int i = 0; i < PHASES.length; i++) {
+				phaseTimes[i].add(totals[i]);
+			}
+			renderCallCounts.add(renderCalls);
+			long count = gcCounter != null ? gcCounter.getCollections() : 0;
+			collections.add(count - lastCollections);
+			collectionsSinceEnabled += count - lastCollections;
+			lastCollections = count;
+		}
+		for (int i = 0; i < PHASES.length; i++) {
+			totals[i] = 0;
+		}
+		renderCalls = 0;
+		lastFrame = now;
+	}
+
+	/**
+	 * Mark the moment the game started loading, to measure the time to the first frame from.
+	 */
+	public void markLaunch() {
+		launchTime = TimeUtils.nanoTime();
+		timeToFirstFrame = 0;
+	}
+
+	/**
+	 * Mark the end of the first frame of play. Only the first call after {@link #markLaunch()} is recorded, whether or
+	 * not the profiler is turned on.
+	 */
+	public void markFirstFrame() {
+		if (launchTime != 0 && timeToFirstFrame == 0) {
+			timeToFirstFrame = TimeUtils.nanoTime() - launchTime;
+		}
+	}
+
+	/**
+	 * @return the nanoseconds from {@link #markLaunch()} to {@link #markFirstFrame()}, or 0 if either has not happened
+	 */
+	public long getTimeToFirstFrame() {
+		return timeToFirstFrame;
+	}
+
+	/**
+	 * Add a summary of the recorded frames to a string, one line for the frame time and each phase with its median,
+	 * 99th percentile and worst time in milliseconds, then the draw calls, the time to the first frame and garbage
+	 * collections.
+	 *
+	 * @param text
+	 *            The builder to add the summary to.
+	 */
+	public void appendSummary(StringBuilder text) {
+		if (phaseTimes == null) {
+			return;
+		}
+		text.append("ms       p50   p99   max\n");
+		appendLine(text, "Frame", frameTimes);
+		for (int i = 0; i < PHASES.length; i++) {
+			appendLine(text, PHASES[i].getLabel(), phaseTimes[i]);
+		}
+		text.append("Draw calls ").append(renderCallCounts.percentile(50)).append(" (max ")
+				.append(renderCallCounts.max()).append(")\n");
+		if (timeToFirstFrame != 0) {
+			text.append("First frame");
+			appendMillis(text, timeToFirstFrame);
+			text.append('\n');
+		}
+		text.append("GCs ").append(collectionsSinceEnabled);
+		if (gcCounter != null) {
+			text.append(" (").append(gcCounter.getCollectionMillis() - collectionMillisAtEnable).append("ms)");
+		} else {
+			text.append(" (not available)");
+		}
+	}
+
+	private void appendLine(StringBuilder text, String label, RollingHistogram times) {
+		text.append(label);
+		for (int i = label.length(); i < 7; i++) {
+			text.append(' ');
+		}
+		appendMillis(text, times.percentile(50));
+		appendMillis(text, times.percentile(99));
+		appendMillis(text, times.max());
+		text.append('\n');
+	}
+
+	/**
+	 * Add a time in milliseconds with two decimal places. Formatted by hand, because String.format is not available on
+	 * every platform.
+	 */
+	private static void appendMillis(StringBuilder text, long nanos) {
+		long hundredths = (nanos + 5000) / 10000;
+		text.append(' ').append(hundredths / 100).append('.');
+		long fraction = hundredths % 100;
+		if (fraction < 10) {
+			text.append('0');
+		}
+		text.append(fraction);
+	}
+
+	/**
+	 * Write every recorded frame to a CSV file, oldest first. Each row has the frame time and the time of each phase in
+	 * milliseconds, then the draw calls and garbage collections of the frame.
+	 *
+	 * @param file
+	 *            The file to write.
+	 */
+	public void writeCsv(FileHandle file) {
+		StringBuilder csv = new StringBuilder();
+		csv.append("frame,frame ms");
+		for (int i = 0; i < PHASES.length; i++) {
+			csv.append(',').append(PHASES[i].getLabel()).append(" ms");
+		}
+		csv.append(",draw calls,gcs\n");
+		int frames = frameTimes != null ? frameTimes.size() : 0;
+		for (int frame = 0; frame < frames; frame++) {
+			csv.append(frame).append(',');
+			appendCsvMillis(csv, frameTimes.get(frame));
+			for (int i = 0; i < PHASES.length; i++) {
+				csv.append(',');
+				appendCsvMillis(csv, phaseTimes[i].get(frame));
+			}
+			csv.append(',').append(renderCallCounts.get(frame));
+			csv.append(',').append(collections.get(frame)).append('\n');
+		}
+		file.writeString(csv.toString(), false);
+	}
+
+	private static void appendCsvMillis(StringBuilder csv, long nanos) {
+		csv.append(nanos / 1000000).append('.');
+		String micros = Long.toString(nanos / 1000 % 1000);
+		for (int i = micros.length(); i < 3; i++) {
+			csv.append('0');
+		}
+		csv.append(micros);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param enabled
+	 *            whether to record frames. The history is cleared when the profiler is turned on.
+	 */
+	public void setEnabled(boolean enabled) {
+		if (enabled && !this.enabled) {
+			if (phaseTimes == null) {
+				phaseTimes = new RollingHistogram[PHASES.length];
+				for (int i = 0; i < PHASES.length; i++) {
+					phaseTimes[i] = new RollingHistogram(window);
+				}
+				frameTimes = new RollingHistogram(window);
+				renderCallCounts = new RollingHistogram(window);
+				collections = new RollingHistogram(window);
+			} else {
+				for (int i = 0; i < PHASES.length; i++) {
+					phaseTimes[i].clear();
+				}
+				frameTimes.clear();
+				renderCallCounts.clear();
+				collections.clear();
+			}
+			lastFrame = 0;
+			depth = 0;
+			collectionsSinceEnabled = 0;
+			lastCollections = gcCounter != null ? gcCounter.getCollections() : 0;
+			collectionMillisAtEnable = gcCounter != null ? gcCounter.getCollectionMillis() : 0;
+		}
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return the phase times of the recorded frames, or null if the profiler has never been turned on
+	 */
+	public RollingHistogram getPhaseTimes(Phase phase) {
+		return phaseTimes != null ? phaseTimes[phase.ordinal()] : null;
+	}
+
+	/**
+	 * @return the time between the recorded frames, or null if the profiler has never been turned on
+	 */
+	public RollingHistogram getFrameTimes() {
+		return frameTimes;
+	}
+
+	public GcCounter getGcCounter() {
+		return gcCounter;
+	}
+
+	/**
+	 * @param gcCounter
+	 *            counts the garbage collections, or null if the platform can not count them
+	 */
+	public void setGcCounter(GcCounter gcCounter) {
+		this.gcCounter = gcCounter;
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.awesome.namethislater.profiling;
+
+/**
+ * Counts the garbage collections the platform has run. This is separate from the profiler because it can only be read
+ * on some platforms.
+ */
+public interface GcCounter {
+
+	/**
+	 * @return the number of garbage collections since the program started
+	 */
+	public long getCollections();
+
+	/**
+	 * @return the total time in milliseconds spent in garbage collections since the program started
+	 */
+	public long getCollectionMillis();
+
+}
@@ -0,0 +1,38 @@
+package com.awesome.namethislater.profiling;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+/**
+ * Reads the garbage collections from the JVM's management beans. Only available on the desktop, so this class is
+ * excluded from the GWT module.
+ */
+public class ManagementGcCounter implements GcCounter {
+
+	private final GarbageCollectorMXBean[] collectors;
+
+	public ManagementGcCounter() {
+		List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+		collectors = beans.toArray(new GarbageCollectorMXBean[beans.size()]);
+	}
+
+	@Override
+	public long getCollections() {
+		long count = 0;
+		for (int i = 0; i < collectors.length; i++) {
+			count += Math.max(0, collectors[i].getCollectionCount());
+		}
+		return count;
+	}
+
+	@Override
+	public long getCollectionMillis() {
+		long millis = 0;
+		for (int i = 0; i < collectors.length; i++) {
+			millis += Math.max(0, collectors[i].getCollectionTime());
+		}
+		return millis;
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.awesome.namethislater.profiling;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the last few samples of a value, and finds percentiles of them. Adding a sample is a single array write, so it
+ * can be done every frame. The percentiles sort a copy of the samples, so read them only when they are shown.
+ */
+public class RollingHistogram {
+
+	private final long[] samples; // The samples, oldest first once the window has filled
+	private final long[] sorted; // A copy of the samples used to find percentiles
+	private int next; // The index the next sample is written to
+	private int count; // The number of samples held, up to the window size
+	private boolean dirty; // Whether samples were added since the copy was last sorted
+
+	/**
+	 * @param window
+	 *            The number of samples to keep.
+	 */
+	public RollingHistogram(int window) {
+		samples = new long[window];
+		sorted = new long[window];
+	}
+
+	public void add(long sample) {
+		samples[next] = sample;
+		next = (next + 1) % samples.length;
+		if (count < samples.length) {
+			count++;
+		}
+		dirty = true;
+	}
+
+	/**
+	 * @param percentile
+	 *            The percentile to find, from 0 to 100.
+	 * @return the sample at the percentile, or 0 if there are no samples
+	 */
+	public long percentile(float percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		if (dirty) {
+			System.arraycopy(samples, 0, sorted, 0, count);
+			Arrays.sort(sorted, 0, count);
+			dirty = false;
+		}
+		int index = (int) Math.ceil(percentile / 100 * count) - 1;
+		return sorted[Math.max(0, Math.min(count - 1, index))];
+	}
+
+	/**
+	 * @return the largest sample held
+	 */
+	public long max() {
+		long max = 0;
+		for (int i = 0; i < count; i++) {
+			max = Math.max(max, samples[i]);
+		}
+		return max;
+	}
+
+	/**
+	 * @param age
+	 *            How many samples ago the sample was added, where 0 is the oldest held.
+	 * @return the sample
+	 */
+	public long get(int age) {
+		int start = count < samples.length ? 0 : next;
+		return samples[(start + age) % samples.length];
+	}
+
+	/**
+	 * @return the number of samples held
+	 */
+	public int size() {
+		return count;
+	}
+
+	public void clear() {
+		next = 0;
+		count = 0;
+		dirty = false;
+	}
+
+}
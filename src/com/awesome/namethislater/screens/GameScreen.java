@@ -3,10 +3,15 @@ package com.awesome.namethislater.screens;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.awesome.namethislater.assets.LevelManifest;
+import com.awesome.namethislater.controller.InputRecording;
 import com.awesome.namethislater.controller.MikeController;
+import com.awesome.namethislater.controller.Simulation;
 import com.awesome.namethislater.controller.WorldController;
+import com.awesome.namethislater.model.ChunkLoaderFactory;
 import com.awesome.namethislater.model.Level;
 import com.awesome.namethislater.model.World;
+import com.awesome.namethislater.profiling.FrameProfiler;
 import com.awesome.namethislater.view.Renderer;
 import com.awesome.namethislater.view.UIHandler;
 import com.badlogic.gdx.Application.ApplicationType;
@@ -14,22 +19,67 @@ import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputProcessor;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL10;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.TimeUtils;
 
 public class GameScreen implements Screen, InputProcessor {
 
+	private static final String PROFILE_FILE = "profile.csv"; // The file the profiler writes to, in local storage
+	private static final String RECORDING_FILE = "replay." + InputRecording.EXTENSION; // Written when R is pressed
+	private static final int PRELOAD_MILLIS = 2; // The time to give the asset manager each frame while preloading
+
 	private World world;
 	private Level level;
 	private Renderer renderer;
+	private Simulation simulation;
 	private MikeController controller;
 	private WorldController worldController;
 	private UIHandler uiHandler;
+	private TextureAtlas atlas; // The sprites and HUD art, shared by the renderer and the HUD
+	private final FrameProfiler profiler;
+	private ChunkLoaderFactory chunkLoaders; // Null to read the chunks of streamed levels on the update thread
+
+	/** Assets **/
+	private final AssetManager assets; // Owns the level and the atlas, and is disposed with the screen
+	private LevelManifest manifest; // The level being played
+	private LevelManifest nextManifest; // The level loading in the background, or null
+	private boolean firstFrame = true;
 
 	private int width, height;
 
 	private boolean android = true;
 	private boolean desktop = true;
 
+	public GameScreen() {
+		this(new FrameProfiler());
+	}
+
+	/**
+	 * @param profiler
+	 *            Times each part of a frame. Press P to show the times, and O to write them to a file.
+	 */
+	public GameScreen(FrameProfiler profiler) {
+		this(profiler, LevelManifest.createAssetManager(), new LevelManifest(Level.getDefaultFile()));
+	}
+
+	/**
+	 * @param profiler
+	 *            Times each part of a frame.
+	 * @param assets
+	 *            The asset manager with the level's assets, made by {@link LevelManifest#createAssetManager()}. If they
+	 *            have not been loaded by a {@link LoadingScreen}, they are loaded when the screen is shown.
+	 * @param manifest
+	 *            The level to play.
+	 */
+	public GameScreen(FrameProfiler profiler, AssetManager assets, LevelManifest manifest) {
+		this.profiler = profiler;
+		this.assets = assets;
+		this.manifest = manifest;
+	}
+
 	@Override
 	public void render(float delta) {
 		Gdx.gl.glClearColor(0.1f, 0.1f, 0.1f, 1);
@@ -39,10 +89,62 @@ public class GameScreen implements Screen, InputProcessor {
 		Gdx.gl.glHint(GL10.GL_POLYGON_SMOOTH_HINT, GL10.GL_NICEST);
 		Gdx.gl.glHint(GL10.GL_POINT_SMOOTH_HINT, GL10.GL_NICEST);
 
-		controller.update(delta);
-		worldController.update(delta);
+		simulation.update(delta);
 		renderer.render(delta);
 		uiHandler.render(delta);
+		profiler.endFrame();
+
+		if (firstFrame) {
+			firstFrame = false;
+			profiler.markFirstFrame();
+			if (profiler.getTimeToFirstFrame() != 0) {
+				Gdx.app.log("GameScreen", "First frame after " + profiler.getTimeToFirstFrame() / 1000000 + "ms");
+			}
+		}
+		if (nextManifest != null && !nextManifest.isLoaded(assets)) {
+			assets.update(PRELOAD_MILLIS);
+		}
+	}
+
+	/**
+	 * Start loading another level in the background while this one plays. Only a couple of milliseconds a frame are
+	 * spent on this thread, to upload the textures. Call {@link #startNextLevel()} to switch to it once it is loaded. A
+	 * level still loading from an earlier call is finished and then unloaded, so its assets are not left behind.
+	 *
+	 * @param level
+	 *            The TMX or compiled level file.
+	 */
+	public void preloadLevel(FileHandle level) {
+		if (nextManifest != null) {
+			nextManifest.unload(assets);
+		}
+		nextManifest = new LevelManifest(level);
+		nextManifest.queue(assets);
+	}
+
+	/**
+	 * @return whether the level from {@link #preloadLevel(FileHandle)} is ready to play
+	 */
+	public boolean isNextLevelLoaded() {
+		return nextManifest != null && nextManifest.isLoaded(assets);
+	}
+
+	/**
+	 * Switch to the preloaded level, and unload the assets of this one that the next level does not use. Finishes
+	 * loading the next level first if it is not ready yet.
+	 */
+	public void startNextLevel() {
+		if (nextManifest == null) {
+			return;
+		}
+		assets.finishLoading();
+		renderer.dispose();
+		uiHandler.dispose();
+		manifest.unload(assets);
+		manifest = nextManifest;
+		nextManifest = null;
+		create();
+		renderer.setSize(width, height);
 	}
 
 	@Override
@@ -52,6 +154,23 @@ public class GameScreen implements Screen, InputProcessor {
 		renderer.setSize(width, height);
 	}
 
+	public Simulation getSimulation() {
+		return simulation;
+	}
+
+	public FrameProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * @param chunkLoaders
+	 *            Makes the loaders for the chunks of streamed levels, or null to read them on the update thread. Only
+	 *            used by levels created after it is set.
+	 */
+	public void setChunkLoaders(ChunkLoaderFactory chunkLoaders) {
+		this.chunkLoaders = chunkLoaders;
+	}
+
 	public int getWidth() {
 		return width;
 	}
@@ -62,17 +181,34 @@ public class GameScreen implements Screen, InputProcessor {
 
 	@Override
 	public void show() {
-		world = new World();
+		if (!manifest.isLoaded(assets)) {
+			manifest.queue(assets);
+			assets.finishLoading();
+		}
+		create();
+	}
+
+	private void create() {
+		long seed = TimeUtils.millis();
+		world = new World(manifest.getLevel(assets), seed);
 		level = world.getLevel();
+		if (level.isStreaming() && chunkLoaders != null) {
+			// Read the chunks off this thread, so walking into a new part of the level does not stall a frame
+			level.getChunks().setLoader(chunkLoaders.newLoader());
+		}
 
-		controller = new MikeController(world);
-		worldController = new WorldController(world);
+		simulation = new Simulation(world, profiler);
+		// Every game is recorded, so one that went wrong can be saved and played back with ReplayRunner
+		simulation.setRecording(new InputRecording(manifest.getLevelPath(), seed, simulation.getTickRate()));
+		controller = simulation.getMikeController();
+		worldController = simulation.getWorldController();
 
 		android = Gdx.app.getType().equals(ApplicationType.Android);
 		desktop = Gdx.app.getType().equals(ApplicationType.Desktop);
 
-		renderer = new Renderer(world, true);
-		uiHandler = new UIHandler(world, controller, android);
+		atlas = manifest.getAtlas(assets);
+		renderer = new Renderer(world, atlas, profiler, true);
+		uiHandler = new UIHandler(world, controller, atlas, profiler, android);
 
 		if (desktop) {
 			Gdx.input.setInputProcessor(this);
@@ -100,6 +236,7 @@ public class GameScreen implements Screen, InputProcessor {
 	public void dispose() {
 		renderer.dispose();
 		uiHandler.dispose();
+		assets.dispose();
 	}
 
 	@Override
@@ -160,6 +297,17 @@ public class GameScreen implements Screen, InputProcessor {
 		case Keys.S:
 			controller.attackReleased();
 			break;
+		case Keys.P:
+			profiler.setEnabled(!profiler.isEnabled());
+			break;
+		case Keys.O:
+			if (profiler.isEnabled()) {
+				profiler.writeCsv(Gdx.files.local(PROFILE_FILE));
+			}
+			break;
+		case Keys.R:
+			simulation.getRecording().save(Gdx.files.local(RECORDING_FILE));
+			break;
 		case Keys.D:
 			renderer.setDebug(!renderer.isDebug());
 		case Keys.I:
@@ -0,0 +1,123 @@
+package com.awesome.namethislater.screens;
+
+import com.awesome.namethislater.assets.LevelManifest;
+import com.awesome.namethislater.model.ChunkLoaderFactory;
+import com.awesome.namethislater.profiling.FrameProfiler;
+import com.badlogic.gdx.Game;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL10;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+
+/**
+ * Shows a progress bar while the assets of a level load, then starts the level. The asset manager decodes images and
+ * builds the level on its own thread, and each frame gives it a few milliseconds on this thread to upload textures.
+ */
+public class LoadingScreen implements Screen {
+
+	private static final int UPDATE_MILLIS = 12; // The time to give the asset manager each frame
+	private static final float BAR_WIDTH = 0.6f; // Of the screen width
+	private static final float BAR_HEIGHT = 12f; // In pixels
+	private static final Color BAR_BACKGROUND_COLOR = new Color(0.25f, 0.25f, 0.25f, 1f);
+	private static final Color BAR_COLOR = new Color(0.9f, 0.9f, 0.9f, 1f);
+
+	private final Game game;
+	private final AssetManager assets;
+	private final LevelManifest manifest;
+	private final FrameProfiler profiler;
+	private ChunkLoaderFactory chunkLoaders; // Passed to the game screen
+
+	private OrthographicCamera camera;
+	private ShapeRenderer shapeRenderer;
+	private int width, height;
+
+	/**
+	 * @param game
+	 *            The game, to start the level on once it has loaded.
+	 * @param assets
+	 *            The asset manager to load with. It is handed to the game screen afterwards.
+	 * @param manifest
+	 *            The level to load. It is queued when the screen is shown.
+	 * @param profiler
+	 *            Passed to the game screen.
+	 */
+	public LoadingScreen(Game game, AssetManager assets, LevelManifest manifest, FrameProfiler profiler) {
+		this.game = game;
+		this.assets = assets;
+		this.manifest = manifest;
+		this.profiler = profiler;
+	}
+
+	@Override
+	public void show() {
+		camera = new OrthographicCamera();
+		shapeRenderer = new ShapeRenderer();
+		manifest.queue(assets);
+	}
+
+	@Override
+	public void render(float delta) {
+		if (assets.update(UPDATE_MILLIS)) {
+			GameScreen screen = new GameScreen(profiler, assets, manifest);
+			screen.setChunkLoaders(chunkLoaders);
+			game.setScreen(screen);
+			dispose();
+			return;
+		}
+
+		Gdx.gl.glClearColor(0.1f, 0.1f, 0.1f, 1);
+		Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
+
+		float barWidth = width * BAR_WIDTH;
+		float x = (width - barWidth) / 2;
+		float y = (height - BAR_HEIGHT) / 2;
+		shapeRenderer.setProjectionMatrix(camera.combined);
+		shapeRenderer.begin(ShapeType.Filled);
+		shapeRenderer.setColor(BAR_BACKGROUND_COLOR);
+		shapeRenderer.rect(x, y, barWidth, BAR_HEIGHT);
+		shapeRenderer.setColor(BAR_COLOR);
+		shapeRenderer.rect(x, y, barWidth * assets.getProgress(), BAR_HEIGHT);
+		shapeRenderer.end();
+	}
+
+	/**
+	 * @param chunkLoaders
+	 *            Makes the loaders for the chunks of streamed levels, or null to read them on the update thread. Passed
+	 *            to the game screen.
+	 */
+	public void setChunkLoaders(ChunkLoaderFactory chunkLoaders) {
+		this.chunkLoaders = chunkLoaders;
+	}
+
+	@Override
+	public void resize(int width, int height) {
+		this.width = width;
+		this.height = height;
+		camera.setToOrtho(false, width, height);
+	}
+
+	@Override
+	public void hide() {
+	}
+
+	@Override
+	public void pause() {
+	}
+
+	@Override
+	public void resume() {
+	}
+
+	@Override
+	public void dispose() {
+		if (shapeRenderer != null) {
+			shapeRenderer.dispose();
+			shapeRenderer = null;
+		}
+	}
+
+}
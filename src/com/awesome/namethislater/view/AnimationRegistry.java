@@ -0,0 +1,150 @@
+package com.awesome.namethislater.view;
+
+import com.awesome.namethislater.model.Drawable.Direction;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+/**
+ * Builds the animations of each character from the animation descriptor, an XML file that lists each state's atlas
+ * region, frame duration and whether it loops. A new character only needs an entry in the descriptor and a state enum.
+ * <p>
+ * The descriptor looks like this:
+ *
+ * <pre>
+ * &lt;animations&gt;
+ *     &lt;character name="mike"&gt;
+ *         &lt;animation state="IDLE" region="mike-run" frame="0" /&gt;
+ *         &lt;animation state="RUNNING" region="mike-run" duration="0.1" loop="true" /&gt;
+ *         &lt;animation state="DYING" region="mike-dead" directional="false" /&gt;
+ *     &lt;/character&gt;
+ * &lt;/animations&gt;
+ * </pre>
+ *
+ * The frames of a directional animation are the regions named with the direction added to the region, such as
+ * "mike-run-down-left". A directionless animation is used for every direction. The frame attribute picks one frame
+ * out of the region's frames. States that are not listed have no animation.
+ */
+public class AnimationRegistry {
+
+	public static final String DESCRIPTOR_FILE = "data/animations.xml";
+
+	private static final float DEFAULT_DURATION = 1f; // For animations with a single frame
+
+	// Used when the descriptor file is not in the assets
+	private static final String DEFAULT_DESCRIPTOR = "<animations>"
+			+ "<character name=\"mike\">"
+			+ "<animation state=\"IDLE\" region=\"mike-run\" frame=\"0\" />"
+			+ "<animation state=\"RUNNING\" region=\"mike-run\" duration=\"0.1\" loop=\"true\" />"
+			+ "<animation state=\"JUMPING\" region=\"mike-jump\" />"
+			+ "<animation state=\"DAMAGE\" region=\"mike-damage\" />"
+			+ "<animation state=\"ATTACKING\" region=\"mike-attack\" duration=\"0.2\" />"
+			+ "<animation state=\"JUMP_ATTACK\" region=\"mike-jump-attack\" duration=\"0.2\" />"
+			+ "<animation state=\"SWIMMING\" region=\"mike-swim\" />"
+			+ "<animation state=\"DYING\" region=\"mike-dead\" directional=\"false\" />"
+			+ "</character>"
+			+ "<character name=\"enemy\">"
+			+ "<animation state=\"WALKING\" region=\"enemy\" directional=\"false\" />"
+			+ "<animation state=\"HURT\" region=\"enemy\" directional=\"false\" />"
+			+ "</character>"
+			+ "</animations>";
+
+	private final TextureAtlas atlas;
+	private final Element root;
+
+	/**
+	 * @param atlas
+	 *            The atlas with the frames.
+	 * @param root
+	 *            The root element of the descriptor.
+	 */
+	public AnimationRegistry(TextureAtlas atlas, Element root) {
+		this.atlas = atlas;
+		this.root = root;
+	}
+
+	/**
+	 * Read the descriptor from the assets, or use the built in one if it is not there.
+	 *
+	 * @param atlas
+	 *            The atlas with the frames.
+	 */
+	public static AnimationRegistry load(TextureAtlas atlas) {
+		FileHandle file = Gdx.files.internal(DESCRIPTOR_FILE);
+		String descriptor = file.exists() ? file.readString("UTF-8") : DEFAULT_DESCRIPTOR;
+		return new AnimationRegistry(atlas, new XmlReader().parse(descriptor));
+	}
+
+	/**
+	 * Build the animation table for a character.
+	 *
+	 * @param character
+	 *            The name of the character in the descriptor.
+	 * @param states
+	 *            The character's states, from its state enum's values().
+	 */
+	public AnimationSet create(String character, Enum<?>[] states) {
+		Element element = null;
+		for (Element child : root.getChildrenByName("character")) {
+			if (character.equals(child.getAttribute("name", null))) {
+				element = child;
+			}
+		}
+		if (element == null) {
+			throw new GdxRuntimeException("No animations for " + character);
+		}
+
+		AnimationSet set = new AnimationSet(character, states.length);
+		Direction[] directions = Direction.values();
+		for (Element animation : element.getChildrenByName("animation")) {
+			int state = findState(character, states, animation.getAttribute("state"));
+			String region = animation.getAttribute("region");
+			if (animation.getBooleanAttribute("directional", true)) {
+				for (int i = 0; i < directions.length; i++) {
+					set.set(state, i, build(animation, GameAtlas.name(region, directions[i])));
+				}
+			} else {
+				Animation built = build(animation, region);
+				for (int i = 0; i < directions.length; i++) {
+					set.set(state, i, built);
+				}
+			}
+		}
+		return set;
+	}
+
+	private Animation build(Element element, String region) {
+		Array<AtlasRegion> frames = atlas.findRegions(region);
+		if (frames.size == 0) {
+			throw new GdxRuntimeException("No region in the atlas called " + region);
+		}
+		int frame = element.getIntAttribute("frame", -1);
+		if (frame >= 0) {
+			if (frame >= frames.size) {
+				throw new GdxRuntimeException(region + " has no frame " + frame);
+			}
+			AtlasRegion only = frames.get(frame);
+			frames.clear();
+			frames.add(only);
+		}
+		float duration = element.getFloatAttribute("duration", DEFAULT_DURATION);
+		int playMode = element.getBooleanAttribute("loop", false) ? Animation.LOOP : Animation.NORMAL;
+		return new Animation(duration, frames, playMode);
+	}
+
+	private static int findState(String character, Enum<?>[] states, String name) {
+		for (int i = 0; i < states.length; i++) {
+			if (states[i].name().equals(name)) {
+				return states[i].ordinal();
+			}
+		}
+		throw new GdxRuntimeException(character + " has no state called " + name);
+	}
+
+}
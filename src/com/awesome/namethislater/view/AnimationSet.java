@@ -0,0 +1,56 @@
+package com.awesome.namethislater.view;
+
+import com.awesome.namethislater.model.Drawable.Direction;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * The animations of one character, in a table indexed by the ordinal of the character's state and the ordinal of the
+ * direction it is facing. Finding the frame to draw is two array reads. Made by {@link AnimationRegistry} from the
+ * animation descriptor.
+ */
+public class AnimationSet {
+
+	private final String name;
+	private final Animation[][] animations; // [state ordinal][direction ordinal], null where the state has none
+
+	AnimationSet(String name, int states) {
+		this.name = name;
+		animations = new Animation[states][Direction.values().length];
+	}
+
+	void set(int state, int direction, Animation animation) {
+		animations[state][direction] = animation;
+	}
+
+	/**
+	 * @return the animation for a state and direction, or null if the state has none
+	 */
+	public Animation get(Enum<?> state, Direction direction) {
+		return animations[state.ordinal()][direction.ordinal()];
+	}
+
+	/**
+	 * Get the frame to draw. The animation loops or not as set in the descriptor.
+	 *
+	 * @param state
+	 *            The state of the character.
+	 * @param direction
+	 *            The direction the character is facing.
+	 * @param stateTime
+	 *            The time in seconds since the animation started.
+	 * @return the frame, or null if the state has no animation
+	 */
+	public TextureRegion getFrame(Enum<?> state, Direction direction, float stateTime) {
+		Animation animation = animations[state.ordinal()][direction.ordinal()];
+		return animation == null ? null : animation.getKeyFrame(stateTime);
+	}
+
+	/**
+	 * @return the name of the character in the descriptor
+	 */
+	public String getName() {
+		return name;
+	}
+
+}
@@ -0,0 +1,542 @@
+package com.awesome.namethislater.view;
+
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.C1;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.C2;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.C3;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.C4;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.U1;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.U2;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.U3;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.U4;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.V1;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.V2;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.V3;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.V4;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.X1;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.X2;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.X3;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.X4;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.Y1;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.Y2;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.Y3;
+import static com.badlogic.gdx.graphics.g2d.SpriteBatch.Y4;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL10;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.renderers.BatchTiledMapRenderer;
+import com.badlogic.gdx.maps.tiled.tiles.AnimatedTiledMapTile;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * Draws tile layers from geometry that is uploaded to the GPU once. Each layer is split into square blocks, and the
+ * first time a block is in view its tiles are added to a {@link SpriteCache}. After that the block is drawn with one
+ * call for each texture, without sending its vertices again. Only the animated tiles of a block are drawn through the
+ * sprite batch every frame.
+ * <p>
+ * The cache holds a fixed number of tiles. Once it is full, a block coming into view takes the place of a block that
+ * has been out of view the longest, as long as the old block's space in the cache is big enough. Blocks in view are
+ * never dropped. If no block can make room, for example because the view is so large that its blocks can not all fit,
+ * the block is drawn through the sprite batch like OrthogonalTiledMapRenderer does.
+ * <p>
+ * Blocks are known to be in view by the frame they were last drawn in, so call one of the setView methods once each
+ * frame, before rendering its layers. The cached tiles keep the layer opacity they were built with, so call
+ * {@link #invalidate()} after changing a tile or the opacity of a layer.
+ */
+public abstract class CachedMapRenderer extends BatchTiledMapRenderer {
+
+	public static final int BLOCK_SHIFT = 4; // Blocks are 2^4 = 16 tiles across
+	public static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	private static final int BLOCK_TILES = BLOCK_SIZE * BLOCK_SIZE;
+	public static final int DEFAULT_CACHE_SIZE = 8191; // The most tiles an indexed sprite cache can hold
+
+	private final SpriteCache cache;
+	private final int cacheSize; // The most tiles the cache can hold
+	private int cachedTiles; // The space taken up in the cache, in tiles
+	private final LongMap<Block> blocks = new LongMap<Block>(); // The cached blocks by layer and position
+	private final Array<Block> slots = new Array<Block>(); // Every block with space in the cache, in use or not
+	private int lastCacheId = -1; // The newest cache, which the sprite cache can grow when it is defined again
+	private int frame; // Counts the calls to setView, to find the blocks that have been out of view the longest
+	private final Array<Block> visible = new Array<Block>(); // The cached blocks in view, reused for each layer
+	private final IntArray uncached = new IntArray(); // The x and y of blocks in view that did not fit in the cache
+	private final float[] vertices = new float[20];
+
+	protected final int mapWidth, mapHeight; // The size of the map, in tiles
+	protected final float tileWidth, tileHeight; // The size of a tile, in world units
+
+	/** Stats **/
+	private int renderCalls; // The draw calls in the last render, counting each cached block as one
+	private int blocksBuilt; // The blocks that have been added to the cache
+	private int evictions; // The blocks dropped to make room for blocks coming into view
+
+	/**
+	 * @param map
+	 *            The map to draw. Its properties must have the size of the map and its tiles.
+	 * @param unitScale
+	 *            The number of world units in a pixel.
+	 * @param cacheSize
+	 *            The most tiles to keep in the cache, up to {@link #DEFAULT_CACHE_SIZE}.
+	 */
+	public CachedMapRenderer(TiledMap map, float unitScale, int cacheSize) {
+		super(map, unitScale);
+		this.cacheSize = cacheSize;
+		cache = new SpriteCache(cacheSize, true);
+		mapWidth = map.getProperties().get("width", Integer.class);
+		mapHeight = map.getProperties().get("height", Integer.class);
+		tileWidth = map.getProperties().get("tilewidth", Integer.class) * unitScale;
+		tileHeight = map.getProperties().get("tileheight", Integer.class) * unitScale;
+	}
+
+	/**
+	 * Find what holds the tiles of a block, such as the layer or the chunk the block is in. A block is built again when
+	 * this changes.
+	 *
+	 * @return the owner of the block, or null if the block has nothing to draw
+	 */
+	protected abstract Object getBlockOwner(int layer, int blockX, int blockY);
+
+	/**
+	 * @param owner
+	 *            The owner of the block the cell is in.
+	 * @return the cell at a position in a layer, or null if it is empty. The cell may be reused by the next call.
+	 */
+	protected abstract Cell getCell(int layer, int x, int y, Object owner);
+
+	/**
+	 * Set the view for a new frame.
+	 */
+	@Override
+	public void setView(OrthographicCamera camera) {
+		super.setView(camera);
+		frame++;
+	}
+
+	/**
+	 * Set the view for a new frame.
+	 */
+	@Override
+	public void setView(Matrix4 projection, float x, float y, float width, float height) {
+		super.setView(projection, x, y, width, height);
+		frame++;
+	}
+
+	@Override
+	public void render(int[] layers) {
+		AnimatedTiledMapTile.updateAnimationBaseTime();
+		renderCalls = 0;
+		for (int layerIndex : layers) {
+			MapLayer layer = map.getLayers().get(layerIndex);
+			if (layer.isVisible()) {
+				renderLayer(layerIndex, layer.getOpacity());
+			}
+		}
+	}
+
+	@Override
+	public void render() {
+		AnimatedTiledMapTile.updateAnimationBaseTime();
+		renderCalls = 0;
+		for (int i = 0; i < map.getLayers().getCount(); i++) {
+			MapLayer layer = map.getLayers().get(i);
+			if (layer.isVisible()) {
+				renderLayer(i, layer.getOpacity());
+			}
+		}
+	}
+
+	@Override
+	public void renderTileLayer(TiledMapTileLayer layer) {
+		for (int i = 0; i < map.getLayers().getCount(); i++) {
+			if (map.getLayers().get(i) == layer) {
+				renderLayer(i, layer.getOpacity());
+				return;
+			}
+		}
+	}
+
+	@Override
+	public void renderObject(MapObject object) {
+	}
+
+	/**
+	 * Draw the blocks of a layer that are in view. The cached tiles are drawn first, then the animated tiles and any
+	 * blocks that did not fit in the cache are drawn through the sprite batch.
+	 */
+	private void renderLayer(int layer, float opacity) {
+		int col1 = Math.max(0, (int) (viewBounds.x / tileWidth));
+		int col2 = Math.min(mapWidth, (int) ((viewBounds.x + viewBounds.width + tileWidth) / tileWidth));
+		int row1 = Math.max(0, (int) (viewBounds.y / tileHeight));
+		int row2 = Math.min(mapHeight, (int) ((viewBounds.y + viewBounds.height + tileHeight) / tileHeight));
+		if (col1 >= col2 || row1 >= row2) {
+			return;
+		}
+		int blockX1 = col1 >> BLOCK_SHIFT;
+		int blockX2 = (col2 - 1) >> BLOCK_SHIFT;
+		int blockY1 = row1 >> BLOCK_SHIFT;
+		int blockY2 = (row2 - 1) >> BLOCK_SHIFT;
+
+		Color batchColor = spriteBatch.getColor();
+		float color = Color.toFloatBits(batchColor.r, batchColor.g, batchColor.b, batchColor.a * opacity);
+
+		visible.clear();
+		uncached.clear();
+		boolean animated = false;
+		for (int blockY = blockY1; blockY <= blockY2; blockY++) {
+			for (int blockX = blockX1; blockX <= blockX2; blockX++) {
+				Object owner = getBlockOwner(layer, blockX, blockY);
+				if (owner == null) {
+					continue;
+				}
+				Block block = findBlock(layer, blockX, blockY, owner);
+				if (block == null) {
+					block = buildBlock(layer, blockX, blockY, owner, color);
+				}
+				if (block != null) {
+					block.lastDrawn = frame;
+					visible.add(block);
+					animated |= block.animated.size > 0;
+				} else {
+					uncached.add(blockX);
+					uncached.add(blockY);
+				}
+			}
+		}
+
+		if (visible.size > 0) {
+			Gdx.gl.glEnable(GL10.GL_BLEND);
+			Gdx.gl.glBlendFunc(GL10.GL_SRC_ALPHA, GL10.GL_ONE_MINUS_SRC_ALPHA);
+			cache.setProjectionMatrix(spriteBatch.getProjectionMatrix());
+			cache.begin();
+			for (int i = 0; i < visible.size; i++) {
+				cache.draw(visible.get(i).cacheId);
+			}
+			cache.end();
+			Gdx.gl.glDisable(GL10.GL_BLEND);
+			renderCalls += visible.size;
+		}
+
+		if (animated || uncached.size > 0) {
+			spriteBatch.begin();
+			for (int i = 0; i < visible.size; i++) {
+				Block block = visible.get(i);
+				IntArray cells = block.animated;
+				for (int j = 0; j < cells.size; j += 2) {
+					drawCell(getCell(layer, cells.get(j), cells.get(j + 1), block.owner), cells.get(j),
+							cells.get(j + 1), color);
+				}
+			}
+			for (int i = 0; i < uncached.size; i += 2) {
+				int blockX = uncached.get(i);
+				int blockY = uncached.get(i + 1);
+				Object owner = getBlockOwner(layer, blockX, blockY);
+				int endX = Math.min(col2, (blockX + 1) << BLOCK_SHIFT);
+				int endY = Math.min(row2, (blockY + 1) << BLOCK_SHIFT);
+				for (int y = Math.max(row1, blockY << BLOCK_SHIFT); y < endY; y++) {
+					for (int x = Math.max(col1, blockX << BLOCK_SHIFT); x < endX; x++) {
+						Cell cell = getCell(layer, x, y, owner);
+						if (cell != null) {
+							drawCell(cell, x, y, color);
+						}
+					}
+				}
+			}
+			spriteBatch.end();
+			renderCalls += spriteBatch.renderCalls;
+		}
+	}
+
+	private Block findBlock(int layer, int blockX, int blockY, Object owner) {
+		Block block = blocks.get(key(layer, blockX, blockY));
+		return block != null && block.owner == owner ? block : null;
+	}
+
+	/**
+	 * Add the tiles of a block to the cache, and remember where its animated tiles are. The block goes into new space
+	 * in the cache if there is room, and otherwise takes the space of a block that is out of view.
+	 *
+	 * @return the block, or null if the cache does not have room for it
+	 */
+	private Block buildBlock(int layer, int blockX, int blockY, Object owner, float color) {
+		long key = key(layer, blockX, blockY);
+		int tiles = countTiles(layer, blockX, blockY, owner);
+		// A block built from an owner that has gone, such as a chunk that was dropped, can be defined again in place
+		Block block = blocks.get(key);
+		if (block == null || block.capacity < tiles) {
+			if (block != null) {
+				release(block);
+			}
+			block = cachedTiles + tiles <= cacheSize ? null : findSpace(tiles);
+			if (block == null && cachedTiles + tiles > cacheSize) {
+				return null;
+			}
+		}
+
+		boolean added = block == null;
+		if (added) {
+			block = new Block();
+			cache.beginCache();
+		} else {
+			if (block.owner != null && block.key != key) {
+				evictions++;
+			}
+			release(block);
+			cache.beginCache(block.cacheId);
+		}
+		block.owner = owner;
+		block.key = key;
+		block.tiles = 0;
+		block.animated.clear();
+		int endX = Math.min(mapWidth, (blockX + 1) << BLOCK_SHIFT);
+		int endY = Math.min(mapHeight, (blockY + 1) << BLOCK_SHIFT);
+		for (int y = blockY << BLOCK_SHIFT; y < endY; y++) {
+			for (int x = blockX << BLOCK_SHIFT; x < endX; x++) {
+				Cell cell = getCell(layer, x, y, owner);
+				if (cell == null || cell.getTile() == null) {
+					continue;
+				}
+				if (cell.getTile() instanceof AnimatedTiledMapTile) {
+					block.animated.add(x);
+					block.animated.add(y);
+					continue;
+				}
+				TextureRegion region = setVertices(cell, x, y, color);
+				cache.add(region.getTexture(), vertices, 0, 20);
+				block.tiles++;
+			}
+		}
+		block.cacheId = cache.endCache();
+
+		if (added || block.cacheId == lastCacheId) {
+			// New space, or the newest cache, which the sprite cache sizes again to fit
+			cachedTiles += block.tiles - block.capacity;
+			block.capacity = block.tiles;
+		}
+		if (added) {
+			slots.add(block);
+			lastCacheId = block.cacheId;
+		}
+		blocks.put(key, block);
+		blocksBuilt++;
+		return block;
+	}
+
+	/**
+	 * @return the number of tiles of a block that go into the cache
+	 */
+	private int countTiles(int layer, int blockX, int blockY, Object owner) {
+		int tiles = 0;
+		int endX = Math.min(mapWidth, (blockX + 1) << BLOCK_SHIFT);
+		int endY = Math.min(mapHeight, (blockY + 1) << BLOCK_SHIFT);
+		for (int y = blockY << BLOCK_SHIFT; y < endY; y++) {
+			for (int x = blockX << BLOCK_SHIFT; x < endX; x++) {
+				Cell cell = getCell(layer, x, y, owner);
+				if (cell != null && cell.getTile() != null && !(cell.getTile() instanceof AnimatedTiledMapTile)) {
+					tiles++;
+				}
+			}
+		}
+		return tiles;
+	}
+
+	/**
+	 * Find the space of a block that was not drawn in this frame or the last, and is big enough for a number of tiles.
+	 * Space no block uses is taken first, then the space of the block out of view the longest, and of those the
+	 * smallest.
+	 *
+	 * @return the block whose space can be used, or null if there is none
+	 */
+	private Block findSpace(int tiles) {
+		Block best = null;
+		for (int i = 0; i < slots.size; i++) {
+			Block block = slots.get(i);
+			if (block.capacity < tiles || (block.owner != null && block.lastDrawn >= frame - 1)) {
+				continue;
+			}
+			if (best == null || age(block) > age(best) || (age(block) == age(best) && block.capacity < best.capacity)) {
+				best = block;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return the frames since a block was drawn, or the most there can be if no block uses its space
+	 */
+	private int age(Block block) {
+		return block.owner == null ? Integer.MAX_VALUE : frame - block.lastDrawn;
+	}
+
+	/**
+	 * Take a block out of the map, keeping its space in the cache to be used again.
+	 */
+	private void release(Block block) {
+		if (block.owner != null && blocks.get(block.key) == block) {
+			blocks.remove(block.key);
+		}
+		block.owner = null;
+	}
+
+	private static long key(int layer, int blockX, int blockY) {
+		return (long) layer << 48 | (long) blockY << 24 | blockX;
+	}
+
+	private void drawCell(Cell cell, int x, int y, float color) {
+		if (cell.getTile() == null) {
+			return;
+		}
+		TextureRegion region = setVertices(cell, x, y, color);
+		spriteBatch.draw(region.getTexture(), vertices, 0, 20);
+	}
+
+	/**
+	 * Fill the vertices for the tile of a cell, with its flips and rotation, the same way as
+	 * OrthogonalTiledMapRenderer.
+	 *
+	 * @return the region the vertices are for
+	 */
+	private TextureRegion setVertices(Cell cell, int col, int row, float color) {
+		TiledMapTile tile = cell.getTile();
+		TextureRegion region = tile.getTextureRegion();
+
+		float x = col * tileWidth;
+		float y = row * tileHeight;
+		float x2 = x + region.getRegionWidth() * unitScale;
+		float y2 = y + region.getRegionHeight() * unitScale;
+		float u1 = region.getU();
+		float v1 = region.getV2();
+		float u2 = region.getU2();
+		float v2 = region.getV();
+
+		float[] vertices = this.vertices;
+		vertices[X1] = x;
+		vertices[Y1] = y;
+		vertices[C1] = color;
+		vertices[U1] = u1;
+		vertices[V1] = v1;
+
+		vertices[X2] = x;
+		vertices[Y2] = y2;
+		vertices[C2] = color;
+		vertices[U2] = u1;
+		vertices[V2] = v2;
+
+		vertices[X3] = x2;
+		vertices[Y3] = y2;
+		vertices[C3] = color;
+		vertices[U3] = u2;
+		vertices[V3] = v2;
+
+		vertices[X4] = x2;
+		vertices[Y4] = y;
+		vertices[C4] = color;
+		vertices[U4] = u2;
+		vertices[V4] = v1;
+
+		if (cell.getFlipHorizontally()) {
+			swap(U1, U3);
+			swap(U2, U4);
+		}
+		if (cell.getFlipVertically()) {
+			swap(V1, V3);
+			swap(V2, V4);
+		}
+		switch (cell.getRotation()) {
+		case Cell.ROTATE_90:
+			rotate(V1, V2, V3, V4);
+			rotate(U1, U2, U3, U4);
+			break;
+		case Cell.ROTATE_180:
+			swap(U1, U3);
+			swap(U2, U4);
+			swap(V1, V3);
+			swap(V2, V4);
+			break;
+		case Cell.ROTATE_270:
+			rotate(V1, V4, V3, V2);
+			rotate(U1, U4, U3, U2);
+			break;
+		}
+		return region;
+	}
+
+	private void swap(int a, int b) {
+		float temp = vertices[a];
+		vertices[a] = vertices[b];
+		vertices[b] = temp;
+	}
+
+	/**
+	 * Move the value at each index to the one before it, and the first value to the last index.
+	 */
+	private void rotate(int a, int b, int c, int d) {
+		float temp = vertices[a];
+		vertices[a] = vertices[b];
+		vertices[b] = vertices[c];
+		vertices[c] = vertices[d];
+		vertices[d] = temp;
+	}
+
+	/**
+	 * Drop every cached block, so they are built again the next time they are in view.
+	 */
+	public void invalidate() {
+		cache.clear();
+		blocks.clear();
+		slots.clear();
+		cachedTiles = 0;
+		lastCacheId = -1;
+	}
+
+	/**
+	 * @return the number of draw calls in the last render, counting each cached block as one
+	 */
+	public int getRenderCalls() {
+		return renderCalls;
+	}
+
+	/**
+	 * @return the number of blocks that have been added to the cache
+	 */
+	public int getBlocksBuilt() {
+		return blocksBuilt;
+	}
+
+	/**
+	 * @return the number of blocks dropped to make room for blocks coming into view
+	 */
+	public int getEvictions() {
+		return evictions;
+	}
+
+	@Override
+	public void dispose() {
+		super.dispose();
+		cache.dispose();
+	}
+
+	/**
+	 * The cached tiles of a block in one layer.
+	 */
+	private static class Block {
+		Object owner; // What held the tiles when the block was built, or null if its space is free
+		long key; // The layer and position of the block
+		final IntArray animated = new IntArray(); // The x and y of each animated tile, drawn every frame
+		int cacheId;
+		int tiles; // The tiles in the cache
+		int capacity; // The most tiles the block's space in the cache can hold
+		int lastDrawn; // The frame the block was last drawn in
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.awesome.namethislater.view;
+
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+
+/**
+ * Draws the tile layers of a map that was loaded whole, keeping the tiles that do not change in a sprite cache.
+ */
+public class CachedTiledMapRenderer extends CachedMapRenderer {
+
+	/**
+	 * @param map
+	 *            The map to draw.
+	 * @param unitScale
+	 *            The number of world units in a pixel.
+	 */
+	public CachedTiledMapRenderer(TiledMap map, float unitScale) {
+		super(map, unitScale, DEFAULT_CACHE_SIZE);
+	}
+
+	@Override
+	protected Object getBlockOwner(int layer, int blockX, int blockY) {
+		MapLayer mapLayer = map.getLayers().get(layer);
+		return mapLayer instanceof TiledMapTileLayer ? mapLayer : null;
+	}
+
+	@Override
+	protected Cell getCell(int layer, int x, int y, Object owner) {
+		return ((TiledMapTileLayer) owner).getCell(x, y);
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.awesome.namethislater.view;
+
+import com.awesome.namethislater.model.BinaryLevelLoader;
+import com.awesome.namethislater.model.ChunkManager;
+import com.awesome.namethislater.model.TileChunk;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.AnimatedTiledMapTile;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Draws a streamed level from the chunks that are in memory. The map of a streamed level only has its tilesets and an
+ * empty layer for each layer in the file, so the cells are read from the chunks instead. Cells in chunks that have not
+ * been loaded are not drawn. A chunk that is dropped and loaded again has its blocks built again.
+ */
+public class ChunkedMapRenderer extends CachedMapRenderer {
+
+	private static final float WATER_FRAME_DURATION = 1f; // The time each frame of the water animation is shown
+	private static final int BLOCKS_SHIFT = ChunkManager.CHUNK_SHIFT - BLOCK_SHIFT; // For the chunk of a block
+	private static final int CHUNK_MASK = ChunkManager.CHUNK_SIZE - 1;
+
+	private final ChunkManager chunks;
+	private final TiledMapTile[] tiles; // Every tile in the map by id, so drawing does not search the tilesets
+	private final TiledMapTile[] collisionTiles; // The same, with the water frames swapped for the water animation
+	private final int collisionLayer; // The index of the layer drawn with the water animation, or -1 if there is none
+	private final Cell cell = new Cell(); // Reused for each cell read from a chunk
+
+	/**
+	 * @param map
+	 *            The map of a streamed level, with its tilesets.
+	 * @param chunks
+	 *            The chunks of the level.
+	 * @param unitScale
+	 *            The number of world units in a pixel.
+	 */
+	public ChunkedMapRenderer(TiledMap map, ChunkManager chunks, float unitScale) {
+		super(map, unitScale, DEFAULT_CACHE_SIZE);
+		this.chunks = chunks;
+
+		int maxId = 0;
+		for (TiledMapTileSet tileset : map.getTileSets()) {
+			for (TiledMapTile tile : tileset) {
+				maxId = Math.max(maxId, tile.getId());
+			}
+		}
+		tiles = new TiledMapTile[maxId + 1];
+		Array<StaticTiledMapTile> waterFrames = new Array<StaticTiledMapTile>();
+		for (TiledMapTileSet tileset : map.getTileSets()) {
+			for (TiledMapTile tile : tileset) {
+				tiles[tile.getId()] = tile;
+			}
+		}
+		for (TiledMapTile tile : tiles) {
+			if (tile instanceof StaticTiledMapTile && "water".equals(tile.getProperties().get("animation"))) {
+				waterFrames.add((StaticTiledMapTile) tile);
+			}
+		}
+
+		// Only the collision layer shows the water animation, like a level that is not streamed
+		int layer = -1;
+		for (int i = 0; i < map.getLayers().getCount(); i++) {
+			if (BinaryLevelLoader.COLLISION_LAYER.equals(map.getLayers().get(i).getName())) {
+				layer = i;
+			}
+		}
+		collisionLayer = layer;
+		collisionTiles = new TiledMapTile[tiles.length];
+		System.arraycopy(tiles, 0, collisionTiles, 0, tiles.length);
+		if (waterFrames.size > 0) {
+			AnimatedTiledMapTile animatedWater = new AnimatedTiledMapTile(WATER_FRAME_DURATION, waterFrames);
+			for (StaticTiledMapTile frame : waterFrames) {
+				animatedWater.getProperties().putAll(frame.getProperties());
+				collisionTiles[frame.getId()] = animatedWater;
+			}
+		}
+	}
+
+	@Override
+	protected Object getBlockOwner(int layer, int blockX, int blockY) {
+		return chunks.getChunk(blockX >> BLOCKS_SHIFT, blockY >> BLOCKS_SHIFT);
+	}
+
+	@Override
+	protected Cell getCell(int layer, int x, int y, Object owner) {
+		int value = ((TileChunk) owner).getTileId(layer, x & CHUNK_MASK, y & CHUNK_MASK);
+		int id = value & ~BinaryLevelLoader.FLIP_FLAGS;
+		TiledMapTile[] lookup = layer == collisionLayer ? collisionTiles : tiles;
+		if (id == 0 || id >= lookup.length || lookup[id] == null) {
+			return null;
+		}
+		cell.setTile(lookup[id]);
+		setFlips(value);
+		return cell;
+	}
+
+	/**
+	 * Set the flips and rotation of the cell from the flags stored in a tile id. Tiled's diagonal flip is turned into a
+	 * rotation and flip the same way as when the cells of a level are built.
+	 */
+	private void setFlips(int value) {
+		boolean flipX = (value & BinaryLevelLoader.FLIP_HORIZONTALLY) != 0;
+		boolean flipY = (value & BinaryLevelLoader.FLIP_VERTICALLY) != 0;
+		int rotation = 0;
+		if ((value & BinaryLevelLoader.FLIP_DIAGONALLY) != 0) {
+			if (flipX && flipY) {
+				flipY = false;
+				rotation = Cell.ROTATE_270;
+			} else if (flipX) {
+				flipX = false;
+				rotation = Cell.ROTATE_270;
+			} else if (flipY) {
+				flipY = false;
+				rotation = Cell.ROTATE_90;
+			} else {
+				flipY = true;
+				rotation = Cell.ROTATE_270;
+			}
+		}
+		cell.setFlipHorizontally(flipX);
+		cell.setFlipVertically(flipY);
+		cell.setRotation(rotation);
+	}
+
+}
@@ -0,0 +1,186 @@
+package com.awesome.namethislater.view;
+
+import com.awesome.namethislater.model.Drawable.Direction;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * The names and places of every region of gameplay and HUD art. The atlas packer reads this table to pack the source
+ * images into one page, and the game looks the regions up by name in the packed atlas, so the world and the HUD draw
+ * from the same texture.
+ * <p>
+ * If the packed atlas has not been built, the regions are cut from the source images instead. Each source image is
+ * still only loaded once.
+ */
+public class GameAtlas {
+
+	public static final String ATLAS_FILE = "images/game.atlas"; // The packed atlas, made by the atlas packer
+
+	/** Source Images **/
+	public static final String SPRITE_SHEET = "images/spritesheet.png";
+	public static final String UI_SHEET = "images/ui.png";
+	public static final String FONT_PAGE = "skins/default.png";
+	public static final String MIKE_FACE = "images/mikeface.png";
+
+	/** Region Names **/
+	public static final String MIKE_RUN = "mike-run"; // The first frame is also the idle frame
+	public static final String MIKE_JUMP = "mike-jump";
+	public static final String MIKE_ATTACK = "mike-attack";
+	public static final String MIKE_JUMP_ATTACK = "mike-jump-attack";
+	public static final String MIKE_DAMAGE = "mike-damage";
+	public static final String MIKE_SWIM = "mike-swim";
+	public static final String MIKE_DEAD = "mike-dead";
+	public static final String ENEMY = "enemy";
+	public static final String CHAKRAM = "chakram";
+	public static final String SHADOW = "shadow";
+	public static final String ICON_IDLE = "icon-idle";
+	public static final String ICON_JUMP = "icon-jump";
+	public static final String ICON_ATTACK = "icon-attack";
+	public static final String ICON_DAMAGE = "icon-damage";
+	public static final String ICON_SWIM = "icon-swim";
+	public static final String ICON_DEATH = "icon-death";
+	public static final String BAR = "bar";
+	public static final String HEALTH = "health";
+	public static final String STAMINA = "stamina";
+	public static final String TOUCH = "touch";
+	public static final String KNOB = "knob";
+	public static final String FONT = "default-font";
+	public static final String FACE = "mike-face";
+
+	private static final int FRAME_WIDTH = 16, FRAME_HEIGHT = 32; // The size of Mike's frames on the sprite sheet
+	private static final int ICON_SIZE = 16;
+
+	private static final Array<SourceRegion> regions = new Array<SourceRegion>();
+
+	static {
+		// Each row of the sprite sheet has Mike's frames for one direction, in the order of the directions
+		Direction[] directions = Direction.values();
+		for (int row = 0; row < directions.length; row++) {
+			Direction direction = directions[row];
+			addFrames(name(MIKE_RUN, direction), row, 0, 3);
+			addFrames(name(MIKE_JUMP, direction), row, 3, 1);
+			addFrames(name(MIKE_ATTACK, direction), row, 4, 2);
+			addFrames(name(MIKE_JUMP_ATTACK, direction), row, 6, 2);
+			addFrames(name(MIKE_DAMAGE, direction), row, 8, 1);
+			addFrames(name(MIKE_SWIM, direction), row, 9, 1);
+		}
+		add(SPRITE_SHEET, MIKE_DEAD, -1, 160, 0, FRAME_WIDTH, FRAME_HEIGHT);
+		add(SPRITE_SHEET, ENEMY, -1, 176, 0, FRAME_WIDTH, FRAME_HEIGHT);
+		add(SPRITE_SHEET, CHAKRAM, -1, 192, 0, FRAME_WIDTH, 16);
+		add(SPRITE_SHEET, SHADOW, -1, 208, 0, 32, 32);
+
+		String[] icons = { ICON_IDLE, ICON_JUMP, ICON_ATTACK, ICON_DAMAGE, ICON_SWIM, ICON_DEATH };
+		for (int i = 0; i < icons.length; i++) {
+			add(UI_SHEET, icons[i], -1, i * ICON_SIZE, 48, ICON_SIZE, ICON_SIZE);
+		}
+		add(UI_SHEET, BAR, -1, 0, 0, 64, 16);
+		add(UI_SHEET, HEALTH, -1, 0, 16, 64, 16);
+		add(UI_SHEET, STAMINA, -1, 0, 32, 64, 16);
+		add(UI_SHEET, TOUCH, -1, 64, 0, 32, 32);
+		add(UI_SHEET, KNOB, -1, 96, 0, 32, 32);
+
+		add(FONT_PAGE, FONT, -1, 0, 0, -1, -1);
+		add(MIKE_FACE, FACE, -1, 0, 0, -1, -1);
+	}
+
+	private static void addFrames(String name, int row, int column, int count) {
+		for (int i = 0; i < count; i++) {
+			add(SPRITE_SHEET, name, i, (column + i) * FRAME_WIDTH, row * FRAME_HEIGHT, FRAME_WIDTH, FRAME_HEIGHT);
+		}
+	}
+
+	private static void add(String file, String name, int index, int x, int y, int width, int height) {
+		regions.add(new SourceRegion(file, name, index, x, y, width, height));
+	}
+
+	/**
+	 * @return the name of the region for a direction, for example "mike-run-down-left"
+	 */
+	public static String name(String prefix, Direction direction) {
+		return prefix + "-" + direction.name().toLowerCase().replace('_', '-');
+	}
+
+	/**
+	 * @return every region to pack, in the order they were defined
+	 */
+	public static Array<SourceRegion> getRegions() {
+		return regions;
+	}
+
+	/**
+	 * @return each source image once, in the order they are first used
+	 */
+	public static Array<String> getSourceFiles() {
+		Array<String> files = new Array<String>();
+		for (int i = 0; i < regions.size; i++) {
+			if (!files.contains(regions.get(i).file, false)) {
+				files.add(regions.get(i).file);
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Load the packed atlas, or cut the regions from the source images if it has not been built.
+	 */
+	public static TextureAtlas load() {
+		FileHandle packFile = Gdx.files.internal(ATLAS_FILE);
+		if (packFile.exists()) {
+			return new TextureAtlas(packFile);
+		}
+
+		ObjectMap<String, Texture> textures = new ObjectMap<String, Texture>();
+		Array<String> files = getSourceFiles();
+		for (int i = 0; i < files.size; i++) {
+			textures.put(files.get(i), new Texture(Gdx.files.internal(files.get(i))));
+		}
+		return create(textures);
+	}
+
+	/**
+	 * Cut the regions from the source images, for when the packed atlas has not been built.
+	 *
+	 * @param textures
+	 *            The texture of each file from {@link #getSourceFiles()}. They are disposed with the atlas.
+	 */
+	public static TextureAtlas create(ObjectMap<String, Texture> textures) {
+		TextureAtlas atlas = new TextureAtlas();
+		for (int i = 0; i < regions.size; i++) {
+			SourceRegion source = regions.get(i);
+			Texture texture = textures.get(source.file);
+			int width = source.width < 0 ? texture.getWidth() : source.width;
+			int height = source.height < 0 ? texture.getHeight() : source.height;
+			AtlasRegion region = atlas.addRegion(source.name, texture, source.x, source.y, width, height);
+			region.index = source.index;
+		}
+		return atlas;
+	}
+
+	/**
+	 * A region of one of the source images.
+	 */
+	public static class SourceRegion {
+
+		public final String file; // The source image
+		public final String name;
+		public final int index; // The frame of an animation, or -1 for a region on its own
+		public final int x, y; // The top left of the region in the source image
+		public final int width, height; // The size of the region, or -1 for the whole image
+
+		SourceRegion(String file, String name, int index, int x, int y, int width, int height) {
+			this.file = file;
+			this.name = name;
+			this.index = index;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.awesome.namethislater.view;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.FloatArray;
+
+/**
+ * Collects the shapes drawn over the sprites during a frame, and draws them all at once with a single shape renderer.
+ * Adding a shape only stores its position and color, so shapes can be added while the sprite batch is drawing without
+ * making it flush. The filled shapes are drawn first and the outlines on top of them, each in one begin and end.
+ * <p>
+ * The colors are kept by reference, so pass shared constants rather than a new color for each shape.
+ */
+public class OverlayRenderer {
+
+	private final ShapeRenderer shapeRenderer = new ShapeRenderer();
+
+	private final FloatArray filled = new FloatArray(); // x, y, width and height of each filled rectangle
+	private final Array<Color> filledColors = new Array<Color>();
+	private final FloatArray outlines = new FloatArray(); // x, y, width and height of each rectangle outline
+	private final Array<Color> outlineColors = new Array<Color>();
+	private final FloatArray lines = new FloatArray(); // x, y, x2 and y2 of each line
+	private final Array<Color> lineColors = new Array<Color>();
+
+	private int shapes; // The number of shapes drawn in the last flush
+
+	/**
+	 * Add a filled rectangle.
+	 */
+	public void filledRect(float x, float y, float width, float height, Color color) {
+		add(filled, x, y, width, height);
+		filledColors.add(color);
+	}
+
+	/**
+	 * Add the outline of a rectangle.
+	 */
+	public void rect(float x, float y, float width, float height, Color color) {
+		add(outlines, x, y, width, height);
+		outlineColors.add(color);
+	}
+
+	/**
+	 * Add a line from (x, y) to (x2, y2).
+	 */
+	public void line(float x, float y, float x2, float y2, Color color) {
+		add(lines, x, y, x2, y2);
+		lineColors.add(color);
+	}
+
+	private static void add(FloatArray array, float a, float b, float c, float d) {
+		array.add(a);
+		array.add(b);
+		array.add(c);
+		array.add(d);
+	}
+
+	/**
+	 * Draw all of the shapes added since the last flush, then clear them. Call this after the sprite batch has ended.
+	 *
+	 * @param projection
+	 *            The camera matrix the shapes were added in.
+	 */
+	public void flush(Matrix4 projection) {
+		shapes = filledColors.size + outlineColors.size + lineColors.size;
+		if (shapes == 0) {
+			return;
+		}
+		shapeRenderer.setProjectionMatrix(projection);
+
+		if (filledColors.size > 0) {
+			shapeRenderer.begin(ShapeType.Filled);
+			float[] items = filled.items;
+			for (int i = 0; i < filledColors.size; i++) {
+				int j = i * 4;
+				shapeRenderer.setColor(filledColors.get(i));
+				shapeRenderer.rect(items[j], items[j + 1], items[j + 2], items[j + 3]);
+			}
+			shapeRenderer.end();
+		}
+
+		if (outlineColors.size > 0 || lineColors.size > 0) {
+			shapeRenderer.begin(ShapeType.Line);
+			float[] items = outlines.items;
+			for (int i = 0; i < outlineColors.size; i++) {
+				int j = i * 4;
+				shapeRenderer.setColor(outlineColors.get(i));
+				shapeRenderer.rect(items[j], items[j + 1], items[j + 2], items[j + 3]);
+			}
+			items = lines.items;
+			for (int i = 0; i < lineColors.size; i++) {
+				int j = i * 4;
+				shapeRenderer.setColor(lineColors.get(i));
+				shapeRenderer.line(items[j], items[j + 1], items[j + 2], items[j + 3]);
+			}
+			shapeRenderer.end();
+		}
+		clear();
+	}
+
+	/**
+	 * Drop the shapes added since the last flush without drawing them.
+	 */
+	public void clear() {
+		filled.clear();
+		filledColors.clear();
+		outlines.clear();
+		outlineColors.clear();
+		lines.clear();
+		lineColors.clear();
+	}
+
+	/**
+	 * @return the number of shapes drawn in the last flush
+	 */
+	public int getShapeCount() {
+		return shapes;
+	}
+
+	public void dispose() {
+		shapeRenderer.dispose();
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.awesome.namethislater.view;
+
+import com.awesome.namethislater.model.Drawable;
+import com.badlogic.gdx.graphics.g2d.Sprite;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Holds the drawables and shadows to draw each frame, sorted so that drawables with a higher base y are drawn first.
+ * The queue is kept between frames. Drawables that were drawn last frame keep their place, so the queue is nearly
+ * sorted already and an insertion sort only has to move the few drawables that passed each other.
+ */
+public class RenderQueue {
+
+	// The arrays are typed, so their items can be read directly as Drawable[]
+	// Sorted, and kept between frames
+	private final Array<Drawable> drawables = new Array<Drawable>(true, 16, Drawable.class);
+	private final Array<Drawable> added = new Array<Drawable>(true, 16, Drawable.class); // Not drawn last frame
+	private final Array<Sprite> shadows = new Array<Sprite>(true, 16, Sprite.class);
+
+	private int frame = 1;
+
+	/** Counters **/
+	private int sorted; // The number of drawables sorted in the last frame
+	private int moved; // The number of times a drawable was moved in the last sort
+	private int allocations; // The number of times one of the arrays had to grow
+
+	/**
+	 * Start a new frame. Call this before adding the drawables for the frame.
+	 */
+	public void begin() {
+		frame++;
+		added.clear();
+		shadows.clear();
+	}
+
+	/**
+	 * Add a drawable to draw this frame.
+	 *
+	 * @param drawable
+	 *            The drawable to draw.
+	 */
+	public void add(Drawable drawable) {
+		// If it was not drawn last frame, it is not in the queue yet
+		if (drawable.getRenderFrame() != frame - 1) {
+			int capacity = added.items.length;
+			added.add(drawable);
+			if (added.items.length != capacity) {
+				allocations++;
+			}
+		}
+		drawable.setRenderFrame(frame);
+	}
+
+	/**
+	 * Add a shadow to draw this frame. Shadows are drawn under all of the drawables.
+	 *
+	 * @param shadow
+	 *            The shadow sprite to draw.
+	 */
+	public void addShadow(Sprite shadow) {
+		int capacity = shadows.items.length;
+		shadows.add(shadow);
+		if (shadows.items.length != capacity) {
+			allocations++;
+		}
+	}
+
+	/**
+	 * Remove the drawables that were not added this frame, add the new ones, and sort the queue by base y.
+	 */
+	public void sort() {
+		// Remove drawables that were not added this frame, keeping the order of the rest
+		Drawable[] items = drawables.items;
+		int size = 0;
+		for (int i = 0; i < drawables.size; i++) {
+			if (items[i].getRenderFrame() == frame) {
+				items[size++] = items[i];
+			}
+		}
+		for (int i = size; i < drawables.size; i++) {
+			items[i] = null;
+		}
+		drawables.size = size;
+
+		int capacity = drawables.items.length;
+		drawables.addAll(added);
+		if (drawables.items.length != capacity) {
+			allocations++;
+		}
+
+		// Insertion sort, highest base y first
+		items = drawables.items;
+		moved = 0;
+		for (int i = 1; i < drawables.size; i++) {
+			Drawable drawable = items[i];
+			float baseY = drawable.getBaseY();
+			int j = i - 1;
+			while (j >= 0 && items[j].getBaseY() < baseY) {
+				items[j + 1] = items[j];
+				j--;
+				moved++;
+			}
+			items[j + 1] = drawable;
+		}
+		sorted = drawables.size;
+	}
+
+	/**
+	 * Draw the shadows, and then the drawables in sorted order.
+	 *
+	 * @param spriteBatch
+	 *            The sprite batch used to draw the sprites.
+	 */
+	public void draw(SpriteBatch spriteBatch) {
+		for (int i = 0; i < shadows.size; i++) {
+			shadows.get(i).draw(spriteBatch);
+		}
+		for (int i = 0; i < drawables.size; i++) {
+			drawables.get(i).getSprite().draw(spriteBatch);
+		}
+	}
+
+	/**
+	 * @return the number of drawables sorted in the last frame
+	 */
+	public int getSorted() {
+		return sorted;
+	}
+
+	/**
+	 * @return the number of times a drawable was moved in the last sort
+	 */
+	public int getMoved() {
+		return moved;
+	}
+
+	/**
+	 * @return the number of times the queue has had to grow one of its arrays
+	 */
+	public int getAllocations() {
+		return allocations;
+	}
+
+}
@@ -1,35 +1,31 @@
 package com.awesome.namethislater.view;
 
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Vector;
 
 import com.awesome.namethislater.model.Chakram;
 import com.awesome.namethislater.model.Drawable;
 import com.awesome.namethislater.model.Drawable.Direction;
 import com.awesome.namethislater.model.Enemy;
+import com.awesome.namethislater.model.EnemyStore;
 import com.awesome.namethislater.model.Level;
 import com.awesome.namethislater.model.Mike;
 import com.awesome.namethislater.model.Mike.State;
 import com.awesome.namethislater.model.Room;
 import com.awesome.namethislater.model.World;
+import com.awesome.namethislater.profiling.FrameProfiler;
+import com.awesome.namethislater.profiling.FrameProfiler.Phase;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL10;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
-import com.badlogic.gdx.graphics.g2d.Sprite;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
-import com.badlogic.gdx.maps.MapProperties;
 import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
 import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
 
 public class Renderer {
@@ -38,49 +34,53 @@ public class Renderer {
 	private static final float CAMERA_WIDTH = 10f;
 	private static final float CAMERA_HEIGHT = 7f;
 
+	/** Culling **/
+	// How far outside the view a sprite's position can be and still be seen, to cover the sprite and its health bar
+	private static final float CULL_MARGIN = 2f;
+
 	/** Frame Durations **/
-	private static final float RUNNING_FRAME_DURATION = 0.1f; // 10 FPS
+	// For timing the enemies' health bars. The animations take theirs from the descriptor
 	private static final float ATTACKING_FRAME_DURATION = 0.2f;
 
 	private OrthographicCamera camera; // The camera for the screen
 
-	/** For debug rendering **/
-	ShapeRenderer debugRenderer = new ShapeRenderer();
+	/** Overlay Colors **/
+	private static final Color HEALTH_BACKGROUND_COLOR = Color.BLACK;
+	private static final Color HEALTH_COLOR = Color.GREEN;
+	private static final Color PATH_COLOR = Color.RED; // The line from where a chakram was thrown
+	private static final Color DAMAGE_BOUNDS_COLOR = Color.RED;
+	private static final Color FEET_BOUNDS_COLOR = Color.GREEN;
+	private static final Color JUMPING_BOUNDS_COLOR = Color.BLUE;
+	private static final Color SHADOW_BOUNDS_COLOR = Color.BLACK;
+	private static final Color ATTACK_BOUNDS_COLOR = Color.BLUE;
+
+	/** For health bars and debug rendering **/
+	private final OverlayRenderer overlay = new OverlayRenderer();
 
 	/** Textures **/
-	private Texture spriteSheet; // The sprite sheet for movement
-	private Texture attackSheet; // The sprite sheet for ground attacks
-	private Texture jumpAttackSheet; // The sprite sheet for jump attacks
-	private Texture swimSheet; // The sprite sheet for the swim state
+	private final TextureAtlas atlas; // Every sprite, on one page shared with the HUD
 	private TextureRegion mikeFrame; // The region of the current frame for Mike
-	private TextureRegion dead; // The texture for the death state
-	private TextureRegion damage; // The texture for the damage state
 	private TextureRegion chakram; // The texture for chakrams
 	private TextureRegion shadow; // The texture for the jump shadow
-	private TextureRegion enemyTexture; // The texture for the enemy
 	private Texture touchPad; // The texture for the touch pad buttons
 	private Texture grass; // The texture for grass blocks
 	private Texture water; // The texture for water blocks
 
-	/** Animation and Texture Maps **/
-	private final Map<Direction, Animation> animationMap = new HashMap<Direction, Animation>();
-	private final Map<Direction, TextureRegion> idleMap = new HashMap<Direction, TextureRegion>();
-	private final Map<Direction, TextureRegion> jumpMap = new HashMap<Direction, TextureRegion>();
-	private final Map<Direction, Animation> attackMap = new HashMap<Direction, Animation>();
-	private final Map<Direction, Animation> jumpAttackMap = new HashMap<Direction, Animation>();
-	private final Map<Direction, TextureRegion> damageMap = new HashMap<Direction, TextureRegion>();
-	private final Map<Direction, TextureRegion> swimMap = new HashMap<Direction, TextureRegion>();
+	/** Animations **/
+	private AnimationSet mikeAnimations; // Mike's frames by state and direction
+	private AnimationSet enemyAnimations; // The enemy's frames by state and direction
 
 	private final SpriteBatch spriteBatch;
+	private final RenderQueue renderQueue = new RenderQueue();
+	private final Rectangle viewBounds = new Rectangle(); // The area the camera sees, set once per frame
+	private final Array<Enemy> visibleEnemies = new Array<Enemy>(); // The living enemies in view this frame
+	private final Array<Chakram> visibleChakrams = new Array<Chakram>(); // The chakrams in view this frame
+	private final FrameProfiler profiler; // Times the tile map, the sprites and the overlay
 	private boolean debug = false;
 	public int width, height;
 	private float ppuX; // Pixels per unit on the X axis
 	private float ppuY; // Pixels per unit on the Y axis
 
-	float attackStateTime;
-	float hurtStateTime;
-	float currentFrameAttack; // The current frame for attacking, based on the state time
-	float currentFrameHurt; // The current frame for damage, based on the state time.
 	float enemyStateTime;
 	private float enemyFrame;
 
@@ -88,24 +88,41 @@ public class Renderer {
 	private final Level level;
 	private final Room room;
 	private final Mike mike;
-	private final Vector<Enemy> enemies;
+	private final EnemyStore enemies;
 
 	private TiledMap map;
-	private final OrthogonalTiledMapRenderer renderer;
+	// Keeps the tiles that do not change in a sprite cache. Draws from the chunks in memory when the level is streamed
+	private final CachedMapRenderer renderer;
 
 	private BitmapFont font;
 
 	private final int[] layer1 = { 0 };
 	private final int[] layer2 = { 1 };
 
-	public Renderer(World world, boolean debug) {
+	/**
+	 * @param world
+	 *            The world to draw.
+	 * @param atlas
+	 *            The atlas with the sprites. It is not disposed with the renderer.
+	 * @param profiler
+	 *            Times the parts of each frame.
+	 * @param debug
+	 *            Whether to draw the bounds of Mike and the chakrams.
+	 */
+	public Renderer(World world, TextureAtlas atlas, FrameProfiler profiler, boolean debug) {
 		this.world = world;
+		this.atlas = atlas;
+		this.profiler = profiler;
 		this.level = world.getLevel();
 		this.room = world.getRoom();
 		mike = world.getMike();
 		enemies = level.getEnemies();
 		map = level.getMap();
-		renderer = new OrthogonalTiledMapRenderer(map, 1f / 32f);
+		if (level.isStreaming()) {
+			renderer = new ChunkedMapRenderer(map, level.getChunks(), 1f / 32f);
+		} else {
+			renderer = new CachedTiledMapRenderer(map, 1f / 32f);
+		}
 
 		camera = new OrthographicCamera(CAMERA_WIDTH, CAMERA_HEIGHT);
 		camera.position.set(CAMERA_WIDTH, CAMERA_HEIGHT, 0);
@@ -126,155 +143,144 @@ public class Renderer {
 	public void render(float delta) {
 		Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
 		setCamera();
+		cull();
 		renderer.setView(camera);
+		profiler.begin(Phase.TILEMAP);
 		renderer.render(layer1);
+		profiler.end(Phase.TILEMAP);
+		profiler.addRenderCalls(renderer.getRenderCalls());
 
+		profiler.begin(Phase.SPRITES);
 		spriteBatch.setProjectionMatrix(camera.combined);
 		spriteBatch.begin();
 
 		drawEnemies(delta);
-		drawMike(delta);
+		drawMike();
 		drawChakrams();
 		drawSprites();
 		spriteBatch.end();
+		profiler.end(Phase.SPRITES);
+		profiler.addRenderCalls(spriteBatch.renderCalls);
+
+		profiler.begin(Phase.TILEMAP);
 		renderer.render(layer2);
+		profiler.end(Phase.TILEMAP);
+		profiler.addRenderCalls(renderer.getRenderCalls());
 
+		// The health bars and debug shapes were collected while drawing, so draw them all in one pass
+		profiler.begin(Phase.OVERLAY);
 		if (debug) {
 			drawDebug();
 		}
+		overlay.flush(camera.combined);
+		profiler.end(Phase.OVERLAY);
 	}
 
 	/**
 	 * Draw Mike's sprite.
-	 * 
-	 * @param delta
-	 *            The time in seconds since the last render.
 	 */
-	private void drawMike(float delta) {
+	private void drawMike() {
 		Direction direction = mike.getDirection();
 
 		if (mike.getState().equals(State.IDLE)) {
-			mikeFrame = idleMap.get(direction);
+			mikeFrame = mikeAnimations.getFrame(State.IDLE, direction, 0);
 		}
 		if (mike.getState().equals(State.RUNNING)) {
-			mikeFrame = animationMap.get(direction).getKeyFrame(mike.getStateTime(), true);
+			mikeFrame = mikeAnimations.getFrame(State.RUNNING, direction, mike.getStateTime());
 		}
 		if (mike.getState().equals(State.JUMPING)) {
-			mikeFrame = jumpMap.get(direction);
-		}
-		if (mike.getState().equals(State.ATTACKING)) {
-			// Get the time since last render and the current frame, based on
-			// the attack frame rate. Then set Mike's
-			// frame to attack. If the current attack frame is the second one in
-			// the animation, set his attacking
-			// boolean to true so that he will attack on the next update. When
-			// the attack animation is finished,
-			// set his state back to idle.
-			attackStateTime += delta;
-			currentFrameAttack += (int) (attackStateTime / ATTACKING_FRAME_DURATION);
-			mikeFrame = attackMap.get(direction).getKeyFrame(attackStateTime, false);
-			if (currentFrameAttack == 1) {
-				mike.setAttacking(true); // Attack!
-				currentFrameAttack += 1; // Increase the frame count so this will be
-				// skipped on the next render
-			} else {
-				mike.setAttacking(false);
-			}
-			if (attackMap.get(direction).isAnimationFinished(attackStateTime)) {
-				mike.setState(State.IDLE);
-				attackStateTime = 0;
-				currentFrameAttack = 0;
-			}
+			mikeFrame = mikeAnimations.getFrame(State.JUMPING, direction, 0);
 		}
-		if (mike.getState().equals(State.JUMP_ATTACK)) {
-			// Get the time since last render. Then set Mike's frame to attack.
-			// When the attack animation is finished,
-			// check whether he is in the air or not, and set his state
-			// accordingly.
-			attackStateTime += delta;
-			currentFrameAttack += (int) (attackStateTime / ATTACKING_FRAME_DURATION);
-			mikeFrame = jumpAttackMap.get(direction).getKeyFrame(attackStateTime, false);
-			if (currentFrameAttack == 1) {
-				mike.setAttacking(true); // Attack!
-				currentFrameAttack += 1; // Increase the frame count so this will be
-				// skipped on the next render
-			} else {
-				mike.setAttacking(false);
-			}
-			if (jumpAttackMap.get(direction).isAnimationFinished(attackStateTime)) {
-				currentFrameAttack = 0;
-				attackStateTime = 0;
-				if (mike.isGrounded()) {
-					mike.setState(State.IDLE);
-				} else {
-					mike.setState(State.JUMPING);
-				}
-			}
+		// Mike's update times the attack and ends it, so only the frame is picked here
+		if (mike.isAttackingState()) {
+			mikeFrame = mikeAnimations.getFrame(mike.getState(), direction, mike.getAttackTime());
 		}
 		if (mike.getState().equals(State.SWIMMING)) {
-			mikeFrame = swimMap.get(direction);
+			mikeFrame = mikeAnimations.getFrame(State.SWIMMING, direction, 0);
 		}
 		if (mike.isHurt()) {
-			mikeFrame = damageMap.get(direction);
-			hurtStateTime += delta;
-			currentFrameHurt += (int) (hurtStateTime / RUNNING_FRAME_DURATION);
-			if (currentFrameHurt <= 120) {
-				currentFrameHurt += 1;
-			} else {
-				mike.setHurt(false);
-				mike.setInvincible(false);
-				mike.setState(State.IDLE);
-				currentFrameHurt = 0;
-				attackStateTime = 0;
-			}
+			mikeFrame = mikeAnimations.getFrame(State.DAMAGE, direction, 0);
 		}
 
 		if (mike.getState().equals(State.DYING)) {
-			mike.setSpriteRegion(dead);
-			mike.loadSprite(spriteBatch);
-		} else {
-			mike.setSpriteRegion(mikeFrame);
-			mike.loadSprite(spriteBatch);
+			mikeFrame = mikeAnimations.getFrame(State.DYING, direction, 0);
+		}
+		mike.setSpriteRegion(mikeFrame);
+		mike.loadSprite(spriteBatch);
+	}
+
+	/**
+	 * Find the enemies and chakrams in view, so the rest can be skipped for the whole frame. The enemies are found
+	 * through the level's spatial hash, so the time taken depends on the enemies near the camera and not on the number
+	 * of enemies in the level.
+	 */
+	private void cull() {
+		// The hash has the positions from the last update, so check where each enemy is drawn now
+		level.getEnemyHash().query(viewBounds, CULL_MARGIN, visibleEnemies);
+		int size = 0;
+		for (int i = 0; i < visibleEnemies.size; i++) {
+			Enemy enemy = visibleEnemies.get(i);
+			if (!enemy.isDead() && isVisible(enemy.getRenderPosition())) {
+				visibleEnemies.set(size++, enemy);
+			}
 		}
+		visibleEnemies.truncate(size);
+
+		visibleChakrams.clear();
+		Array<Chakram> chakrams = mike.getChakrams();
+		for (int i = 0; i < chakrams.size; i++) {
+			if (isVisible(chakrams.get(i).getRenderPosition())) {
+				visibleChakrams.add(chakrams.get(i));
+			}
+		}
+	}
+
+	/**
+	 * @return whether a sprite drawn at a position can be seen by the camera
+	 */
+	private boolean isVisible(Vector2 position) {
+		float x = position.x, y = position.y;
+		return x > viewBounds.x - CULL_MARGIN && x < viewBounds.x + viewBounds.width + CULL_MARGIN
+				&& y > viewBounds.y - CULL_MARGIN && y < viewBounds.y + viewBounds.height + CULL_MARGIN;
 	}
 
 	/**
-	 * Draw all the chakrams that Mike has thrown.
+	 * Draw all the chakrams in view.
 	 */
 	private void drawChakrams() {
-		for (Chakram c : mike.getChakrams()) {
+		for (int i = 0; i < visibleChakrams.size; i++) {
+			Chakram c = visibleChakrams.get(i);
 			c.setShadowSpriteRegion(shadow);
 			c.setSpriteRegion(chakram);
 			c.loadSprite(spriteBatch);
 
 			if (mike.getStamina() > 0) {
-				debugRenderer.begin(ShapeType.Line);
-				debugRenderer.setColor(Color.RED);
-				debugRenderer.line(c.getStartingX(), c.getStartingY(), c.getShadowPosition().x,
-						c.getShadowPosition().y);
-				debugRenderer.end();
+				overlay.line(c.getStartingX(), c.getStartingY(), c.getShadowPosition().x, c.getShadowPosition().y,
+						PATH_COLOR);
 			}
 		}
 	}
 
 	/**
-	 * Draw every enemy in the level.
+	 * Draw every enemy in view.
 	 * 
 	 * @param delta
 	 *            The time in seconds since the last render.
 	 */
 	private void drawEnemies(float delta) {
-		for (Enemy enemy : enemies) {
+		for (int i = 0; i < visibleEnemies.size; i++) {
+			Enemy enemy = visibleEnemies.get(i);
 			// If the enemy is not dead, load it. If the enemy is hurt, then draw its health bar
 			if (!enemy.isDead()) {
-				enemy.setSpriteRegion(enemyTexture);
+				enemy.setSpriteRegion(enemyAnimations.getFrame(enemy.getState(), enemy.getDirection(),
+						enemy.getStateTime()));
 				enemy.loadSprite(spriteBatch);
 				if (enemy.isHurt()) {
 					enemyStateTime += delta;
 					enemyFrame += (int) (enemyStateTime / ATTACKING_FRAME_DURATION);
 					if (enemyFrame <= 120) {
 						enemyFrame += 1;
-						enemy.drawHealth(debugRenderer);
+						drawHealth(enemy);
 					} else {
 						enemy.setHurt(false);
 						enemyFrame = 0;
@@ -285,218 +291,86 @@ public class Renderer {
 		}
 	}
 
+	/**
+	 * Add an enemy's health bar to the overlay.
+	 */
+	private void drawHealth(Enemy enemy) {
+		Vector2 position = enemy.getRenderPosition();
+		float x = position.x - (Enemy.SIZE / 4);
+		float y = position.y + Enemy.SIZE + 0.6f;
+		float width = (Enemy.SIZE * 1.5f);
+		float height = (Enemy.SIZE / 6);
+
+		overlay.filledRect(x, y, width, height, HEALTH_BACKGROUND_COLOR);
+		overlay.filledRect(x, y, width * (enemy.getHealth() / 100), height, HEALTH_COLOR);
+	}
+
 	/**
 	 * Used to draw all of the sprites.
 	 */
 	private void drawSprites() {
-		// Create a comparator
-		DrawableComparator comparator = new DrawableComparator();
-		Array<Drawable> sprites = new Array<Drawable>();
-		Array<Sprite> shadows = new Array<Sprite>();
+		renderQueue.begin();
 
-		// If jumping, add the shadow to the array.
+		// If jumping, add the shadow to the queue.
 		if (mike.isJumping()) {
-			shadows.add(mike.getShadowSprite());
+			renderQueue.addShadow(mike.getShadowSprite());
 			mike.setBaseY(mike.getShadowPosition().y);
-			sprites.add(mike);
-		} else {
-			sprites.add(mike);
 		}
+		renderQueue.add(mike);
 
-		for (Enemy enemy : enemies) {
-			if (!enemy.isDead()) {
-				sprites.add(enemy);
-			}
+		for (int i = 0; i < visibleEnemies.size; i++) {
+			renderQueue.add(visibleEnemies.get(i));
 		}
 
-		for (Chakram c : mike.getChakrams()) {
-			shadows.add(c.getShadowSprite());
+		for (int i = 0; i < visibleChakrams.size; i++) {
+			Chakram c = visibleChakrams.get(i);
+			renderQueue.addShadow(c.getShadowSprite());
 			c.setBaseY(c.getShadowPosition().y);
-			sprites.add(c);
-		}
-		// Sort the sprites
-		sprites.sort(comparator);
-		// Render shadows first
-		for (Sprite shadow : shadows) {
-			shadow.draw(spriteBatch);
-		}
-
-		for (Drawable sprite : sprites) {
-			sprite.getSprite().draw(spriteBatch);
+			renderQueue.add(c);
 		}
+		// Sort the sprites, then render the shadows first
+		renderQueue.sort();
+		renderQueue.draw(spriteBatch);
 	}
 
+	/**
+	 * Add the bounds of Mike and the chakrams to the overlay.
+	 */
 	public void drawDebug() {
-		debugRenderer.setProjectionMatrix(camera.combined);
-		debugRenderer.begin(ShapeType.Line);
-
 		// Render Mike
 		Rectangle db = mike.getDamageBounds();
-		debugRenderer.setColor(new Color(1, 0, 0, 1));
-		debugRenderer.rect(db.x, db.y, db.width, db.height);
+		overlay.rect(db.x, db.y, db.width, db.height, DAMAGE_BOUNDS_COLOR);
 
 		Rectangle rect = mike.getFeetBounds();
-		debugRenderer.setColor(new Color(0, 1, 0, 1));
-		debugRenderer.rect(rect.x, rect.y, rect.width, rect.height);
+		overlay.rect(rect.x, rect.y, rect.width, rect.height, FEET_BOUNDS_COLOR);
 
 		Rectangle jb = mike.getJumpingBounds();
-		debugRenderer.setColor(new Color(0, 0, 1, 1));
-		debugRenderer.rect(jb.x, jb.y, jb.width, jb.height);
+		overlay.rect(jb.x, jb.y, jb.width, jb.height, JUMPING_BOUNDS_COLOR);
 
 		Rectangle sb = mike.getShadowBounds();
-		debugRenderer.setColor(new Color(0, 0, 0, 1));
-		debugRenderer.rect(sb.x, sb.y, sb.width, sb.height);
+		overlay.rect(sb.x, sb.y, sb.width, sb.height, SHADOW_BOUNDS_COLOR);
 
 		// Render chakram
-		for (Chakram chakram : mike.getChakrams()) {
+		for (int i = 0; i < visibleChakrams.size; i++) {
+			Chakram chakram = visibleChakrams.get(i);
 			Rectangle r = chakram.getAttackBounds();
-			debugRenderer.setColor(new Color(0, 0, 1, 1));
-			debugRenderer.rect(r.x, r.y, r.width, r.height);
+			overlay.rect(r.x, r.y, r.width, r.height, ATTACK_BOUNDS_COLOR);
 		}
 		// Render enemy
 		// Rectangle r = enemy.getDamageBounds();
-		// debugRenderer.setColor(new Color(1, 0, 0, 1));
-		// debugRenderer.rect(r.x, r.y, r.width, r.height);
-		debugRenderer.end();
+		// overlay.rect(r.x, r.y, r.width, r.height, DAMAGE_BOUNDS_COLOR);
 	}
 
 	/**
-	 * Load all of the textures from the sprite sheet.
+	 * Build the animation tables from the descriptor, and look up the other sprites in the atlas.
 	 */
 	private void loadTextures() {
-		spriteSheet = new Texture(Gdx.files.internal("images/spritesheet.png"));
-		int width = 16;
-		int height = 32;
-
-		TextureRegion[][] animationFrames = new TextureRegion[8][3];
-		TextureRegion[][] jumpFrames = new TextureRegion[8][1];
-		TextureRegion[][] attackFrames = new TextureRegion[8][2];
-		TextureRegion[][] jumpAttackFrames = new TextureRegion[8][2];
-		TextureRegion[][] damageFrames = new TextureRegion[8][1];
-		TextureRegion[][] swimFrames = new TextureRegion[8][1];
-
-		for (int i = 0; i < 8; i++) {
-			for (int j = 0; j < 13; j++) {
-				int x = j * width;
-				int y = i * height;
-				if (j == 0 || j == 1 || j == 2) {
-					animationFrames[i][j] = new TextureRegion(spriteSheet, x, y, width, height);
-				}
-				if (j == 3) {
-					jumpFrames[i][0] = new TextureRegion(spriteSheet, x, y, width, height);
-				}
-				if (j == 4 || j == 5) {
-					int m = 0;
-					if (j == 4) {
-						m = 0;
-					}
-					if (j == 5) {
-						m = 1;
-					}
-					attackFrames[i][m] = new TextureRegion(spriteSheet, x, y, width, height);
-				}
-				if (j == 6 || j == 7) {
-					int m = 0;
-					if (j == 6) {
-						m = 0;
-					}
-					if (j == 7) {
-						m = 1;
-					}
-					jumpAttackFrames[i][m] = new TextureRegion(spriteSheet, x, y, width, height);
-				}
-				if (j == 8) {
-					damageFrames[i][0] = new TextureRegion(spriteSheet, x, y, width, height);
-				}
-				if (j == 9) {
-					swimFrames[i][0] = new TextureRegion(spriteSheet, x, y, width, height);
-				}
-			}
-		}
+		AnimationRegistry animations = AnimationRegistry.load(atlas);
+		mikeAnimations = animations.create("mike", State.values());
+		enemyAnimations = animations.create("enemy", Enemy.State.values());
 
-		// Set the frames for the Idle state
-		idleMap.put(Direction.DOWN, new TextureRegion(animationFrames[0][0]));
-		idleMap.put(Direction.LEFT, new TextureRegion(animationFrames[1][0]));
-		idleMap.put(Direction.UP, new TextureRegion(animationFrames[2][0]));
-		idleMap.put(Direction.RIGHT, new TextureRegion(animationFrames[3][0]));
-		idleMap.put(Direction.DOWN_LEFT, new TextureRegion(animationFrames[4][0]));
-		idleMap.put(Direction.UP_LEFT, new TextureRegion(animationFrames[5][0]));
-		idleMap.put(Direction.UP_RIGHT, new TextureRegion(animationFrames[6][0]));
-		idleMap.put(Direction.DOWN_RIGHT, new TextureRegion(animationFrames[7][0]));
-		// Set the running animation for each direction
-		animationMap.put(Direction.DOWN, new Animation(RUNNING_FRAME_DURATION, animationFrames[0]));
-		animationMap.put(Direction.LEFT, new Animation(RUNNING_FRAME_DURATION, animationFrames[1]));
-		animationMap.put(Direction.UP, new Animation(RUNNING_FRAME_DURATION, animationFrames[2]));
-		animationMap
-				.put(Direction.RIGHT, new Animation(RUNNING_FRAME_DURATION, animationFrames[3]));
-		animationMap.put(Direction.DOWN_LEFT, new Animation(RUNNING_FRAME_DURATION,
-				animationFrames[4]));
-		animationMap.put(Direction.UP_LEFT, new Animation(RUNNING_FRAME_DURATION,
-				animationFrames[5]));
-		animationMap.put(Direction.UP_RIGHT, new Animation(RUNNING_FRAME_DURATION,
-				animationFrames[6]));
-		animationMap.put(Direction.DOWN_RIGHT, new Animation(RUNNING_FRAME_DURATION,
-				animationFrames[7]));
-		// Set the jump for each direction
-		jumpMap.put(Direction.DOWN, new TextureRegion(jumpFrames[0][0]));
-		jumpMap.put(Direction.LEFT, new TextureRegion(jumpFrames[1][0]));
-		jumpMap.put(Direction.UP, new TextureRegion(jumpFrames[2][0]));
-		jumpMap.put(Direction.RIGHT, new TextureRegion(jumpFrames[3][0]));
-		jumpMap.put(Direction.DOWN_LEFT, new TextureRegion(jumpFrames[4][0]));
-		jumpMap.put(Direction.UP_LEFT, new TextureRegion(jumpFrames[5][0]));
-		jumpMap.put(Direction.UP_RIGHT, new TextureRegion(jumpFrames[6][0]));
-		jumpMap.put(Direction.DOWN_RIGHT, new TextureRegion(jumpFrames[7][0]));
-		// Set the attacking animation for each direction
-		attackMap.put(Direction.DOWN, new Animation(ATTACKING_FRAME_DURATION, attackFrames[0]));
-		attackMap.put(Direction.LEFT, new Animation(ATTACKING_FRAME_DURATION, attackFrames[1]));
-		attackMap.put(Direction.UP, new Animation(ATTACKING_FRAME_DURATION, attackFrames[2]));
-		attackMap.put(Direction.RIGHT, new Animation(ATTACKING_FRAME_DURATION, attackFrames[3]));
-		attackMap
-				.put(Direction.DOWN_LEFT, new Animation(ATTACKING_FRAME_DURATION, attackFrames[4]));
-		attackMap.put(Direction.UP_LEFT, new Animation(ATTACKING_FRAME_DURATION, attackFrames[5]));
-		attackMap.put(Direction.UP_RIGHT, new Animation(ATTACKING_FRAME_DURATION, attackFrames[6]));
-		attackMap.put(Direction.DOWN_RIGHT,
-				new Animation(ATTACKING_FRAME_DURATION, attackFrames[7]));
-		// Set the jump attacking animation for each direction
-		jumpAttackMap.put(Direction.DOWN, new Animation(ATTACKING_FRAME_DURATION,
-				jumpAttackFrames[0]));
-		jumpAttackMap.put(Direction.LEFT, new Animation(ATTACKING_FRAME_DURATION,
-				jumpAttackFrames[1]));
-		jumpAttackMap.put(Direction.UP,
-				new Animation(ATTACKING_FRAME_DURATION, jumpAttackFrames[2]));
-		jumpAttackMap.put(Direction.RIGHT, new Animation(ATTACKING_FRAME_DURATION,
-				jumpAttackFrames[3]));
-		jumpAttackMap.put(Direction.DOWN_LEFT, new Animation(ATTACKING_FRAME_DURATION,
-				jumpAttackFrames[4]));
-		jumpAttackMap.put(Direction.UP_LEFT, new Animation(ATTACKING_FRAME_DURATION,
-				jumpAttackFrames[5]));
-		jumpAttackMap.put(Direction.UP_RIGHT, new Animation(ATTACKING_FRAME_DURATION,
-				jumpAttackFrames[6]));
-		jumpAttackMap.put(Direction.DOWN_RIGHT, new Animation(ATTACKING_FRAME_DURATION,
-				jumpAttackFrames[7]));
-		// Set the swim for each direction
-		damageMap.put(Direction.DOWN, new TextureRegion(damageFrames[0][0]));
-		damageMap.put(Direction.LEFT, new TextureRegion(damageFrames[1][0]));
-		damageMap.put(Direction.UP, new TextureRegion(damageFrames[2][0]));
-		damageMap.put(Direction.RIGHT, new TextureRegion(damageFrames[3][0]));
-		damageMap.put(Direction.DOWN_LEFT, new TextureRegion(damageFrames[4][0]));
-		damageMap.put(Direction.UP_LEFT, new TextureRegion(damageFrames[5][0]));
-		damageMap.put(Direction.UP_RIGHT, new TextureRegion(damageFrames[6][0]));
-		damageMap.put(Direction.DOWN_RIGHT, new TextureRegion(damageFrames[7][0]));
-		// Set the swim for each direction
-		swimMap.put(Direction.DOWN, new TextureRegion(swimFrames[0][0]));
-		swimMap.put(Direction.LEFT, new TextureRegion(swimFrames[1][0]));
-		swimMap.put(Direction.UP, new TextureRegion(swimFrames[2][0]));
-		swimMap.put(Direction.RIGHT, new TextureRegion(swimFrames[3][0]));
-		swimMap.put(Direction.DOWN_LEFT, new TextureRegion(swimFrames[4][0]));
-		swimMap.put(Direction.UP_LEFT, new TextureRegion(swimFrames[5][0]));
-		swimMap.put(Direction.UP_RIGHT, new TextureRegion(swimFrames[6][0]));
-		swimMap.put(Direction.DOWN_RIGHT, new TextureRegion(swimFrames[7][0]));
-
-		dead = new TextureRegion(spriteSheet, 160, 0, width, height);
-		enemyTexture = new TextureRegion(spriteSheet, 176, 0, width, height);
-		chakram = new TextureRegion(spriteSheet, 192, 0, width, 16);
-		shadow = new TextureRegion(spriteSheet, 208, 0, 32, 32);
+		chakram = atlas.findRegion(GameAtlas.CHAKRAM);
+		shadow = atlas.findRegion(GameAtlas.SHADOW);
 		mike.setShadowSpriteRegion(shadow);
 	}
 
@@ -505,10 +379,8 @@ public class Renderer {
 	 * Source: http://xiopod.net/libgdx-lock-camera-to-bounds-of-tiledmap-with-centered-player
 	 */
 	private void setCamera() {
-		// Get the properties of the map to find the width and height.
-		MapProperties prop = renderer.getMap().getProperties();
-		int mapWidth = prop.get("width", Integer.class);
-		int mapHeight = prop.get("height", Integer.class);
+		int mapWidth = level.getWidth();
+		int mapHeight = level.getHeight();
 
 		// Set the minimum and maximum areas of the map.
 		float minCameraX = camera.zoom * (CAMERA_WIDTH / 2);
@@ -518,14 +390,19 @@ public class Renderer {
 
 		// Set the position of the map based on the minimum value of the bounds, based of the current position of the
 		// player.
-		camera.position.set(Math.min(maxCameraX, Math.max(mike.getPosition().x, minCameraX)),
-				Math.min(maxCameraY, Math.max(mike.getPosition().y, minCameraY)), 0);
+		camera.position.set(Math.min(maxCameraX, Math.max(mike.getRenderPosition().x, minCameraX)),
+				Math.min(maxCameraY, Math.max(mike.getRenderPosition().y, minCameraY)), 0);
 		camera.update();
+
+		float viewWidth = camera.viewportWidth * camera.zoom;
+		float viewHeight = camera.viewportHeight * camera.zoom;
+		viewBounds.set(camera.position.x - viewWidth / 2, camera.position.y - viewHeight / 2, viewWidth, viewHeight);
 	}
 
 	public void dispose() {
 		map.dispose();
 		renderer.dispose();
+		overlay.dispose();
 	}
 
 	public void setSize(int width, int height) {
@@ -555,6 +432,17 @@ public class Renderer {
 		this.map = map;
 	}
 
+	/**
+	 * @return the number of living enemies in view in the last frame
+	 */
+	public int getVisibleEnemyCount() {
+		return visibleEnemies.size;
+	}
+
+	public RenderQueue getRenderQueue() {
+		return renderQueue;
+	}
+
 	public boolean isDebug() {
 		return debug;
 	}
@@ -563,7 +451,7 @@ public class Renderer {
 		this.debug = debug;
 	}
 
-	public class DrawableComparator implements Comparator<Drawable> {
+	public static class DrawableComparator implements Comparator<Drawable> {
 
 		@Override
 		public int compare(Drawable d1, Drawable d2) {
@@ -3,12 +3,14 @@ package com.awesome.namethislater.view;
 import com.awesome.namethislater.controller.Controller;
 import com.awesome.namethislater.model.Level;
 import com.awesome.namethislater.model.Mike;
+import com.awesome.namethislater.model.MikeListener;
 import com.awesome.namethislater.model.Mike.State;
 import com.awesome.namethislater.model.World;
+import com.awesome.namethislater.profiling.FrameProfiler;
+import com.awesome.namethislater.profiling.FrameProfiler.Phase;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.Texture.TextureFilter;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.InputEvent;
 import com.badlogic.gdx.scenes.scene2d.InputListener;
@@ -25,14 +27,23 @@ import com.badlogic.gdx.scenes.scene2d.ui.Touchpad.TouchpadStyle;
 import com.badlogic.gdx.scenes.scene2d.utils.Drawable;
 import com.badlogic.gdx.scenes.scene2d.utils.TextureRegionDrawable;
 
-public class UIHandler {
+/**
+ * Draws the HUD: Mike's face, his health and stamina bars, the FPS or profiler overlay, and the touch controls on
+ * Android. The actors are only changed when Mike tells the HUD something changed, so a frame where nothing happened
+ * only draws the stage.
+ */
+public class UIHandler implements MikeListener {
 
 	/** Viewport Width and Height **/
 	private static final int VIEWPORT_WIDTH = 400;
 	private static final int VIEWPORT_HEIGHT = 240;
 
+	private static final float PROFILE_REFRESH_TIME = 0.25f; // How often the profiler overlay is updated, in seconds
+	private static final float PROFILE_FONT_SCALE = 0.6f; // Shrinks the overlay so it fits beside the HUD
+	private static final float FPS_REFRESH_TIME = 0.5f; // How often the FPS is updated, in seconds
+
 	/** Textures **/
-	private Texture spriteSheet;
+	private final TextureAtlas atlas; // The HUD art, on the same page as the sprites
 	private TextureRegion idle;
 	private TextureRegion jump;
 	private TextureRegion attack;
@@ -44,15 +55,14 @@ public class UIHandler {
 	private TextureRegion stamina;
 	private TextureRegion touch;
 	private TextureRegion knob;
-	private Texture fontTexture;
 
 	/** Images **/
-	private Image mikeFace = null;
-	private Image idleIcon = null;
-	private Image jumpIcon = null;
-	private Image attackIcon = null;
-	private Image damageIcon = null;
-	private Image deathIcon = null;
+	private Image mikeFace = null; // Shows one of the icons below
+	private Drawable idleIcon = null;
+	private Drawable jumpIcon = null;
+	private Drawable attackIcon = null;
+	private Drawable damageIcon = null;
+	private Drawable deathIcon = null;
 	private Image healthBar = null;
 	private Image currentHealth = null;
 	private Image staminaBar = null;
@@ -71,6 +81,19 @@ public class UIHandler {
 	private LabelStyle labelStyle = null;
 	private TextureRegion fontRegion = null;
 	private BitmapFont font = null;
+	private final StringBuilder profileText = new StringBuilder(); // Reused for the profiler overlay
+	private float profileRefreshTime; // The time until the profiler overlay is updated
+	private boolean showingProfile; // Whether the label is showing the profiler overlay
+	private final StringBuilder fpsText = new StringBuilder(); // Reused for the FPS
+	private float fpsRefreshTime; // The time until the FPS is updated
+	private int shownFps = -1; // The FPS on the label, or -1 if the label shows something else
+
+	/** Dirty Flags **/
+	// Set when the value changes, and cleared once the actors show it
+	private boolean iconDirty = true;
+	private boolean healthDirty = true;
+	private boolean staminaDirty = true;
+	private boolean layoutDirty = true; // The HUD needs to be placed again, after a resize
 
 	/** Touchpad **/
 	private Skin touchSkin;
@@ -92,13 +115,16 @@ public class UIHandler {
 	private final Level level;
 	private final Mike mike;
 	private final Controller controller;
+	private final FrameProfiler profiler;
 
 	private float width, height, healthX;
 	private final boolean android;
 
-	public UIHandler(World world, Controller controller, boolean android) {
+	public UIHandler(World world, Controller controller, TextureAtlas atlas, FrameProfiler profiler, boolean android) {
 		this.world = world;
 		this.controller = controller;
+		this.atlas = atlas;
+		this.profiler = profiler;
 		this.android = android;
 
 		level = world.getLevel();
@@ -109,6 +135,7 @@ public class UIHandler {
 
 		loadImages();
 		loadText();
+		mike.addListener(this);
 
 		if (android) {
 			drawTouchpad();
@@ -119,67 +146,135 @@ public class UIHandler {
 	}
 
 	public void render(float delta) {
-		drawIcon();
-		drawHealth();
-		drawStamina();
-		drawFps();
+		profiler.begin(Phase.UI);
+		if (layoutDirty) {
+			layout();
+		}
+		if (iconDirty) {
+			drawIcon();
+		}
+		if (healthDirty) {
+			drawHealth();
+		}
+		if (staminaDirty) {
+			drawStamina();
+		}
+		if (profiler.isEnabled()) {
+			drawProfile(delta);
+		} else {
+			drawFps(delta);
+		}
 		stage.act(delta);
 		stage.draw();
+		profiler.end(Phase.UI);
+		profiler.addRenderCalls(stage.getSpriteBatch().renderCalls);
 	}
 
-	private void drawIcon() {
-		// Remove the actor to clear his state
-		stage.getRoot().removeActor(mikeFace);
+	/**
+	 * Place the face and the bars. Only needed when the HUD is created or resized.
+	 */
+	private void layout() {
+		layoutDirty = false;
+		mikeFace.setScale(2, 2);
+		mikeFace.setX(10);
+		mikeFace.setY(height - (mikeFace.getHeight() * 2) - 10);
+		healthX = (10 + mikeFace.getWidth() * 2);
+
+		healthBar.setPosition(healthX, height - 20);
+		currentHealth.setPosition(healthX, height - 20);
+		staminaBar.setPosition(healthX, height - 30);
+		currentStamina.setPosition(healthX, height - 30);
+		if (!showingProfile) {
+			fpsLabel.setPosition(width - 60, height - 30);
+		}
+	}
 
+	private void drawIcon() {
+		iconDirty = false;
 		if (mike.isHurt()) {
-			mikeFace = damageIcon;
+			mikeFace.setDrawable(damageIcon);
 		} else if (mike.isAttackingState()) {
-			mikeFace = attackIcon;
+			mikeFace.setDrawable(attackIcon);
 		} else if (mike.isJumping()) {
-			mikeFace = jumpIcon;
+			mikeFace.setDrawable(jumpIcon);
 		} else if (mike.getState().equals(State.DYING)) {
-			mikeFace = deathIcon;
+			mikeFace.setDrawable(deathIcon);
 		} else {
-			mikeFace = idleIcon;
+			mikeFace.setDrawable(idleIcon);
 		}
-		mikeFace.setScale(2, 2);
-		mikeFace.setX(10);
-		mikeFace.setY(height - (mikeFace.getHeight() * 2) - 10);
-		healthX = (10 + mikeFace.getWidth() * 2);
-
-		stage.addActor(mikeFace);
 	}
 
 	private void drawHealth() {
-		healthBar.setX(healthX);
-		healthBar.setY(height - 20);
+		healthDirty = false;
+		currentHealth.setScaleX(mike.getHealth() / 100);
+	}
 
-		currentHealth.setX(healthX);
-		currentHealth.setY(height - 20);
+	private void drawStamina() {
+		staminaDirty = false;
+		currentStamina.setScaleX(mike.getStamina() / 100);
+	}
 
-		float mikeHealth = mike.getHealth() / 100;
-		currentHealth.setScaleX(mikeHealth);
+	/**
+	 * Show the FPS. The text is rebuilt at most a couple of times a second, and only when the number has changed.
+	 */
+	private void drawFps(float delta) {
+		if (showingProfile) {
+			showingProfile = false;
+			fpsLabel.setFontScale(1);
+			fpsLabel.setPosition(width - 60, height - 30);
+			fpsRefreshTime = 0;
+		}
+		fpsRefreshTime -= delta;
+		if (fpsRefreshTime > 0) {
+			return;
+		}
+		fpsRefreshTime = FPS_REFRESH_TIME;
 
-		stage.addActor(healthBar);
-		stage.addActor(currentHealth);
+		int fps = Gdx.graphics.getFramesPerSecond();
+		if (fps == shownFps) {
+			return;
+		}
+		shownFps = fps;
+		fpsText.setLength(0);
+		fpsText.append("FPS: ").append(fps);
+		fpsLabel.setText(fpsText);
 	}
 
-	private void drawStamina() {
-		staminaBar.setX(healthX);
-		staminaBar.setY(height - 30);
-
-		currentStamina.setX(healthX);
-		currentStamina.setY(height - 30);
+	@Override
+	public void healthChanged(Mike mike) {
+		healthDirty = true;
+	}
 
-		float mikeStamina = mike.getStamina() / 100;
-		currentStamina.setScaleX(mikeStamina);
+	@Override
+	public void staminaChanged(Mike mike) {
+		staminaDirty = true;
+	}
 
-		stage.addActor(staminaBar);
-		stage.addActor(currentStamina);
+	@Override
+	public void stateChanged(Mike mike) {
+		iconDirty = true;
 	}
 
-	private void drawFps() {
-		fpsLabel.setText("FPS: " + Gdx.graphics.getFramesPerSecond());
+	/**
+	 * Show the frame times from the profiler in place of the FPS. The text is only rebuilt a few times a second, so the
+	 * overlay does not add much to the frames it is measuring.
+	 */
+	private void drawProfile(float delta) {
+		profileRefreshTime -= delta;
+		if (showingProfile && profileRefreshTime > 0) {
+			return;
+		}
+		showingProfile = true;
+		shownFps = -1;
+		fpsLabel.setFontScale(PROFILE_FONT_SCALE);
+		profileRefreshTime = PROFILE_REFRESH_TIME;
+
+		profileText.setLength(0);
+		profileText.append("FPS: ").append(Gdx.graphics.getFramesPerSecond()).append('\n');
+		profiler.appendSummary(profileText);
+		fpsLabel.setText(profileText);
+		fpsLabel.setX(width - fpsLabel.getPrefWidth() - 5);
+		fpsLabel.setY(height - fpsLabel.getPrefHeight() - 5);
 	}
 
 	private void drawTouchpad() {
@@ -284,41 +379,46 @@ public class UIHandler {
 	}
 
 	private void loadImages() {
-		spriteSheet = new Texture(Gdx.files.internal("images/ui.png"));
-		idle = new TextureRegion(spriteSheet, 0, 48, 16, 16);
-		jump = new TextureRegion(spriteSheet, 16, 48, 16, 16);
-		attack = new TextureRegion(spriteSheet, 32, 48, 16, 16);
-		damage = new TextureRegion(spriteSheet, 48, 48, 16, 16);
-		swim = new TextureRegion(spriteSheet, 64, 48, 16, 16);
-		death = new TextureRegion(spriteSheet, 80, 48, 16, 16);
-		bar = new TextureRegion(spriteSheet, 0, 0, 64, 16);
-		health = new TextureRegion(spriteSheet, 0, 16, 64, 16);
-		stamina = new TextureRegion(spriteSheet, 0, 32, 64, 16);
-		touch = new TextureRegion(spriteSheet, 64, 0, 32, 32);
-		knob = new TextureRegion(spriteSheet, 96, 0, 32, 32);
-
-		idleIcon = new Image(idle);
-		jumpIcon = new Image(jump);
-		attackIcon = new Image(attack);
-		damageIcon = new Image(damage);
-		deathIcon = new Image(death);
+		idle = atlas.findRegion(GameAtlas.ICON_IDLE);
+		jump = atlas.findRegion(GameAtlas.ICON_JUMP);
+		attack = atlas.findRegion(GameAtlas.ICON_ATTACK);
+		damage = atlas.findRegion(GameAtlas.ICON_DAMAGE);
+		swim = atlas.findRegion(GameAtlas.ICON_SWIM);
+		death = atlas.findRegion(GameAtlas.ICON_DEATH);
+		bar = atlas.findRegion(GameAtlas.BAR);
+		health = atlas.findRegion(GameAtlas.HEALTH);
+		stamina = atlas.findRegion(GameAtlas.STAMINA);
+		touch = atlas.findRegion(GameAtlas.TOUCH);
+		knob = atlas.findRegion(GameAtlas.KNOB);
+
+		idleIcon = new TextureRegionDrawable(idle);
+		jumpIcon = new TextureRegionDrawable(jump);
+		attackIcon = new TextureRegionDrawable(attack);
+		damageIcon = new TextureRegionDrawable(damage);
+		deathIcon = new TextureRegionDrawable(death);
+		mikeFace = new Image(idleIcon);
 
 		healthBar = new Image(bar);
 		currentHealth = new Image(health);
 		staminaBar = new Image(bar);
 		currentStamina = new Image(stamina);
+
+		// Added once, in the order they are drawn. Only their drawables, positions and scales change.
+		stage.addActor(mikeFace);
+		stage.addActor(healthBar);
+		stage.addActor(currentHealth);
+		stage.addActor(staminaBar);
+		stage.addActor(currentStamina);
 	}
 
 	private void loadText() {
-		fontTexture = new Texture(Gdx.files.internal("skins/default.png"));
-		fontTexture.setFilter(TextureFilter.Linear, TextureFilter.MipMapLinearLinear);
-		fontRegion = new TextureRegion(fontTexture);
+		fontRegion = atlas.findRegion(GameAtlas.FONT);
 		font = new BitmapFont(Gdx.files.internal("skins/default.fnt"), fontRegion, false);
 		font.setUseIntegerPositions(false);
 
 		labelStyle = new LabelStyle();
 		labelStyle.font = font;
-		fpsLabel = new Label("FPS: " + Gdx.graphics.getFramesPerSecond(), labelStyle);
+		fpsLabel = new Label(fpsText, labelStyle);
 		fpsLabel.setX(width - 60);
 		fpsLabel.setY(height - 30);
 
@@ -326,6 +426,7 @@ public class UIHandler {
 	}
 
 	public void dispose() {
+		mike.removeListener(this);
 		stage.dispose();
 	}
 
@@ -333,23 +434,18 @@ public class UIHandler {
 		// Initialize skin
 		// Skin skin = new Skin(Gdx.files.internal("skins/uiskin.json"));
 
-		Texture fontTexture = new Texture(Gdx.files.internal("skins/default.png"));
-		fontTexture.setFilter(TextureFilter.Linear, TextureFilter.MipMapLinearLinear);
-		TextureRegion fontRegion = new TextureRegion(fontTexture);
-		BitmapFont font = new BitmapFont(Gdx.files.internal("skins/default.fnt"), fontRegion, false);
-		font.setUseIntegerPositions(false);
+		// The face is already on the atlas page, so it is not loaded again
+		TextureRegion face = atlas.findRegion(GameAtlas.FACE);
 
 		ButtonStyle style = new ButtonStyle();
-		style.up = new TextureRegionDrawable(new TextureRegion(new Texture(
-				Gdx.files.internal("images/mikeface.png"))));
+		style.up = new TextureRegionDrawable(face);
 		style.unpressedOffsetX = 5f;
 		style.pressedOffsetX = style.unpressedOffsetX + 1f;
 		style.pressedOffsetY = -1f;
 
 		Table table = new Table();
 
-		Image mikeFace = new Image(new TextureRegion(new Texture(
-				Gdx.files.internal("images/mikeface.png"))));
+		Image mikeFace = new Image(face);
 		mikeFace.setScale(2, 2);
 		mikeFace.setY(height - mikeFace.getHeight() * 2);
 		table.add(mikeFace);
@@ -362,6 +458,7 @@ public class UIHandler {
 	public void setSize(int width, int height) {
 		this.width = width;
 		this.height = height;
+		layoutDirty = true;
 	}
 
 }
\ No newline at end of file